@@ -0,0 +1,26 @@
+package application;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * A BenchmarkRunner class that runs the benchmarks with the GC profiler so allocation rates are reported next to ns/op
+ */
+public class BenchmarkRunner {
+
+    /**
+     * Runs the benchmarks, accepting the usual JMH command line options
+     * @param args the JMH options, such as a benchmark name filter or -p bricks=24
+     */
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        new Runner(new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+
+}
@@ -0,0 +1,58 @@
+package application;
+
+/**
+ * A Boards class that lays out brick fields and worlds of a given size for the benchmarks
+ */
+final class Boards {
+
+    static final double BRICK_WIDTH = 100;
+    static final double BRICK_HEIGHT = 50;
+    static final double GAP = 6;
+    static final double TOP = 50;
+
+    private Boards() {}
+
+    /**
+     * Gets the number of brick columns used for a board size, keeping boards roughly twice as wide as tall
+     * @param bricks the number of bricks
+     * @return the column count
+     */
+    static int columns(int bricks) {
+        return (int)Math.ceil(Math.sqrt(bricks * 2));
+    }
+
+    /**
+     * Lays out a brick field in rows below the top wall
+     * @param bricks the number of bricks
+     * @return the brick field
+     */
+    static BrickField field(int bricks) {
+        final int cols = columns(bricks);
+        BrickField field = new BrickField(bricks);
+        for(int i = 0; i < bricks; i++) {
+            field.setBounds(i, GAP / 2 + (i % cols) * (BRICK_WIDTH + GAP), TOP + (i / cols) * (BRICK_HEIGHT + GAP), 
+                    BRICK_WIDTH, BRICK_HEIGHT);
+        }
+        return field;
+    }
+
+    /**
+     * Creates a world around a brick field with room below the bricks for the paddle
+     * @param field the brick field
+     * @param speed the ball's starting speed
+     * @return the world
+     */
+    static World world(BrickField field, double speed) {
+        final int cols = columns(field.getCount());
+        final int rows = (field.getCount() + cols - 1) / cols;
+        final double width = cols * (BRICK_WIDTH + GAP);
+        final double height = TOP + rows * (BRICK_HEIGHT + GAP) + 285;
+
+        World world = new World(width, height, field);
+        world.setBallHome(width / 2, height - 38, 8);
+        world.setPaddleHome(width / 2 - 60, height - 30, 120, 15);
+        world.setStartingSpeed(speed);
+        return world;
+    }
+
+}
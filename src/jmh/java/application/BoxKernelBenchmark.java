@@ -0,0 +1,95 @@
+package application;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * A BoxKernelBenchmark class that compares finding a ball's brick by grid query and by scanning every brick with
+ * the scalar or the vector box kernel. The vector kernel needs the jar built with -Pjmh,vector and run with
+ * -jvmArgsAppend --add-modules=jdk.incubator.vector
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BoxKernelBenchmark {
+
+    @Param({"24", "100", "1000", "10000", "50000"})
+    public int bricks;
+
+    @Param({"grid", "scalar", "vector"})
+    public String search;
+
+    private static final int QUERIES = 1024;
+    private static final double RADIUS = 8;
+    private static final double SPEED = 8;
+
+    private BrickField field;
+    private BoxKernel kernel;
+    private SweptCollision hit;
+    private double[] queryX;
+    private double[] queryY;
+    private double[] queryVX;
+    private double[] queryVY;
+    private int next;
+
+    /**
+     * Lays out the board with a third of it cleared and picks diagonal ball moves that start across it
+     */
+    @Setup
+    public void setup() {
+        final int cols = Boards.columns(this.bricks);
+        final int rows = (this.bricks + cols - 1) / cols;
+
+        if("scalar".equals(this.search)) {
+            this.kernel = new ScalarBoxKernel();
+        }
+        else if("vector".equals(this.search)) {
+            this.kernel = BoxKernel.vector();
+            if(this.kernel == null) {
+                throw new IllegalStateException("the vector kernel is not built or jdk.incubator.vector is not added");
+            }
+        }
+
+        this.field = Boards.field(this.bricks);
+        this.hit = new SweptCollision();
+
+        Random random = new Random(42);
+        for(int k = 0; k < this.bricks / 3; k++) {
+            final int i = random.nextInt(this.bricks);
+            while(this.field.isAlive(i)) {
+                this.field.increaseDamage(i);
+            }
+        }
+
+        this.queryX = new double[QUERIES];
+        this.queryY = new double[QUERIES];
+        this.queryVX = new double[QUERIES];
+        this.queryVY = new double[QUERIES];
+        for(int q = 0; q < QUERIES; q++) {
+            this.queryX[q] = random.nextDouble() * cols * (Boards.BRICK_WIDTH + Boards.GAP);
+            this.queryY[q] = Boards.TOP + random.nextDouble() * rows * (Boards.BRICK_HEIGHT + Boards.GAP);
+            this.queryVX[q] = random.nextBoolean() ? SPEED : -SPEED;
+            this.queryVY[q] = random.nextBoolean() ? SPEED : -SPEED;
+        }
+    }
+
+    /**
+     * Finds the brick one ball's move hits
+     * @return the brick hit
+     */
+    @Benchmark
+    public int findHit() {
+        final int q = this.next++ & (QUERIES - 1);
+        if(this.kernel == null) {
+            return this.field.gridCollision(this.queryX[q], this.queryY[q], this.queryVX[q], this.queryVY[q], RADIUS,
+                    this.hit);
+        }
+        return this.field.scanCollision(this.queryX[q], this.queryY[q], this.queryVX[q], this.queryVY[q], RADIUS,
+                this.hit, this.kernel);
+    }
+
+}
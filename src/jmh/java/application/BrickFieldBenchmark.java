@@ -0,0 +1,99 @@
+package application;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * A BrickFieldBenchmark class that measures the brick collision, damage and reset paths
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BrickFieldBenchmark {
+
+    @Param({"24", "1000", "10000"})
+    public int bricks;
+
+    @Param({"1", "16"})
+    public int balls;
+
+    private static final int QUERIES = 1024;
+    private static final double RADIUS = 8;
+    private static final double SPEED = 8;
+
+    private BrickField field;
+    private SweptCollision hit;
+    private double[] queryX;
+    private double[] queryY;
+    private double[] queryVX;
+    private double[] queryVY;
+    private int next;
+
+    /**
+     * Lays out the board and picks diagonal ball moves that start across it
+     */
+    @Setup
+    public void setup() {
+        final int cols = Boards.columns(this.bricks);
+        final int rows = (this.bricks + cols - 1) / cols;
+
+        this.field = Boards.field(this.bricks);
+        this.hit = new SweptCollision();
+
+        Random random = new Random(42);
+        this.queryX = new double[QUERIES];
+        this.queryY = new double[QUERIES];
+        this.queryVX = new double[QUERIES];
+        this.queryVY = new double[QUERIES];
+        for(int q = 0; q < QUERIES; q++) {
+            this.queryX[q] = random.nextDouble() * cols * (Boards.BRICK_WIDTH + Boards.GAP);
+            this.queryY[q] = Boards.TOP + random.nextDouble() * rows * (Boards.BRICK_HEIGHT + Boards.GAP);
+            this.queryVX[q] = random.nextBoolean() ? SPEED : -SPEED;
+            this.queryVY[q] = random.nextBoolean() ? SPEED : -SPEED;
+        }
+    }
+
+    /**
+     * Sweeps each ball's move for the tick against the bricks without damaging them
+     * @return the sum of the bricks hit
+     */
+    @Benchmark
+    public int checkCollision() {
+        int sum = 0;
+        for(int b = 0; b < this.balls; b++) {
+            final int q = this.next++ & (QUERIES - 1);
+            sum += this.field.checkCollision(this.queryX[q], this.queryY[q], this.queryVX[q], this.queryVY[q], RADIUS, this.hit);
+        }
+        return sum;
+    }
+
+    /**
+     * Damages one brick per ball, resetting the board each time it is cleared
+     * @return the bricks cleared so far
+     */
+    @Benchmark
+    public int increaseDamage() {
+        for(int b = 0; b < this.balls; b++) {
+            final int i = Math.floorMod(this.next++, this.bricks);
+            if(this.field.isAlive(i) && this.field.increaseDamage(i)) {
+                this.field.reset();
+            }
+        }
+        return this.field.getBricksCleared();
+    }
+
+    /**
+     * Restores every brick to full health
+     * @return the bricks cleared, which is always 0
+     */
+    @Benchmark
+    public int reset() {
+        this.field.reset();
+        return this.field.getBricksCleared();
+    }
+
+}
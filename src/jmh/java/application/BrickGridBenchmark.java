@@ -0,0 +1,88 @@
+package application;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * A BrickGridBenchmark class that measures ball queries against boards of growing size
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BrickGridBenchmark {
+
+    @Param({"24", "100", "1000", "10000"})
+    public int bricks;
+
+    private static final int QUERIES = 1024;
+    private static final double RADIUS = 8;
+
+    private BrickGrid grid;
+    private BrickField field;
+    private double[] queryX;
+    private double[] queryY;
+    private int next;
+
+    /**
+     * Lays out a board of 100x50 bricks and picks query points across it
+     */
+    @Setup
+    public void setup() {
+        final int cols = Boards.columns(this.bricks);
+        final int rows = (this.bricks + cols - 1) / cols;
+
+        this.field = Boards.field(this.bricks);
+        this.grid = new BrickGrid();
+        this.grid.build(this.field);
+
+        Random random = new Random(42);
+        this.queryX = new double[QUERIES];
+        this.queryY = new double[QUERIES];
+        for(int q = 0; q < QUERIES; q++) {
+            this.queryX[q] = random.nextDouble() * cols * (Boards.BRICK_WIDTH + Boards.GAP);
+            this.queryY[q] = Boards.TOP + random.nextDouble() * rows * (Boards.BRICK_HEIGHT + Boards.GAP);
+        }
+    }
+
+    /**
+     * Tests one ball against the bricks in the grid cells it overlaps
+     * @return the highest overlapping brick, or -1
+     */
+    @Benchmark
+    public int gridQuery() {
+        final int q = this.next++ & (QUERIES - 1);
+        final double x = this.queryX[q], y = this.queryY[q];
+        final int candidates = this.grid.query(x - RADIUS, y - RADIUS, x + RADIUS, y + RADIUS);
+        int hit = -1;
+        for(int k = 0; k < candidates; k++) {
+            final int i = this.grid.getCandidate(k);
+            if(i > hit && x + RADIUS >= this.field.getMinX(i) && x - RADIUS <= this.field.getMaxX(i)
+                    && y + RADIUS >= this.field.getMinY(i) && y - RADIUS <= this.field.getMaxY(i)) {
+                hit = i;
+            }
+        }
+        return hit;
+    }
+
+    /**
+     * Tests one ball against every brick, as the node scan used to
+     * @return the highest overlapping brick, or -1
+     */
+    @Benchmark
+    public int linearScan() {
+        final int q = this.next++ & (QUERIES - 1);
+        final double x = this.queryX[q], y = this.queryY[q];
+        for(int i = this.bricks - 1; i >= 0; i--) {
+            if(x + RADIUS >= this.field.getMinX(i) && x - RADIUS <= this.field.getMaxX(i)
+                    && y + RADIUS >= this.field.getMinY(i) && y - RADIUS <= this.field.getMaxY(i)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+}
@@ -0,0 +1,73 @@
+package application;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * A PhysicsBenchmark class that measures a world tick and the paddle checks across board sizes and ball counts
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PhysicsBenchmark {
+
+    @Param({"24", "1000", "10000"})
+    public int bricks;
+
+    @Param({"1", "16"})
+    public int balls;
+
+    private static final double SPEED = 8;
+
+    private BrickField field;
+    private World[] worlds;
+
+    /**
+     * Puts every ball in its own world over one shared brick field, restarting balls and bricks as they run out
+     */
+    @Setup
+    public void setup() {
+        this.field = Boards.field(this.bricks);
+
+        this.worlds = new World[this.balls];
+        for(int b = 0; b < this.balls; b++) {
+            final World world = Boards.world(this.field, SPEED);
+            world.setBallX(world.getBallX() + (b - this.balls / 2) * 20);
+            world.getEvents().addLifeLostListener(event -> world.resetPlayer(SPEED));
+            world.getEvents().addLevelClearedListener(event -> this.field.reset());
+            this.worlds[b] = world;
+        }
+    }
+
+    /**
+     * Advances every ball by one tick, as Ball.animate does
+     * @return the last ball's x coordinate
+     */
+    @Benchmark
+    public double tick() {
+        double x = 0;
+        for(World world : this.worlds) {
+            world.tick();
+            x += world.getBallX();
+        }
+        return x;
+    }
+
+    /**
+     * Moves each paddle under its ball and checks it for a push-out, as the paddle update does
+     * @return the number of paddle collisions
+     */
+    @Benchmark
+    public int paddleCollision() {
+        int hits = 0;
+        for(World world : this.worlds) {
+            world.movePaddle(world.getBallX() - world.getPaddleX() - world.getPaddleWidth() / 2 > 0 ? 1 : -1);
+            hits += world.checkPaddleCollision();
+        }
+        return hits;
+    }
+
+}
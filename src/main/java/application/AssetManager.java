@@ -0,0 +1,357 @@
+package application;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.function.DoubleConsumer;
+import java.util.function.ToLongFunction;
+
+import javafx.scene.image.Image;
+import javafx.scene.text.Font;
+
+/**
+ * An AssetManager class that loads images, fonts, sounds and sprite atlases on background threads and caches them
+ *
+ * Asking for an asset that is loaded or loading gives a handle to the same load. Each handle counts as a reference
+ * until it is released, and an asset nobody references stays cached until the cache is over its memory budget,
+ * when the least recently used ones are dropped. Assets that are referenced are never dropped, so the budget can
+ * be exceeded while they are in use. Progress is reported as the share of the assets asked for since the loaders
+ * were last idle that have finished loading.
+ */
+public class AssetManager {
+
+    public static final long DEFAULT_BUDGET = 64L << 20;
+    public static final int LOADERS = 2;
+
+    // fonts do not tell how much memory they take, so each is counted as a typical font file
+    private static final long FONT_SIZE = 64L << 10;
+
+    private static AssetManager defaultManager;
+
+    /**
+     * One acquisition of an asset, released once
+     * @param <T> the asset's type
+     */
+    public static final class Handle<T> {
+        private final AssetManager manager;
+        private final Entry entry;
+        private final CompletableFuture<T> future;
+        private boolean released;
+
+        @SuppressWarnings("unchecked")
+        private Handle(AssetManager manager, Entry entry) {
+            this.manager = manager;
+            this.entry = entry;
+            this.future = (CompletableFuture<T>)entry.future;
+        }
+
+        /**
+         * Gets the asset, waiting for it to load
+         * @return the asset
+         * @throws CompletionException if it could not be loaded
+         */
+        public T join() {
+            return this.future.join();
+        }
+
+        /**
+         * Gets the asset's load, to act on it when it is done
+         * @return the load
+         */
+        public CompletableFuture<T> getFuture() {
+            return this.future;
+        }
+
+        /**
+         * Calls an action with the asset once it is loaded, on the thread that loaded it or this one
+         * @param action the action
+         */
+        public void whenLoaded(Consumer<T> action) {
+            this.future.thenAccept(action);
+        }
+
+        /**
+         * Gives up this reference to the asset
+         */
+        public void release() {
+            synchronized(this.manager) {
+                if(!this.released) {
+                    this.released = true;
+                    this.manager.release(this.entry);
+                }
+            }
+        }
+    }
+
+    /**
+     * A cached asset
+     */
+    private static final class Entry {
+        final String key;
+        CompletableFuture<?> future;
+        int references;
+        long size;
+        boolean loaded;
+
+        Entry(String key) {
+            this.key = key;
+        }
+    }
+
+    private final long budget;
+    private final ExecutorService loaders = Executors.newFixedThreadPool(LOADERS, r -> {
+        Thread t = new Thread(r, "asset-loader");
+        t.setDaemon(true);
+        return t;
+    });
+
+    // in access order, so iteration starts from the least recently used
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<String, Entry>(16, 0.75f, true);
+    private final List<DoubleConsumer> progressListeners = new CopyOnWriteArrayList<DoubleConsumer>();
+    private long used;
+    private int requested;
+    private int finished;
+    private long evictions;
+
+    /**
+     * Creates an asset manager
+     * @param budget the bytes unreferenced assets may take before they are dropped
+     */
+    public AssetManager(long budget) {
+        this.budget = budget;
+    }
+
+    /**
+     * Gets the manager shared by the application, with the budget in -Dbrickbreaker.assetBudget megabytes
+     * @return the manager
+     */
+    public static synchronized AssetManager getDefault() {
+        if(defaultManager == null) {
+            String megabytes = System.getProperty("brickbreaker.assetBudget");
+            defaultManager = new AssetManager(megabytes != null ? Long.parseLong(megabytes) << 20 : DEFAULT_BUDGET);
+        }
+        return defaultManager;
+    }
+
+    /**
+     * Loads an image from the resources
+     * @param resource the resource path
+     * @return a handle to the image
+     */
+    public Handle<Image> image(String resource) {
+        return acquire("image:" + resource, () -> {
+            Image image = new Image(locate(resource).toExternalForm());
+            if(image.isError()) {
+                throw new IOException("cannot load " + resource, image.getException());
+            }
+            return image;
+        }, image -> (long)image.getWidth() * (long)image.getHeight() * 4);
+    }
+
+    /**
+     * Loads a font from the resources, which also makes its family available to stylesheets
+     * @param resource the resource path
+     * @param size the font size
+     * @return a handle to the font
+     */
+    public Handle<Font> font(String resource, double size) {
+        return acquire("font:" + resource + "@" + size, () -> {
+            Font font = Font.loadFont(locate(resource).toExternalForm(), size);
+            if(font == null) {
+                throw new IOException("cannot load " + resource);
+            }
+            return font;
+        }, font -> FONT_SIZE);
+    }
+
+    /**
+     * Loads and decodes a sound from the resources
+     * @param resource the resource path
+     * @return a handle to the sound
+     */
+    public Handle<Sound> sound(String resource) {
+        return acquire("sound:" + resource, () -> Sound.load(locate(resource)), Sound::getSize);
+    }
+
+    /**
+     * Loads small sprites from the resources and packs them into one atlas, each named by its resource path
+     * @param name the atlas's name
+     * @param resources the sprites' resource paths
+     * @return a handle to the atlas
+     */
+    public Handle<SpriteAtlas> atlas(String name, List<String> resources) {
+        final List<String> sprites = new ArrayList<String>(resources);
+        return acquire("atlas:" + name, () -> {
+            // the sprites are only needed until they are packed, so they bypass the cache
+            Map<String, Image> images = new LinkedHashMap<String, Image>();
+            for(String resource : sprites) {
+                Image image = new Image(locate(resource).toExternalForm());
+                if(image.isError()) {
+                    throw new IOException("cannot load " + resource, image.getException());
+                }
+                images.put(resource, image);
+            }
+            return SpriteAtlas.pack(images);
+        }, SpriteAtlas::getSize);
+    }
+
+    /**
+     * Finds a resource
+     * @param resource the resource path
+     * @return its URL
+     * @throws IOException if there is no such resource
+     */
+    private static URL locate(String resource) throws IOException {
+        URL url = AssetManager.class.getResource(resource);
+        if(url == null) {
+            throw new IOException("no resource " + resource);
+        }
+        return url;
+    }
+
+    /**
+     * Gets a handle to a cached asset, starting its load if it is not cached
+     * @param key the asset's cache key
+     * @param load loads the asset
+     * @param size measures the loaded asset in bytes
+     * @return a handle
+     */
+    private <T> Handle<T> acquire(String key, Callable<T> load, ToLongFunction<T> size) {
+        final Entry entry;
+        final Handle<T> handle;
+        CompletableFuture<T> future = null;
+        synchronized(this) {
+            Entry cached = this.entries.get(key);
+            if(cached == null) {
+                cached = new Entry(key);
+                cached.future = future = new CompletableFuture<T>();
+                this.entries.put(key, cached);
+                this.requested++;
+            }
+            entry = cached;
+            entry.references++;
+            handle = new Handle<T>(this, entry);
+        }
+
+        if(future != null) {
+            final CompletableFuture<T> loading = future;
+            this.loaders.execute(() -> {
+                try {
+                    T asset = load.call();
+                    loaded(entry, size.applyAsLong(asset));
+                    loading.complete(asset);
+                }
+                catch(Exception e) {
+                    loaded(entry, -1);
+                    loading.completeExceptionally(e);
+                }
+            });
+        }
+        return handle;
+    }
+
+    /**
+     * Counts a finished load and drops what no longer fits the budget
+     * @param entry the asset
+     * @param size its size in bytes, or -1 if it failed, which takes it out of the cache to be tried again
+     */
+    private void loaded(Entry entry, long size) {
+        final double progress;
+        synchronized(this) {
+            if(size < 0) {
+                this.entries.remove(entry.key, entry);
+            }
+            else {
+                entry.size = size;
+                entry.loaded = true;
+                this.used += size;
+                evict();
+            }
+
+            this.finished++;
+            progress = (double)this.finished / this.requested;
+            if(this.finished == this.requested) {
+                this.finished = 0;
+                this.requested = 0;
+            }
+        }
+        for(DoubleConsumer listener : this.progressListeners) {
+            listener.accept(progress);
+        }
+    }
+
+    /**
+     * Gives up a reference to an asset
+     * @param entry the asset
+     */
+    private synchronized void release(Entry entry) {
+        entry.references--;
+        evict();
+    }
+
+    /**
+     * Drops the least recently used unreferenced assets until the cache fits its budget
+     */
+    private void evict() {
+        for(Iterator<Entry> it = this.entries.values().iterator(); it.hasNext() && this.used > this.budget; ) {
+            Entry entry = it.next();
+            if(entry.references == 0 && entry.loaded) {
+                it.remove();
+                this.used -= entry.size;
+                this.evictions++;
+            }
+        }
+    }
+
+    /**
+     * Keeps track of loading progress
+     * @param listener called on a loader thread with the share of the assets asked for that are done, 1 once all are
+     */
+    public void addProgressListener(DoubleConsumer listener) {
+        this.progressListeners.add(listener);
+    }
+
+    /**
+     * Stops calling a progress listener
+     * @param listener the listener
+     */
+    public void removeProgressListener(DoubleConsumer listener) {
+        this.progressListeners.remove(listener);
+    }
+
+    /**
+     * Gets the memory the cached assets take
+     * @return the size in bytes
+     */
+    public synchronized long getUsed() {
+        return this.used;
+    }
+
+    /**
+     * Gets the number of assets cached or loading
+     * @return the asset count
+     */
+    public synchronized int getCount() {
+        return this.entries.size();
+    }
+
+    /**
+     * Gets the number of assets dropped to keep within the budget
+     * @return the eviction count
+     */
+    public synchronized long getEvictions() {
+        return this.evictions;
+    }
+
+}
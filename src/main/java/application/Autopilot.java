@@ -0,0 +1,147 @@
+package application;
+
+/**
+ * An Autopilot class that moves the paddle to where the ball will come down
+ *
+ * The landing point is found by casting the ball's path through wall and brick reflections down to the
+ * paddle. It only changes when the ball's velocity does, when a brick is destroyed, which may open the path
+ * even if another ball hit it, or when something outside a tick moves the ball, so it is cached and the
+ * per-tick cost is a few comparisons. With several balls in play it chases the one that will reach the
+ * paddle first.
+ */
+public class Autopilot implements PaddleController {
+
+    private static final int MAX_BOUNCES = 64;
+
+    private final SweptCollision sweep = new SweptCollision();
+
+    private int version = -1;
+    private int ball = -1;
+    private double dx, dy;
+    private BrickField bricks;
+    private int generation;
+    private double targetX;
+    private long predictions;
+
+    @Override
+    public int input(World world) {
+        final int ball = nextToLand(world);
+        if(world.getVersion() != this.version || ball != this.ball || world.getBallDX(ball) != this.dx
+                || world.getBallDY(ball) != this.dy || world.getBricks() != this.bricks
+                || world.getBricks().getGeneration() != this.generation) {
+            this.version = world.getVersion();
+            this.ball = ball;
+            this.dx = world.getBallDX(ball);
+            this.dy = world.getBallDY(ball);
+            this.bricks = world.getBricks();
+            this.generation = this.bricks.getGeneration();
+            this.targetX = predict(world, ball);
+            this.predictions++;
+        }
+
+        final double offset = this.targetX - (world.getPaddleX() + world.getPaddleWidth() / 2);
+        if(Math.abs(offset) <= world.getPaddleStep() / 2) {
+            return 0;
+        }
+        return offset < 0 ? World.LEFT : World.RIGHT;
+    }
+
+    /**
+     * Picks the falling ball closest in time to the paddle, or the first ball if none is falling
+     * @param world the world
+     * @return the ball's index
+     */
+    private static int nextToLand(World world) {
+        final double lineY = world.getPaddleY() - world.getBallRadius();
+        int best = 0;
+        double bestTime = Double.POSITIVE_INFINITY;
+        for(int i = 0; i < world.getBallCount(); i++) {
+            final double dy = world.getBallDY(i);
+            if(dy > 0) {
+                final double time = (lineY - world.getBallY(i)) / dy;
+                if(time >= 0 && time < bestTime) {
+                    best = i;
+                    bestTime = time;
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Casts a ball's path until it reaches the paddle's top, reflecting off walls and standing bricks
+     * @param world the world
+     * @param ball the ball's index
+     * @return the ball's center x coordinate when it reaches the paddle
+     */
+    public double predict(World world, int ball) {
+        final double r = world.getBallRadius();
+        final double width = world.getWidth();
+        final double lineY = world.getPaddleY() - r;
+        final BrickField bricks = world.getBricks();
+
+        double x = world.getBallX(ball), y = world.getBallY(ball);
+        double vx = world.getBallDX(ball), vy = world.getBallDY(ball);
+
+        for(int bounce = 0; bounce < MAX_BOUNCES; bounce++) {
+            if(vy > 0 && y >= lineY) {
+                break;
+            }
+
+            // time to the next wall, or to the paddle line on the way down
+            double timeX = Double.POSITIVE_INFINITY;
+            if(vx < 0) timeX = Math.max(0, (r - x) / vx);
+            else if(vx > 0) timeX = Math.max(0, (width - r - x) / vx);
+
+            double timeY = Double.POSITIVE_INFINITY;
+            if(vy < 0) timeY = Math.max(0, (r - y) / vy);
+            else if(vy > 0) timeY = Math.max(0, (lineY - y) / vy);
+
+            final double time = Math.min(timeX, timeY);
+            if(Double.isInfinite(time)) {
+                break;
+            }
+
+            final int brick = bricks.checkCollision(x, y, vx * time, vy * time, r, this.sweep);
+            if(brick >= 0) {
+                final double t = this.sweep.getTime() * time;
+                x += vx * t;
+                y += vy * t;
+                if(this.sweep.getSide() == -1) vx = -vx;
+                else vy = -vy;
+                continue;
+            }
+
+            x += vx * time;
+            y += vy * time;
+            if(timeY <= timeX) {
+                if(vy > 0) {
+                    break;
+                }
+                vy = -vy;
+            }
+            if(timeX <= timeY) {
+                vx = -vx;
+            }
+        }
+
+        return Math.max(r, Math.min(width - r, x));
+    }
+
+    /**
+     * Gets where the ball is expected to reach the paddle
+     * @return the predicted center x coordinate
+     */
+    public double getTargetX() {
+        return this.targetX;
+    }
+
+    /**
+     * Gets how many times the path has been cast
+     * @return the prediction count
+     */
+    public long getPredictions() {
+        return this.predictions;
+    }
+
+}
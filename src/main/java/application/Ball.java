@@ -1,50 +1,57 @@
-
 package application;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import javafx.scene.shape.Circle;
 import javafx.scene.layout.Pane;
-import javafx.geometry.Bounds;
-import java.util.Random;
-import java.util.List;
-import java.util.ArrayList;
 
 /**
- * A Ball class that handles the animation of the ball
+ * A Ball class that handles the animation of the balls in play
+ *
+ * The Circle from the scene shows the first ball. Further balls get copies of it that are kept once made and
+ * hidden while unused, so balls coming and going does not add or remove nodes.
  */
 public class Ball {
     
     private Circle ball;
-    private double dx;
-    private double dy;
-    private Bricks bricks;
-    private Paddle paddle;
-    
-    private List<Levels> lossListeners = new ArrayList<Levels>();
+    private World world;
+    private double originX;
+    private double originY;
+    private List<Circle> nodes = new ArrayList<Circle>();
+    private int shown = 1;
     
     /**
      * A constructor that creates the ball object.
      *
      * @param ball the ball 
-     * @param bricks the bricks
-     * @param paddle the paddle.
+     * @param world the world the ball moves in.
      * @param speed the speed of the ball.
      */
-    public Ball(Circle ball, Bricks bricks, Paddle paddle, double speed) {
+    public Ball(Circle ball, World world, double speed) {
         this.ball = ball;
-        this.bricks = bricks;
-        this.paddle = paddle;
+        this.world = world;
+        this.originX = ball.getLayoutX() + ball.getCenterX();
+        this.originY = ball.getLayoutY() + ball.getCenterY();
+        this.nodes.add(ball);
+        
+        world.setBallHome(this.originX + ball.getTranslateX(), this.originY + ball.getTranslateY(), ball.getRadius());
         setStartingSpeed(speed);
+        
+        Pane canvas = (Pane)ball.getParent();
+        world.setSize(canvas.getPrefWidth(), canvas.getPrefHeight());
+        canvas.widthProperty().addListener((obs, old, w) -> world.setSize(w.doubleValue(), canvas.getHeight()));
+        canvas.heightProperty().addListener((obs, old, h) -> world.setSize(canvas.getWidth(), h.doubleValue()));
     }
     
     /**
      * Another constructor that initializes the speed of the ball.
      *
      * @param ball the ball
-     * @param bricks the bricks.
-     * @param paddle the paddle.
+     * @param world the world the ball moves in.
      */
-    public Ball(Circle ball, Bricks bricks, Paddle paddle) {
-        this(ball, bricks, paddle, 4);
+    public Ball(Circle ball, World world) {
+        this(ball, world, 4);
     }
     
     /**
@@ -53,44 +60,64 @@ public class Ball {
      * @param speed the speed of the ball object
      */
     public void setStartingSpeed(double speed) {
-        this.dx = (new Random()).nextBoolean() ? speed : -speed;
-        this.dy = -speed;
+        this.world.setStartingSpeed(speed);
     }
     
     /**
-     * Keeps track of when the player loses
+     * Advances the ball one tick in the world.
+     */
+    public void animate() {
+        this.world.tick();
+    }
+    
+    /**
+     * Copies the balls' positions from the world onto the Circles, showing one per ball in play.
      *
-     * @param newListener tracker for when the player loses
+     * @param alpha the fraction of a tick to interpolate past the last snapshot
      */
-    public void addLossListener(Levels newListener) {
-        this.lossListeners.add(newListener);
+    public void render(double alpha) {
+        final int count = this.world.getBallCount();
+        while(this.nodes.size() < count) {
+            this.nodes.add(copyNode());
+        }
+        
+        for(int i = 0; i < count; i++) {
+            Circle node = this.nodes.get(i);
+            node.setTranslateX(this.world.getBallX(i, alpha) - this.originX);
+            node.setTranslateY(this.world.getBallY(i, alpha) - this.originY);
+            node.setVisible(true);
+        }
+        // the scene's ball stays up between lives, as it did when there was only one
+        for(int i = Math.max(count, 1); i < this.shown; i++) {
+            this.nodes.get(i).setVisible(false);
+        }
+        this.shown = Math.max(count, 1);
     }
     
     /**
-     * Animates the ball when it comes in contact with a brick.
+     * Makes another Circle like the scene's ball, placed next to it
+     *
+     * @return the new Circle
      */
-    public void animate() {
-        this.ball.setTranslateX(this.ball.getTranslateX() + dx);
-        this.ball.setTranslateY(this.ball.getTranslateY() + dy);
+    private Circle copyNode() {
+        Circle node = new Circle(this.ball.getCenterX(), this.ball.getCenterY(), this.ball.getRadius());
+        node.setLayoutX(this.ball.getLayoutX());
+        node.setLayoutY(this.ball.getLayoutY());
+        node.getStyleClass().add("ball");
+        node.setMouseTransparent(true);
         
-        Bounds bounds = this.ball.getBoundsInParent();
         Pane canvas = (Pane)this.ball.getParent();
-        final boolean atTopBorder = bounds.getMinY() <= 0;
-        final boolean atRightBorder = bounds.getMaxX() >= canvas.getWidth();
-        final boolean atBottomBorder = bounds.getMaxY() >= canvas.getHeight();
-        final boolean atLeftBorder = bounds.getMinX() <= 0;
-        
-        final int atBrick = this.bricks.checkCollision(this.ball);
-        final int atPaddle = this.paddle.checkCollision(this.ball);
-        
-        if(atLeftBorder || atRightBorder || atBrick == -1) dx *= -1;
-        if(atTopBorder || atBrick == 1 || atPaddle == 1) dy *= -1;
-        
-        if(atBottomBorder) {
-            for(Levels ls : this.lossListeners) {
-                ls.handleLevelingEvent();
-            }
-        }
+        canvas.getChildren().add(canvas.getChildren().indexOf(this.ball) + 1, node);
+        return node;
+    }
+    
+    /**
+     * Gets the number of Circles made for balls, shown or not
+     *
+     * @return the node count
+     */
+    public int getNodeCount() {
+        return this.nodes.size();
     }
     
     /**
@@ -99,7 +126,7 @@ public class Ball {
      * @return the ball's x coordinate
      */
     public double getTranslateX() { 
-        return this.ball.getTranslateX(); 
+        return this.world.getBallX() - this.originX; 
     }
 
     /**
@@ -108,7 +135,7 @@ public class Ball {
      * @return the ball's y coordinate
      */    
     public double getTranslateY() { 
-        return this.ball.getTranslateY(); 
+        return this.world.getBallY() - this.originY; 
     }
  
      /**
@@ -117,7 +144,7 @@ public class Ball {
      * @param x the ball's x coordinate
      */   
     public void setTranslateX(double x) { 
-        this.ball.setTranslateX(x); 
+        this.world.setBallX(this.originX + x); 
     }
     
     /**
@@ -126,7 +153,7 @@ public class Ball {
      * @param y the ball's y coordinate
      */     
     public void setTranslateY(double y) { 
-        this.ball.setTranslateY(y); 
+        this.world.setBallY(this.originY + y); 
     }
     
     /**
@@ -0,0 +1,54 @@
+package application;
+
+/**
+ * A BallFollower class that steers the paddle under the ball with a random aiming error, as a stand-in player
+ *
+ * The error is drawn again each time the ball starts to fall, so a less skilled follower now and then
+ * commits to the wrong spot and misses.
+ */
+public class BallFollower implements PaddleController {
+
+    private final double skill;
+    private long seed;
+    private double error;
+    private boolean falling;
+
+    /**
+     * Constructor of the BallFollower class
+     * @param skill from 0 to 1, where 1 always aims at the ball and lower values aim up to a paddle width off
+     * @param seed the seed for the aiming errors
+     */
+    public BallFollower(double skill, long seed) {
+        this.skill = skill;
+        this.seed = seed;
+    }
+
+    @Override
+    public int input(World world) {
+        final boolean falling = world.getBallDY() > 0;
+        if(falling && !this.falling) {
+            final double reach = (1 - this.skill) * world.getPaddleWidth() * 1.5;
+            this.error = (nextDouble() * 2 - 1) * reach;
+        }
+        this.falling = falling;
+
+        final double target = world.getBallX() + this.error - world.getPaddleWidth() / 2;
+        final double deadband = world.getPaddleWidth() / 8;
+        if(target < world.getPaddleX() - deadband) {
+            return World.LEFT;
+        }
+        if(target > world.getPaddleX() + deadband) {
+            return World.RIGHT;
+        }
+        return 0;
+    }
+
+    /**
+     * Draws a random number from 0 to 1 with SplitMix64, so each follower is independent of the others
+     * @return the random number
+     */
+    private double nextDouble() {
+        return SplitMix64.toDouble(SplitMix64.mix(this.seed += SplitMix64.GAMMA));
+    }
+
+}
@@ -0,0 +1,196 @@
+package application;
+
+import java.util.Arrays;
+
+/**
+ * A BallPool class that keeps every ball in play as parallel arrays of positions and velocities
+ *
+ * Live balls always fill the first getCount() slots. Despawning moves the last ball into the freed slot, so
+ * the arrays never have holes and spawning reuses slots instead of allocating. The arrays only grow when more
+ * balls are in play at once than ever before.
+ */
+public class BallPool {
+
+    private int count;
+    private double[] x;
+    private double[] y;
+    private double[] dx;
+    private double[] dy;
+    private double[] prevX;
+    private double[] prevY;
+
+    /**
+     * Constructor of the BallPool class
+     * @param capacity the number of balls to make room for up front
+     */
+    public BallPool(int capacity) {
+        capacity = Math.max(1, capacity);
+        this.x = new double[capacity];
+        this.y = new double[capacity];
+        this.dx = new double[capacity];
+        this.dy = new double[capacity];
+        this.prevX = new double[capacity];
+        this.prevY = new double[capacity];
+    }
+
+    /**
+     * Puts a ball in play
+     * @param x the center x coordinate
+     * @param y the center y coordinate
+     * @param dx the horizontal speed
+     * @param dy the vertical speed
+     * @return the ball's index
+     */
+    public int spawn(double x, double y, double dx, double dy) {
+        if(this.count == this.x.length) {
+            grow(this.count * 2);
+        }
+        final int i = this.count++;
+        this.x[i] = x;
+        this.y[i] = y;
+        this.dx[i] = dx;
+        this.dy[i] = dy;
+        this.prevX[i] = x;
+        this.prevY[i] = y;
+        return i;
+    }
+
+    /**
+     * Takes a ball out of play by moving the last ball into its slot
+     * @param i the ball's index, which then holds the ball that was last
+     */
+    public void despawn(int i) {
+        final int last = --this.count;
+        if(i != last) {
+            this.x[i] = this.x[last];
+            this.y[i] = this.y[last];
+            this.dx[i] = this.dx[last];
+            this.dy[i] = this.dy[last];
+            this.prevX[i] = this.prevX[last];
+            this.prevY[i] = this.prevY[last];
+        }
+    }
+
+    /**
+     * Takes every ball out of play
+     */
+    public void clear() {
+        this.count = 0;
+    }
+
+    /**
+     * Remembers the current positions so rendering can interpolate from them
+     */
+    public void snapshot() {
+        System.arraycopy(this.x, 0, this.prevX, 0, this.count);
+        System.arraycopy(this.y, 0, this.prevY, 0, this.count);
+    }
+
+    /**
+     * Enlarges the arrays, keeping the balls in play
+     * @param capacity the new capacity
+     */
+    private void grow(int capacity) {
+        this.x = Arrays.copyOf(this.x, capacity);
+        this.y = Arrays.copyOf(this.y, capacity);
+        this.dx = Arrays.copyOf(this.dx, capacity);
+        this.dy = Arrays.copyOf(this.dy, capacity);
+        this.prevX = Arrays.copyOf(this.prevX, capacity);
+        this.prevY = Arrays.copyOf(this.prevY, capacity);
+    }
+
+    /**
+     * Moves a ball
+     * @param i the ball's index
+     * @param x the center x coordinate
+     * @param y the center y coordinate
+     */
+    public void setPosition(int i, double x, double y) {
+        this.x[i] = x;
+        this.y[i] = y;
+    }
+
+    /**
+     * Changes a ball's speed
+     * @param i the ball's index
+     * @param dx the horizontal speed
+     * @param dy the vertical speed
+     */
+    public void setVelocity(int i, double dx, double dy) {
+        this.dx[i] = dx;
+        this.dy[i] = dy;
+    }
+
+    /**
+     * Gets the number of balls in play
+     * @return the ball count
+     */
+    public int getCount() {
+        return this.count;
+    }
+
+    /**
+     * Gets the number of balls that fit before the arrays grow
+     * @return the capacity
+     */
+    public int getCapacity() {
+        return this.x.length;
+    }
+
+    /**
+     * Gets a ball's center x coordinate
+     * @param i the ball's index
+     * @return the center x coordinate
+     */
+    public double getX(int i) {
+        return this.x[i];
+    }
+
+    /**
+     * Gets a ball's center y coordinate
+     * @param i the ball's index
+     * @return the center y coordinate
+     */
+    public double getY(int i) {
+        return this.y[i];
+    }
+
+    /**
+     * Gets a ball's horizontal speed
+     * @param i the ball's index
+     * @return the horizontal speed
+     */
+    public double getDX(int i) {
+        return this.dx[i];
+    }
+
+    /**
+     * Gets a ball's vertical speed
+     * @param i the ball's index
+     * @return the vertical speed
+     */
+    public double getDY(int i) {
+        return this.dy[i];
+    }
+
+    /**
+     * Gets a ball's center x coordinate between the last two ticks
+     * @param i the ball's index
+     * @param alpha the fraction of a tick past the snapshot
+     * @return the interpolated x coordinate
+     */
+    public double getX(int i, double alpha) {
+        return this.prevX[i] + (this.x[i] - this.prevX[i]) * alpha;
+    }
+
+    /**
+     * Gets a ball's center y coordinate between the last two ticks
+     * @param i the ball's index
+     * @param alpha the fraction of a tick past the snapshot
+     * @return the interpolated y coordinate
+     */
+    public double getY(int i, double alpha) {
+        return this.prevY[i] + (this.y[i] - this.prevY[i]) * alpha;
+    }
+
+}
@@ -0,0 +1,276 @@
+package application;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * A BatchSimulator class that plays many complete games headless across all cores to tune the game's speeds
+ *
+ * Each game gets its own World, BrickField and paddle controller and follows BrickBreaker's rules: a level
+ * starts at the initial speed or level + ramp, a lost life resets the player at that speed, and the game ends
+ * when the lives or levels run out.
+ */
+public class BatchSimulator {
+
+    private static final int GAMES_PER_TASK = 32;
+
+    // the board, ball and paddle of brickbreaker.fxml
+    private static final double WIDTH = 640, HEIGHT = 560;
+    private static final double BALL_X = 319, BALL_Y = 522, BALL_RADIUS = 8;
+    private static final double PADDLE_X = 260, PADDLE_Y = 530, PADDLE_WIDTH = 120, PADDLE_HEIGHT = 15;
+
+    private int games = 1000;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private long seed = 1;
+    private LevelPack pack;
+    private int levelCount = 5;
+    private int maxLives = 5;
+    private double initialSpeed = 4;
+    private double paddleSpeed = 37d/3d;
+    private double ramp = 3;
+    private int tickRate = 60;
+    private double skill = 0.65;
+    private boolean autopilot;
+    private long maxTicks = 60L * 60 * 60;
+
+    /**
+     * The totals of a group of games, kept per task and merged at the end
+     */
+    private static final class Totals {
+        long games, won, timedOut, ticks, livesLost;
+        long[] reached, cleared, clearTicks, levelLivesLost;
+
+        Totals(int levels) {
+            this.reached = new long[levels];
+            this.cleared = new long[levels];
+            this.clearTicks = new long[levels];
+            this.levelLivesLost = new long[levels];
+        }
+
+        void add(Totals o) {
+            this.games += o.games;
+            this.won += o.won;
+            this.timedOut += o.timedOut;
+            this.ticks += o.ticks;
+            this.livesLost += o.livesLost;
+            for(int l = 0; l < this.reached.length; l++) {
+                this.reached[l] += o.reached[l];
+                this.cleared[l] += o.cleared[l];
+                this.clearTicks[l] += o.clearTicks[l];
+                this.levelLivesLost[l] += o.levelLivesLost[l];
+            }
+        }
+    }
+
+    /**
+     * One game in progress, reacting to the world's win and loss events as BrickBreaker does
+     */
+    private final class Session {
+        final World world;
+        final BrickField field = new BrickField(0);
+        final LevelLayout classic;
+        final Totals totals;
+        int level = 1;
+        int lives = BatchSimulator.this.maxLives;
+        long levelStart;
+        long tick;
+        boolean over;
+
+        Session(long seed, LevelLayout classic, Totals totals) {
+            this.classic = classic;
+            this.totals = totals;
+            this.world = new World(WIDTH, HEIGHT, this.field);
+            this.world.setSeed(seed);
+            this.world.setBallHome(BALL_X, BALL_Y, BALL_RADIUS);
+            this.world.setPaddleHome(PADDLE_X, PADDLE_Y, PADDLE_WIDTH, PADDLE_HEIGHT);
+            this.world.setPaddleStep(perTick(BatchSimulator.this.paddleSpeed));
+            this.world.getEvents().addLifeLostListener(event -> loseLife());
+            this.world.getEvents().addLevelClearedListener(event -> levelUp());
+            loadLevel();
+            this.world.resetPlayer(perTick(BatchSimulator.this.initialSpeed));
+        }
+
+        void loadLevel() {
+            LevelLayout layout = BatchSimulator.this.pack != null
+                    ? BatchSimulator.this.pack.getLevel(this.level - 1) : this.classic;
+            layout.applyTo(this.field, 1, 1);
+            this.totals.reached[this.level - 1]++;
+            this.levelStart = this.tick;
+        }
+
+        void loseLife() {
+            this.lives--;
+            this.totals.livesLost++;
+            this.totals.levelLivesLost[this.level - 1]++;
+            if(this.lives > 0) {
+                this.world.resetPlayer(perTick(this.level + BatchSimulator.this.ramp));
+            }
+            else {
+                this.over = true;
+            }
+        }
+
+        void levelUp() {
+            this.totals.cleared[this.level - 1]++;
+            this.totals.clearTicks[this.level - 1] += this.tick - this.levelStart;
+            this.level++;
+            if(this.level > BatchSimulator.this.levelCount) {
+                this.totals.won++;
+                this.over = true;
+            }
+            else {
+                loadLevel();
+                this.world.resetPlayer(perTick(this.level + BatchSimulator.this.ramp));
+            }
+        }
+    }
+
+    /**
+     * Plays one game to the end or to the tick limit
+     * @param seed the game's seed
+     * @param classic the board used when there is no level pack
+     * @param totals the totals the game adds to
+     */
+    private void play(long seed, LevelLayout classic, Totals totals) {
+        Session game = new Session(seed, classic, totals);
+        PaddleController controller = this.autopilot ? new Autopilot() : new BallFollower(this.skill, ~seed);
+
+        while(!game.over && game.tick < this.maxTicks) {
+            game.tick++;
+            game.world.step(controller.input(game.world) | World.LAUNCHED);
+        }
+        totals.games++;
+        totals.ticks += game.tick;
+        if(!game.over) {
+            totals.timedOut++;
+        }
+    }
+
+    /**
+     * Plays every game on a pool of worker threads
+     * @return the merged totals
+     * @throws InterruptedException if interrupted while waiting for the workers
+     * @throws ExecutionException if a game failed
+     */
+    private Totals run() throws InterruptedException, ExecutionException {
+        final LevelLayout classic = classicBoard();
+        ExecutorService pool = Executors.newFixedThreadPool(this.threads);
+        try {
+            List<Future<Totals>> tasks = new ArrayList<Future<Totals>>();
+            for(int first = 0; first < this.games; first += GAMES_PER_TASK) {
+                final int from = first, to = Math.min(this.games, first + GAMES_PER_TASK);
+                tasks.add(pool.submit(() -> {
+                    Totals totals = new Totals(this.levelCount);
+                    for(int g = from; g < to; g++) {
+                        play(this.seed + g, classic, totals);
+                    }
+                    return totals;
+                }));
+            }
+
+            Totals all = new Totals(this.levelCount);
+            for(Future<Totals> task : tasks) {
+                all.add(task.get());
+            }
+            return all;
+        }
+        finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Builds the 4x6 board of brickbreaker.fxml
+     * @return the board
+     */
+    private static LevelLayout classicBoard() {
+        byte[] hitPoints = new byte[24];
+        Arrays.fill(hitPoints, (byte)BrickField.MAX_DAMAGE);
+        return new LevelLayout(6, 4, 0, 50, WIDTH / 6, 225d / 4, 4, hitPoints);
+    }
+
+    /**
+     * Converts a speed tuned for 60 ticks per second to the simulated tick rate
+     * @param speed the speed in pixels per 60 Hz tick
+     * @return the speed in pixels per tick
+     */
+    private double perTick(double speed) {
+        return speed * 60 / this.tickRate;
+    }
+
+    /**
+     * Prints the totals as a summary and a per-level table
+     * @param t the totals
+     * @param seconds the wall time the batch took
+     */
+    private void report(Totals t, double seconds) {
+        System.out.printf("%d games on %d threads in %.2f s: %.0f games/s, %.1f M ticks/s%n",
+                t.games, this.threads, seconds, t.games / seconds, t.ticks / seconds / 1e6);
+        System.out.printf("won %.1f%%, timed out %d, lives lost %.2f per game, %.0f ticks (%.0f s) per game%n",
+                100d * t.won / t.games, t.timedOut, (double)t.livesLost / t.games,
+                (double)t.ticks / t.games, (double)t.ticks / t.games / this.tickRate);
+        System.out.println("level  reached  cleared  clear%  ticks/clear  lives lost/attempt");
+        for(int l = 0; l < this.levelCount; l++) {
+            System.out.printf("%5d  %7d  %7d  %5.1f%%  %11.0f  %18.2f%n", l + 1, t.reached[l], t.cleared[l],
+                    t.reached[l] == 0 ? 0 : 100d * t.cleared[l] / t.reached[l],
+                    t.cleared[l] == 0 ? 0 : (double)t.clearTicks[l] / t.cleared[l],
+                    t.reached[l] == 0 ? 0 : (double)t.levelLivesLost[l] / t.reached[l]);
+        }
+    }
+
+    /**
+     * Runs a batch from the command line
+     * @param args options such as --games 10000 --threads 8 --skill 0.8 --initial-speed 4 --paddle-speed 12.3
+     *             --ramp 3 --lives 5 --tick-rate 60 --seed 1 --max-ticks 216000 --levels pack.bbl --autopilot
+     * @throws Exception if the level pack cannot be read or a game fails
+     */
+    public static void main(String[] args) throws Exception {
+        BatchSimulator sim = new BatchSimulator();
+        for(int i = 0; i < args.length; i += 2) {
+            if(args[i].equals("--autopilot")) {
+                sim.autopilot = true;
+                i--;
+                continue;
+            }
+            final String value = i + 1 < args.length ? args[i + 1] : "";
+            switch(args[i]) {
+                case "--games": sim.games = Integer.parseInt(value); break;
+                case "--threads": sim.threads = Integer.parseInt(value); break;
+                case "--seed": sim.seed = Long.parseLong(value); break;
+                case "--skill": sim.skill = Double.parseDouble(value); break;
+                case "--initial-speed": sim.initialSpeed = Double.parseDouble(value); break;
+                case "--paddle-speed": sim.paddleSpeed = Double.parseDouble(value); break;
+                case "--ramp": sim.ramp = Double.parseDouble(value); break;
+                case "--lives": sim.maxLives = Integer.parseInt(value); break;
+                case "--tick-rate": sim.tickRate = Integer.parseInt(value); break;
+                case "--max-ticks": sim.maxTicks = Long.parseLong(value); break;
+                case "--levels": sim.openPack(value); break;
+                default:
+                    System.out.println("unknown option " + args[i]);
+                    return;
+            }
+        }
+
+        final long start = System.nanoTime();
+        Totals totals = sim.run();
+        sim.report(totals, (System.nanoTime() - start) / 1e9);
+    }
+
+    /**
+     * Plays the levels of a pack instead of the classic board
+     * @param file the pack file
+     * @throws IOException if the pack cannot be read
+     */
+    private void openPack(String file) throws IOException {
+        this.pack = LevelPack.open(Paths.get(file));
+        this.levelCount = this.pack.getLevelCount();
+    }
+
+}
@@ -0,0 +1,57 @@
+package application;
+
+/**
+ * A BoxKernel interface for finding which of many boxes, stored as flat arrays of edges, overlap a query box
+ *
+ * Boxes are reported from the highest index down, the same order the bricks were scanned in before the grid,
+ * so callers that keep the first of equal hits still favor the highest index.
+ */
+public interface BoxKernel {
+
+    /**
+     * Finds the highest standing box below an index that overlaps the query box, edges touching included
+     * @param minX the boxes' left edges
+     * @param minY the boxes' top edges
+     * @param maxX the boxes' right edges
+     * @param maxY the boxes' bottom edges
+     * @param alive a bitset of the boxes still standing
+     * @param end the index to search below
+     * @param boxMinX the query box's left edge
+     * @param boxMinY the query box's top edge
+     * @param boxMaxX the query box's right edge
+     * @param boxMaxY the query box's bottom edge
+     * @return the box's index, or -1 if none overlaps
+     */
+    int lastOverlap(double[] minX, double[] minY, double[] maxX, double[] maxY, long[] alive, int end,
+            double boxMinX, double boxMinY, double boxMaxX, double boxMaxY);
+
+    /**
+     * Gets the vector kernel if it was built and the JVM has the Vector API, or the scalar kernel otherwise.
+     * -Dbrickbreaker.simd=false forces the scalar kernel
+     * @return the kernel
+     */
+    static BoxKernel best() {
+        if(!"false".equals(System.getProperty("brickbreaker.simd"))) {
+            BoxKernel vector = vector();
+            if(vector != null) {
+                return vector;
+            }
+        }
+        return new ScalarBoxKernel();
+    }
+
+    /**
+     * Loads the vector kernel, which is only compiled by the vector profile and needs
+     * --add-modules jdk.incubator.vector at run time
+     * @return the kernel, or null if it is not available
+     */
+    static BoxKernel vector() {
+        try {
+            return (BoxKernel)Class.forName("application.VectorBoxKernel").getDeclaredConstructor().newInstance();
+        }
+        catch(ReflectiveOperationException | LinkageError e) {
+            return null;
+        }
+    }
+
+}
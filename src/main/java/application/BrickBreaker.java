@@ -1,15 +1,17 @@
 
 package application;
 
-import javafx.concurrent.Task;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import javafx.scene.input.KeyCode;
-import javafx.scene.input.KeyEvent;
 import javafx.scene.control.Label;
 import javafx.scene.Group;
 import javafx.scene.shape.Rectangle;
 import javafx.scene.shape.Circle;
 import javafx.scene.layout.GridPane;
 import javafx.stage.Stage;
+import javafx.util.Duration;
 import javafx.scene.Scene;
 
 /**
@@ -18,16 +20,35 @@ import javafx.scene.Scene;
 public class BrickBreaker extends Game {
     
     private boolean gameStarted, ballLaunched = false;
-    final private int levelCount = 5;
+    private int levelCount = CLASSIC_LEVELS;
     final private int maxLives = 5;
     final private double initialSpeed = 4;
     final private double paddleSpeed = 37d/3d;
+    final private double speedScale;
+    
+    private static final double INTERSTITIAL_MILLIS = 2000;
+    // the levels played on the board laid out in brickbreaker.fxml
+    private static final int CLASSIC_LEVELS = 5;
     
     private int level = 1;
     private int livesRemaining = maxLives;
+    private int lastDirection;
     
     private Group[] groups;
     private Label levelInd, livesInd, levelIndIn, livesIndIn;
+    private EventLog log;
+    private TransitionTimer transitions = new TransitionTimer();
+    private LevelLoader levels;
+    private ReplayRecorder recorder;
+    private Autopilot autopilot;
+    private boolean attract;
+    private ScoreSubmitter submitter;
+    private long gameNumber;
+    private long gameStart;
+    private boolean assisted;
+    private Path replayFile;
+    private long seed;
+    private World world;
     private Bricks bricks;
     private Paddle paddle;
     private Ball ball;
@@ -40,7 +61,26 @@ public class BrickBreaker extends Game {
      * @param rootNode the root node.
      */
     public BrickBreaker(Stage stage, Scene scene) {
-        super(stage, scene, "Brick-Breaker", 60);
+        this(stage, scene, 60);
+    }
+    
+    /**
+     * Creates a new game for BrickBreaker that simulates at the given tick rate.
+     * 
+     * @param stage the stage.
+     * @param rootNode the root node.
+     * @param tickRate the simulation ticks per second.
+     */
+    public BrickBreaker(Stage stage, Scene scene, int tickRate) {
+        super(stage, scene, "Brick-Breaker", tickRate);
+        
+        // speeds are tuned in pixels per 60 Hz tick
+        this.speedScale = 60d / tickRate;
+        
+        String statsFile = System.getProperty("brickbreaker.stats");
+        if(statsFile != null) {
+            setStatsFile(Paths.get(statsFile));
+        }
         
         this.groups = new Group[5];
         this.groups[0] = (Group)scene.lookup("#titleGroup");
@@ -54,35 +94,107 @@ public class BrickBreaker extends Game {
         this.levelIndIn = (Label)scene.lookup("#levelIn");
         this.livesIndIn = (Label)scene.lookup("#livesIn");
         
-        this.bricks = new Bricks((GridPane)scene.lookup("#bricks"));
-        this.paddle = new Paddle((Rectangle)scene.lookup("#paddle"));
-        this.ball = new Ball((Circle)scene.lookup("#ball"), this.bricks, this.paddle);
+        GridPane brickGrid = (GridPane)scene.lookup("#bricks");
+        this.log = EventLog.getDefault();
+        this.world = new World(0, 0, new BrickField(brickGrid.getChildren().size()));
+        this.world.getBricks().setEventLog(this.log);
         
-        this.bricks.addWinListener(this::levelUp);
-        this.ball.addLossListener(this::loseLife);
+        // every random choice comes from this seed, so a recorded game replays exactly
+        String seedValue = System.getProperty("brickbreaker.seed");
+        this.seed = seedValue != null ? Long.parseLong(seedValue) : System.nanoTime();
+        this.world.setSeed(this.seed);
+        this.world.setPaddleStep(perTick(this.paddleSpeed));
+        String replay = System.getProperty("brickbreaker.record");
+        if(replay != null) {
+            this.replayFile = Paths.get(replay);
+        }
+        this.bricks = new Bricks(brickGrid, this.world.getBricks());
+        this.submitter = ScoreSubmitter.getDefault();
         
-        scene.addEventHandler(KeyEvent.KEY_PRESSED, this::toggleGameState);
+        // attract mode lets the autopilot play game after game from the title screen
+        if(Boolean.getBoolean("brickbreaker.autopilot")) {
+            this.autopilot = new Autopilot();
+            this.attract = true;
+        }
+        
+        LevelPack pack = null;
+        String levelFile = System.getProperty("brickbreaker.levels");
+        if(levelFile != null) {
+            try {
+                pack = LevelPack.open(Paths.get(levelFile));
+                this.levelCount = pack.getLevelCount();
+            }
+            catch(IOException | IllegalArgumentException e) {
+                System.out.println(e);
+            }
+        }
+        if(pack != null || "canvas".equals(System.getProperty("brickbreaker.renderer"))) {
+            // until the atlas is loaded the classic board is drawn with its nodes, so the FX thread never waits on it
+            this.bricks.useCanvasWhenLoaded(SceneCache.getDefault().getBrickAtlas());
+        }
+        if(pack != null) {
+            BrickField spare = new BrickField(0);
+            spare.setEventLog(this.log);
+            this.levels = new LevelLoader(pack, spare, this.bricks.getPaletteRows(), this.bricks.getPaletteColumns());
+            this.levels.prepare(0);
+            publishLevel(0);
+        }
+        this.paddle = new Paddle((Rectangle)scene.lookup("#paddle"), this.world);
+        this.ball = new Ball((Circle)scene.lookup("#ball"), this.world, perTick(this.initialSpeed));
+        
+        // both run after the tick that caused them, never while the balls are still moving
+        this.world.getEvents().addLevelClearedListener(event -> levelUp());
+        this.world.getEvents().addLifeLostListener(event -> loseLife());
         
     }
 
     // An overridden method from the Game class that updates the controls 
     @Override
     public void update(Game game) {
-        if(this.gameStarted) {
-            Boolean moved;
-            if(game.getKeyPressed() == KeyCode.LEFT) {
-                moved = this.paddle.animate(-paddleSpeed);
-                if(!this.ballLaunched && moved) this.ball.setTranslateX(this.ball.getTranslateX() - paddleSpeed);
-            }
-            if(game.getKeyPressed() == KeyCode.RIGHT) {
-                moved = this.paddle.animate(paddleSpeed);
-                if(!this.ballLaunched && moved) this.ball.setTranslateX(this.ball.getTranslateX() + paddleSpeed);
+        if(!this.gameStarted) {
+            this.world.snapshot();
+            if(this.attract && isGroupVisible(0) && !this.transitions.isPending()) {
+                startGame();
             }
-            
-            if(this.ballLaunched) {
-                this.ball.animate();
+            return;
+        }
+        
+        if(this.autopilot != null) {
+            if(!this.ballLaunched && !isGroupVisible(2)) {
+                this.ballLaunched = true;
             }
+            final int input = this.autopilot.input(this.world);
+            this.recorder.step(this.world, this.ballLaunched ? input | World.LAUNCHED : input);
+            return;
+        }
+        
+        final boolean left = game.isKeyDown(KeyCode.LEFT), right = game.isKeyDown(KeyCode.RIGHT);
+        // with both arrows held the one pressed last wins, and releasing it goes back to the other
+        final int direction = left && right ? this.lastDirection : left ? -1 : right ? 1 : 0;
+        
+        int input = direction < 0 ? World.LEFT : direction > 0 ? World.RIGHT : 0;
+        if(this.ballLaunched) {
+            input |= World.LAUNCHED;
         }
+        this.recorder.step(this.world, input);
+    }
+    
+    // An overridden method from the Game class that copies the world state onto the scene graph
+    @Override
+    public void render(double alpha) {
+        this.paddle.render(alpha);
+        this.ball.render(alpha);
+        this.bricks.render();
+    }
+    
+    /**
+     * Converts a speed tuned for 60 ticks per second to the current tick rate
+     *
+     * @param speed the speed in pixels per 60 Hz tick
+     * @return the speed in pixels per tick
+     */
+    private double perTick(double speed) {
+        return speed * this.speedScale;
     }
     
     /** 
@@ -142,20 +254,25 @@ public class BrickBreaker extends Game {
      * @param second the second screen.
      */
     private void showInterstitial(int first, int second) {
+        showInterstitial(first, second, null);
+    }
+    
+    /**
+     * Shows two screen before switching to another one, then runs an action
+     * 
+     * @param first the first screen
+     * @param second the second screen.
+     * @param done the action run once the second screen is shown, or null
+     */
+    private void showInterstitial(int first, int second, Runnable done) {
         switchToGroup(first);
         
-        Task<Void> sleeper = new Task<Void>() {
-            @Override
-            protected Void call() throws Exception {
-                try {
-                    Thread.sleep(2000);
-                } 
-                catch (InterruptedException e) {}
-                return null;
+        this.transitions.schedule(Duration.millis(INTERSTITIAL_MILLIS), () -> {
+            switchToGroup(second);
+            if(done != null) {
+                done.run();
             }
-        };
-        sleeper.setOnSucceeded(e -> switchToGroup(second));
-        new Thread(sleeper).start();
+        });
     }
     
     /**
@@ -166,29 +283,93 @@ public class BrickBreaker extends Game {
     private void resetPlayer(double startingSpeed) {
         this.ballLaunched = false;
         
-        this.paddle.setTranslateX(0);
-        this.ball.setStartingSpeed(startingSpeed);
-        this.ball.setTranslateX(0);
-        this.ball.setTranslateY(0);
+        this.world.resetPlayer(perTick(startingSpeed));
     }
     
     /**
-     * Resets the level
+     * Resets the level, loading the current level's board when playing a level pack
      *
      * @param startingSpeed the starting speed of the ball object
      */    
     private void resetLevel(double startingSpeed) {
-        this.bricks.reset();
+        if(this.levels != null) {
+            this.levels.prepare(this.level - 1);
+            publishLevel(this.level - 1);
+        }
+        else {
+            this.bricks.reset();
+        }
         resetPlayer(startingSpeed);
     }
     
+    /**
+     * Swaps a level prepared by the level loader into play
+     *
+     * @param n the level, counting from 0
+     */
+    private void publishLevel(int n) {
+        final BrickField next;
+        try {
+            next = this.levels.take(n, this.world.getBricks());
+        }
+        catch(IllegalArgumentException e) {
+            System.out.println(e);
+            if(this.gameStarted) {
+                // the level cannot be played, so the game ends there as if it had been quit
+                stopGame();
+            }
+            else {
+                // the first level is only ever built before a game, so the pack is unusable: play the classic board
+                this.levels.close();
+                this.levels = null;
+                this.levelCount = CLASSIC_LEVELS;
+            }
+            return;
+        }
+        if(next != null) {
+            this.world.setBricks(next);
+            this.bricks.setField(next);
+        }
+    }
+    
     /**
      * Starts a new game
      */
     private void startGame() {
         showInterstitial(2, 1);
         
+        this.recorder = new ReplayRecorder(this.seed, getTickRate());
         this.gameStarted = true;
+        this.gameNumber++;
+        this.gameStart = System.nanoTime();
+        this.assisted = this.autopilot != null;
+    }
+    
+    /**
+     * Queues where the game stands for the leaderboard, unless the autopilot played any of it
+     *
+     * @param kind what happened
+     */
+    private void submitResult(GameResult.Kind kind) {
+        if(!this.assisted) {
+            this.submitter.submit(new GameResult(this.gameNumber, kind, this.level, this.livesRemaining,
+                    (System.nanoTime() - this.gameStart) / 1000000, this.seed, System.currentTimeMillis()));
+        }
+    }
+    
+    /**
+     * Ends the recording of the game, writing it out if a replay file was asked for
+     */
+    private void finishRecording() {
+        this.recorder.finish(this.world);
+        if(this.replayFile != null) {
+            try {
+                this.recorder.writeTo(this.world, this.replayFile);
+            }
+            catch(IOException e) {
+                System.out.println(e);
+            }
+        }
     }
     
     /**
@@ -197,17 +378,23 @@ public class BrickBreaker extends Game {
     private void stopGame() {
         if(this.gameStarted) {
             this.gameStarted = false;
+            finishRecording();
+            submitResult(GameResult.Kind.GAME_OVER);
             
             if(isGroupVisible(1)) {
                 switchToGroup(0);
             }
             
-            resetLevel(this.initialSpeed);
-            setLives(this.maxLives);
             setLevel(1);
+            setLives(this.maxLives);
+            resetLevel(this.initialSpeed);
         }
         else {
             stop();
+            this.transitions.cancel();
+            if(this.levels != null) {
+                this.levels.close();
+            }
             this.stage.close();
         }
     }
@@ -218,18 +405,27 @@ public class BrickBreaker extends Game {
     private void levelUp() {
         if(this.gameStarted) {
             setLevel(this.level + 1);
+            this.log.log(EventLog.Level.INFO, EventLog.Event.LEVEL_UP, this.level);
+            submitResult(GameResult.Kind.LEVEL_UP);
             
             if(this.level == this.levelCount + 1) {
                 showInterstitial(3, 0);
                 stopGame();
             }
+            else if(this.levels != null) {
+                // build the next board while the interstitial is up and swap it in as it ends
+                final int next = this.level - 1;
+                this.levels.prepare(next);
+                showInterstitial(2, 1, () -> publishLevel(next));
+                resetPlayer(this.level + 3);
+            }
             else {
                 showInterstitial(2, 1);
                 resetLevel(this.level + 3);
             }
         }
         else {
-            System.out.println("Invalid levelUp() event issued");
+            this.log.log(EventLog.Level.WARN, EventLog.Event.INVALID_LEVEL_UP, 0);
         }
     }
     
@@ -239,6 +435,8 @@ public class BrickBreaker extends Game {
     private void loseLife() {
         if(this.gameStarted) {
             setLives(this.livesRemaining - 1);
+            this.log.log(EventLog.Level.INFO, EventLog.Event.LIFE_LOST, this.livesRemaining);
+            submitResult(GameResult.Kind.LIFE_LOST);
 
             if(this.livesRemaining > 0) {
                 showInterstitial(2, 1);
@@ -250,19 +448,24 @@ public class BrickBreaker extends Game {
             }
         }
         else {
-            System.out.println("Invalid loseLife() event issued");
+            this.log.log(EventLog.Level.WARN, EventLog.Event.INVALID_LOSE_LIFE, 0);
         }
     }
     
     /**
      * Changes the game state of Brick-Bricker
      *
-     * @param KeyEvent the event.
+     * @param currentKey the key pressed.
      */
-    private void toggleGameState(KeyEvent e) {
-        KeyCode currentKey = e.getCode();
-        
+    @Override
+    protected void keyPressed(KeyCode currentKey) {
         switch(currentKey) {
+            case LEFT:
+                this.lastDirection = -1;
+                break;
+            case RIGHT:
+                this.lastDirection = 1;
+                break;
             case SPACE:
                 if(!this.gameStarted && !isGroupVisible(3)) {
                     startGame();
@@ -272,12 +475,19 @@ public class BrickBreaker extends Game {
                     this.ballLaunched = true;
                 }
                 break;
+            case A:
+                this.autopilot = this.autopilot == null ? new Autopilot() : null;
+                this.attract = false;
+                this.assisted |= this.autopilot != null;
+                break;
             case ESCAPE:
+                this.attract = false;
                 if(isGroupVisible(0) || isGroupVisible(1)) {
                     stopGame();
                 }
                 break;
-
+            default:
+                break;
         }
     }
 
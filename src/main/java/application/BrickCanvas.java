@@ -0,0 +1,155 @@
+package application;
+
+import java.util.List;
+import javafx.geometry.Rectangle2D;
+import javafx.scene.Node;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.Image;
+import javafx.scene.layout.Background;
+import javafx.scene.layout.GridPane;
+import javafx.scene.layout.Pane;
+import javafx.scene.layout.Region;
+import javafx.scene.paint.Color;
+import javafx.scene.paint.Paint;
+
+/**
+ * A BrickCanvas class that draws the whole brick field onto one Canvas, redrawing only the bricks that changed
+ */
+public class BrickCanvas {
+
+    public static final String DAMAGE_SPRITE = "/damage-sprite.png";
+
+    // frame offsets in damage-sprite.png that match the .brick:damage-N background positions
+    private static final double[] FRAME_Y = {0, 103};
+    private static final double FRAME_HEIGHT = 52;
+
+    private final Canvas canvas;
+    private final GraphicsContext g;
+    private final GridPane grid;
+    private final List<Node> nodes;
+    private BrickField field;
+    private final Image atlas;
+    private final Rectangle2D damage;
+
+    private Paint[] fills;
+    private double[] opacities;
+    private boolean fullRedraw = true;
+
+    /**
+     * Creates the canvas behind the paddle and ball, in place of the brick grid
+     * @param grid the brick grid whose styles and layout the canvas copies
+     * @param field the brick state
+     * @param atlas the atlas holding the damage sprite
+     */
+    public BrickCanvas(GridPane grid, BrickField field, SpriteAtlas atlas) {
+        this.grid = grid;
+        this.nodes = grid.getChildren();
+        this.field = field;
+        this.atlas = atlas.getImage();
+        this.damage = atlas.getRegion(DAMAGE_SPRITE);
+
+        Pane parent = (Pane)grid.getParent();
+        this.canvas = new Canvas(parent.getPrefWidth(), parent.getPrefHeight());
+        this.canvas.setMouseTransparent(true);
+        this.canvas.widthProperty().bind(parent.widthProperty());
+        this.canvas.heightProperty().bind(parent.heightProperty());
+        this.canvas.widthProperty().addListener((obs, old, w) -> invalidate());
+        this.canvas.heightProperty().addListener((obs, old, h) -> invalidate());
+        this.g = this.canvas.getGraphicsContext2D();
+
+        parent.getChildren().add(parent.getChildren().indexOf(grid) + 1, this.canvas);
+    }
+
+    /**
+     * Draws a different brick field from the next render on
+     * @param field the brick state
+     */
+    public void setField(BrickField field) {
+        this.field = field;
+        invalidate();
+    }
+
+    /**
+     * Forces the next render to redraw every brick, such as after a layout change
+     */
+    public void invalidate() {
+        this.fullRedraw = true;
+    }
+
+    /**
+     * Draws the bricks that changed since the last render, or all of them after an invalidate
+     */
+    public void render() {
+        if(this.fullRedraw) {
+            if(this.fills == null) {
+                // styles are only known once the grid has been through a CSS and layout pass
+                if(this.grid.getWidth() == 0) {
+                    return;
+                }
+                captureStyles();
+            }
+
+            this.g.clearRect(0, 0, this.canvas.getWidth(), this.canvas.getHeight());
+            for(int i = 0; i < this.field.getCount(); i++) {
+                if(this.field.isAlive(i)) {
+                    draw(i);
+                }
+            }
+            this.fullRedraw = false;
+        }
+        else {
+            final int changed = this.field.getDirtyCount();
+            for(int k = 0; k < changed; k++) {
+                final int i = this.field.getDirty(k);
+                this.g.clearRect(this.field.getMinX(i), this.field.getMinY(i),
+                        this.field.getMaxX(i) - this.field.getMinX(i), this.field.getMaxY(i) - this.field.getMinY(i));
+                if(this.field.isAlive(i)) {
+                    draw(i);
+                }
+            }
+        }
+        this.field.clearDirty();
+    }
+
+    /**
+     * Draws one brick with its damage frame
+     * @param i the brick index
+     */
+    private void draw(int i) {
+        final double x = this.field.getMinX(i), y = this.field.getMinY(i);
+        final double w = this.field.getMaxX(i) - x, h = this.field.getMaxY(i) - y;
+
+        final int style = this.field.getStyle(i) % this.fills.length;
+        this.g.setGlobalAlpha(this.opacities[style]);
+        this.g.setFill(this.fills[style]);
+        this.g.fillRect(x, y, w, h);
+
+        final int stage = Bricks.damageStage(this.field.getDamage(i), this.field.getHitPoints(i));
+        if(stage > 0) {
+            this.g.drawImage(this.atlas, this.damage.getMinX(), this.damage.getMinY() + FRAME_Y[stage - 1],
+                    this.damage.getWidth(), FRAME_HEIGHT, x, y, w, h);
+        }
+        this.g.setGlobalAlpha(1);
+    }
+
+    /**
+     * Copies each grid node's CSS fill and opacity into the palette, then hides the grid so it is no longer drawn
+     */
+    private void captureStyles() {
+        final int count = Math.max(1, this.nodes.size());
+        this.fills = new Paint[count];
+        this.opacities = new double[count];
+
+        for(int i = 0; i < count; i++) {
+            Node node = i < this.nodes.size() ? this.nodes.get(i) : null;
+            Background background = node instanceof Region ? ((Region)node).getBackground() : null;
+
+            this.fills[i] = background != null && !background.getFills().isEmpty()
+                    ? background.getFills().get(0).getFill() : Color.GRAY;
+            this.opacities[i] = node != null ? node.getOpacity() : 1;
+        }
+        this.grid.setVisible(false);
+    }
+
+}
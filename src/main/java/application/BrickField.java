@@ -0,0 +1,533 @@
+package application;
+
+/**
+ * A BrickField class that holds the brick rectangles and their damage as primitive arrays
+ *
+ * Each brick's state is packed into one int: damage in the low byte, hit points in the next byte and
+ * a flag marking it as changed since the last render. Standing bricks are kept in a bitset.
+ */
+public class BrickField {
+
+    public static final int MAX_DAMAGE = 3;
+
+    private static final int DAMAGE_MASK = 0xFF;
+    private static final int HP_SHIFT = 8;
+    private static final int HP_MASK = 0xFF << HP_SHIFT;
+    private static final int DIRTY = 1 << 16;
+
+    private int count;
+    private double[] minX;
+    private double[] minY;
+    private double[] maxX;
+    private double[] maxY;
+    private int[] state;
+    private int[] styles;
+    private long[] alive;
+    private int liveCount;
+
+    private int[] dirty;
+    private int dirtyCount;
+    private int version;
+    private int generation;
+
+    // up to this many bricks a kernel scan of every brick beats a grid query; BoxKernelBenchmark puts the crossing
+    // between 24 and 100 bricks, and above it the grid's few candidates always win, vector kernel or not
+    private static final int SCAN_LIMIT = 32;
+    private static final BoxKernel KERNEL = BoxKernel.best();
+
+    private final BrickGrid grid = new BrickGrid();
+    private boolean gridDirty = true;
+
+    private EventLog log;
+
+    /**
+     * Constructor of the BrickField class that allocates storage for the bricks
+     * @param count the number of bricks
+     */
+    public BrickField(int count) {
+        this.dirty = new int[0];
+        resize(count);
+    }
+
+    /**
+     * Replaces the bricks with a new set of full health bricks, reusing the storage when it is large enough
+     * @param count the number of bricks
+     */
+    public void resize(int count) {
+        this.version++;
+        clearDirty();
+        if(this.minX == null || this.minX.length < count) {
+            this.minX = new double[count];
+            this.minY = new double[count];
+            this.maxX = new double[count];
+            this.maxY = new double[count];
+            this.state = new int[count];
+            this.styles = new int[count];
+            this.alive = new long[(count + 63) >>> 6];
+            this.dirty = new int[count];
+        }
+        
+        this.count = count;
+        for(int i = 0; i < count; i++) {
+            this.minX[i] = this.minY[i] = this.maxX[i] = this.maxY[i] = 0;
+            this.state[i] = MAX_DAMAGE << HP_SHIFT;
+            this.styles[i] = i;
+        }
+        reset();
+        clearDirty();
+    }
+
+    /**
+     * Sets the log brick hits are recorded to
+     * @param log the event log, or null to record nothing
+     */
+    public void setEventLog(EventLog log) {
+        this.log = log;
+    }
+
+    /**
+     * Sets the rectangle of a brick
+     * @param i the brick index
+     * @param x the left edge
+     * @param y the top edge
+     * @param width the width
+     * @param height the height
+     */
+    public void setBounds(int i, double x, double y, double width, double height) {
+        this.version++;
+        this.minX[i] = x;
+        this.minY[i] = y;
+        this.maxX[i] = x + width;
+        this.maxY[i] = y + height;
+        this.gridDirty = true;
+    }
+
+    /**
+     * Rebuilds the collision grid if the bricks moved, so the work can be done before the field is played
+     */
+    public void buildIndex() {
+        if(this.gridDirty) {
+            this.grid.build(this);
+            this.gridDirty = false;
+        }
+    }
+
+    /**
+     * Finds the first standing brick a moving ball touches during a tick. Fields of up to SCAN_LIMIT bricks are
+     * scanned with the box kernel and larger ones go through the grid, so the kernel, vector or scalar, only ever
+     * runs on small fields
+     * @param x the ball's starting center x coordinate
+     * @param y the ball's starting center y coordinate
+     * @param vx the x distance the ball travels
+     * @param vy the y distance the ball travels
+     * @param radius the ball's radius
+     * @param hit receives the time of impact and side of the brick hit
+     * @return the index of the brick hit, or -1 for no hit
+     */
+    public int checkCollision(double x, double y, double vx, double vy, double radius, SweptCollision hit) {
+        if(this.count <= SCAN_LIMIT) {
+            return scanCollision(x, y, vx, vy, radius, hit, KERNEL);
+        }
+        return gridCollision(x, y, vx, vy, radius, hit);
+    }
+
+    /**
+     * Finds the first standing brick a moving ball touches by checking the bricks in the grid cells it crosses
+     * @param x the ball's starting center x coordinate
+     * @param y the ball's starting center y coordinate
+     * @param vx the x distance the ball travels
+     * @param vy the y distance the ball travels
+     * @param radius the ball's radius
+     * @param hit receives the time of impact and side of the brick hit
+     * @return the index of the brick hit, or -1 for no hit
+     */
+    public int gridCollision(double x, double y, double vx, double vy, double radius, SweptCollision hit) {
+        buildIndex();
+        
+        final double minX = Math.min(x, x + vx) - radius;
+        final double minY = Math.min(y, y + vy) - radius;
+        final double maxX = Math.max(x, x + vx) + radius;
+        final double maxY = Math.max(y, y + vy) + radius;
+        
+        // the earliest hit wins and ties go to the highest index, like the old reverse node scan
+        int brick = -1;
+        double time = Double.POSITIVE_INFINITY;
+        int side = 0;
+        final int candidates = this.grid.query(minX, minY, maxX, maxY);
+        for(int k = 0; k < candidates; k++) {
+            final int i = this.grid.getCandidate(k);
+            if(i == brick) {
+                continue;
+            }
+            
+            if(hit.circleVsBox(x, y, vx, vy, radius, this.minX[i], this.minY[i], this.maxX[i], this.maxY[i])) {
+                if(hit.getTime() < time || (hit.getTime() == time && i > brick)) {
+                    brick = i;
+                    time = hit.getTime();
+                    side = hit.getSide();
+                }
+            }
+        }
+        
+        hit.set(time, side);
+        return brick;
+    }
+
+    /**
+     * Finds the first standing brick a moving ball touches by testing the ball's swept box against every brick
+     * with a box kernel, instead of asking the grid
+     * @param x the ball's starting center x coordinate
+     * @param y the ball's starting center y coordinate
+     * @param vx the x distance the ball travels
+     * @param vy the y distance the ball travels
+     * @param radius the ball's radius
+     * @param hit receives the time of impact and side of the brick hit
+     * @param kernel the kernel to find overlapping bricks with
+     * @return the index of the brick hit, or -1 for no hit
+     */
+    public int scanCollision(double x, double y, double vx, double vy, double radius, SweptCollision hit,
+            BoxKernel kernel) {
+        final double minX = Math.min(x, x + vx) - radius;
+        final double minY = Math.min(y, y + vy) - radius;
+        final double maxX = Math.max(x, x + vx) + radius;
+        final double maxY = Math.max(y, y + vy) + radius;
+
+        // bricks come highest index first, so keeping the first of equal times matches checkCollision
+        int brick = -1;
+        double time = Double.POSITIVE_INFINITY;
+        int side = 0;
+        int i = this.count;
+        while((i = kernel.lastOverlap(this.minX, this.minY, this.maxX, this.maxY, this.alive, i,
+                minX, minY, maxX, maxY)) >= 0) {
+            if(hit.circleVsBox(x, y, vx, vy, radius, this.minX[i], this.minY[i], this.maxX[i], this.maxY[i])
+                    && hit.getTime() < time) {
+                brick = i;
+                time = hit.getTime();
+                side = hit.getSide();
+            }
+        }
+
+        hit.set(time, side);
+        return brick;
+    }
+
+    /**
+     * Gets the box kernel checkCollision scans small fields with
+     * @return the kernel
+     */
+    public static BoxKernel getKernel() {
+        return KERNEL;
+    }
+
+    /**
+     * Increments the damage level of a brick without telling anyone
+     * @param i the brick index
+     * @return true if the hit cleared the last brick
+     */
+    public boolean increaseDamage(int i) {
+        return increaseDamage(i, null);
+    }
+
+    /**
+     * Increments the damage level of a brick, queuing what happened to it until the end of the tick
+     * @param i the brick index
+     * @param events the bus the hit is posted to, or null to post nothing
+     * @return true if the hit cleared the last brick
+     */
+    public boolean increaseDamage(int i, GameEvents events) {
+        if(!isAlive(i)) {
+            return false;
+        }
+        
+        final int s = this.state[i] + 1;
+        final int damage = s & DAMAGE_MASK;
+        this.state[i] = s;
+        markDirty(i);
+        if(this.log != null) {
+            this.log.log(EventLog.Level.DEBUG, EventLog.Event.BRICK_DAMAGED, i, damage);
+        }
+        if(events != null) {
+            events.postBrickDamaged(i, damage);
+        }
+        
+        if(damage == (s & HP_MASK) >>> HP_SHIFT) {
+            this.alive[i >>> 6] &= ~(1L << i);
+            this.liveCount--;
+            this.generation++;
+            this.grid.remove(this, i);
+            if(this.log != null) {
+                this.log.log(EventLog.Level.INFO, EventLog.Event.BRICK_DESTROYED, i, getBricksCleared());
+            }
+            if(events != null) {
+                events.postBrickDestroyed(i, getBricksCleared());
+            }
+
+            if(isCleared()) {
+                if(events != null) {
+                    events.postLevelCleared(i);
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks to see if all bricks are cleared
+     * @return true for cleared bricks & vice versa
+     */
+    public boolean isCleared() {
+        return this.liveCount == 0;
+    }
+
+    /**
+     * Resets the bricks to full health without allocating
+     */
+    public void reset() {
+        this.version++;
+        for(int i = 0; i < this.count; i++) {
+            if((this.state[i] & DAMAGE_MASK) != 0) {
+                this.state[i] &= ~DAMAGE_MASK;
+                markDirty(i);
+            }
+        }
+        for(int w = 0; w < this.alive.length; w++) {
+            final int bits = Math.max(0, Math.min(64, this.count - (w << 6)));
+            this.alive[w] = bits == 64 ? -1L : (1L << bits) - 1;
+        }
+        this.liveCount = this.count;
+        this.generation++;
+        this.gridDirty = true;
+    }
+
+    /**
+     * Sets how many hits a brick takes to destroy
+     * @param i the brick index
+     * @param hitPoints the hit points, from 1 to 255
+     */
+    public void setHitPoints(int i, int hitPoints) {
+        this.version++;
+        this.state[i] = (this.state[i] & ~HP_MASK) | (hitPoints << HP_SHIFT);
+        markDirty(i);
+    }
+
+    /**
+     * Sets which palette entry a brick is drawn with
+     * @param i the brick index
+     * @param style the palette entry
+     */
+    public void setStyle(int i, int style) {
+        this.styles[i] = style;
+        markDirty(i);
+    }
+
+    /**
+     * Gets a counter that changes whenever the bricks are changed other than by a hit, so a recorder knows to save them
+     * @return the version
+     */
+    public int getVersion() {
+        return this.version;
+    }
+
+    /**
+     * Gets a counter that changes whenever a brick is destroyed or the standing bricks are otherwise replaced, so a
+     * path cast through the bricks knows when it may no longer hold
+     * @return the generation
+     */
+    public int getGeneration() {
+        return this.generation;
+    }
+
+    /**
+     * Writes every brick's rectangle, hit points and damage
+     * @param out the replay buffer
+     */
+    public void writeState(ReplayBuffer out) {
+        out.putVarLong(this.count);
+        for(int i = 0; i < this.count; i++) {
+            out.putDouble(this.minX[i]);
+            out.putDouble(this.minY[i]);
+            out.putDouble(this.maxX[i]);
+            out.putDouble(this.maxY[i]);
+            out.putVarLong(getHitPoints(i));
+            out.putVarLong(getDamage(i));
+        }
+    }
+
+    /**
+     * Restores what writeState wrote, resizing the field to match
+     * @param in the replay buffer
+     */
+    public void readState(ReplayBuffer in) {
+        resize(in.getVarInt());
+        for(int i = 0; i < this.count; i++) {
+            // edges are restored directly, since min plus width need not give back the same max
+            this.minX[i] = in.getDouble();
+            this.minY[i] = in.getDouble();
+            this.maxX[i] = in.getDouble();
+            this.maxY[i] = in.getDouble();
+            setHitPoints(i, in.getVarInt());
+            
+            final int damage = in.getVarInt();
+            this.state[i] = (this.state[i] & ~DAMAGE_MASK) | damage;
+            if(damage >= getHitPoints(i)) {
+                this.alive[i >>> 6] &= ~(1L << i);
+                this.liveCount--;
+            }
+        }
+        this.generation++;
+        this.gridDirty = true;
+    }
+
+    /**
+     * Folds every brick's rectangle and damage into a state hash
+     * @param hash the hash so far
+     * @return the new hash
+     */
+    public long hash(long hash) {
+        hash = ReplayBuffer.hash(hash, (long)this.count);
+        for(int i = 0; i < this.count; i++) {
+            hash = ReplayBuffer.hash(hash, this.minX[i]);
+            hash = ReplayBuffer.hash(hash, this.minY[i]);
+            hash = ReplayBuffer.hash(hash, this.maxX[i]);
+            hash = ReplayBuffer.hash(hash, this.maxY[i]);
+            hash = ReplayBuffer.hash(hash, (long)(this.state[i] & (DAMAGE_MASK | HP_MASK)));
+        }
+        return hash;
+    }
+
+    /**
+     * Adds a brick to the changed list unless it is already on it
+     * @param i the brick index
+     */
+    private void markDirty(int i) {
+        if((this.state[i] & DIRTY) == 0) {
+            this.state[i] |= DIRTY;
+            this.dirty[this.dirtyCount++] = i;
+        }
+    }
+
+    /**
+     * Gets the number of bricks changed since the last clearDirty
+     * @return the changed brick count
+     */
+    public int getDirtyCount() {
+        return this.dirtyCount;
+    }
+
+    /**
+     * Gets a brick from the changed list
+     * @param k the position in the list
+     * @return the brick index
+     */
+    public int getDirty(int k) {
+        return this.dirty[k];
+    }
+
+    /**
+     * Empties the changed list once a renderer has caught up
+     */
+    public void clearDirty() {
+        for(int k = 0; k < this.dirtyCount; k++) {
+            this.state[this.dirty[k]] &= ~DIRTY;
+        }
+        this.dirtyCount = 0;
+    }
+
+    /**
+     * Gets the number of bricks
+     * @return the number of bricks
+     */
+    public int getCount() {
+        return this.count;
+    }
+
+    /**
+     * Gets the left edge of a brick
+     * @param i the brick index
+     * @return the left edge
+     */
+    public double getMinX(int i) {
+        return this.minX[i];
+    }
+
+    /**
+     * Gets the top edge of a brick
+     * @param i the brick index
+     * @return the top edge
+     */
+    public double getMinY(int i) {
+        return this.minY[i];
+    }
+
+    /**
+     * Gets the right edge of a brick
+     * @param i the brick index
+     * @return the right edge
+     */
+    public double getMaxX(int i) {
+        return this.maxX[i];
+    }
+
+    /**
+     * Gets the bottom edge of a brick
+     * @param i the brick index
+     * @return the bottom edge
+     */
+    public double getMaxY(int i) {
+        return this.maxY[i];
+    }
+
+    /**
+     * Gets the damage level of a brick
+     * @param i the brick index
+     * @return the damage level
+     */
+    public int getDamage(int i) {
+        return this.state[i] & DAMAGE_MASK;
+    }
+
+    /**
+     * Gets how many hits a brick takes to destroy
+     * @param i the brick index
+     * @return the hit points
+     */
+    public int getHitPoints(int i) {
+        return (this.state[i] & HP_MASK) >>> HP_SHIFT;
+    }
+
+    /**
+     * Gets which palette entry a brick is drawn with
+     * @param i the brick index
+     * @return the palette entry, the brick's own index unless set
+     */
+    public int getStyle(int i) {
+        return this.styles[i];
+    }
+
+    /**
+     * Checks if a brick is still standing
+     * @param i the brick index
+     * @return true if the brick is standing & vice versa
+     */
+    public boolean isAlive(int i) {
+        return (this.alive[i >>> 6] & (1L << i)) != 0;
+    }
+
+    /**
+     * Gets the number of cleared bricks
+     * @return the number of cleared bricks
+     */
+    public int getBricksCleared() {
+        return this.count - this.liveCount;
+    }
+
+    /**
+     * Gets the number of standing bricks
+     * @return the number of standing bricks
+     */
+    public int getLiveCount() {
+        return this.liveCount;
+    }
+
+}
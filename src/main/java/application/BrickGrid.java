@@ -0,0 +1,205 @@
+package application;
+
+import java.util.Arrays;
+
+/**
+ * A BrickGrid class that buckets bricks into uniform cells so a ball only checks the bricks near it
+ */
+public class BrickGrid {
+
+    private double originX, originY;
+    private double cellWidth = 1, cellHeight = 1;
+    private int cols, rows;
+
+    private int[] cellStart = new int[1];
+    private int[] cellCount = new int[0];
+    private int[] entries = new int[0];
+    private int[] candidates = new int[16];
+
+    /**
+     * Rebuilds the grid from the standing bricks of a brick field
+     * @param field the brick field
+     */
+    public void build(BrickField field) {
+        final int count = field.getCount();
+        double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+        double sizeX = 0, sizeY = 0;
+
+        for(int i = 0; i < count; i++) {
+            minX = Math.min(minX, field.getMinX(i));
+            minY = Math.min(minY, field.getMinY(i));
+            maxX = Math.max(maxX, field.getMaxX(i));
+            maxY = Math.max(maxY, field.getMaxY(i));
+            sizeX = Math.max(sizeX, field.getMaxX(i) - field.getMinX(i));
+            sizeY = Math.max(sizeY, field.getMaxY(i) - field.getMinY(i));
+        }
+
+        if(count == 0 || sizeX <= 0 || sizeY <= 0) {
+            this.cols = 0;
+            this.rows = 0;
+            return;
+        }
+
+        // cells at least as large as the largest brick keep each brick in at most four cells
+        this.originX = minX;
+        this.originY = minY;
+        this.cellWidth = sizeX;
+        this.cellHeight = sizeY;
+        this.cols = (int)((maxX - minX) / sizeX) + 1;
+        this.rows = (int)((maxY - minY) / sizeY) + 1;
+
+        final int cells = this.cols * this.rows;
+        if(this.cellCount.length < cells) {
+            this.cellCount = new int[cells];
+            this.cellStart = new int[cells + 1];
+        }
+        for(int c = 0; c < cells; c++) {
+            this.cellCount[c] = 0;
+        }
+
+        for(int i = 0; i < count; i++) {
+            if(field.isAlive(i)) {
+                forEachCell(field, i, -1);
+            }
+        }
+
+        int total = 0;
+        for(int c = 0; c < cells; c++) {
+            this.cellStart[c] = total;
+            total += this.cellCount[c];
+            this.cellCount[c] = 0;
+        }
+        this.cellStart[cells] = total;
+        if(this.entries.length < total) {
+            this.entries = new int[total];
+        }
+
+        for(int i = 0; i < count; i++) {
+            if(field.isAlive(i)) {
+                forEachCell(field, i, i);
+            }
+        }
+    }
+
+    /**
+     * Counts a brick into its cells, or stores it when an index is given
+     * @param field the brick field
+     * @param brick the brick index
+     * @param store the index to store, or -1 to only count
+     */
+    private void forEachCell(BrickField field, int brick, int store) {
+        final int c0 = col(field.getMinX(brick)), c1 = col(field.getMaxX(brick));
+        final int r0 = row(field.getMinY(brick)), r1 = row(field.getMaxY(brick));
+
+        for(int r = r0; r <= r1; r++) {
+            for(int c = c0; c <= c1; c++) {
+                final int cell = r * this.cols + c;
+                if(store >= 0) {
+                    this.entries[this.cellStart[cell] + this.cellCount[cell]] = store;
+                }
+                this.cellCount[cell]++;
+            }
+        }
+    }
+
+    /**
+     * Removes a destroyed brick from the cells it covers
+     * @param field the brick field
+     * @param brick the brick index
+     */
+    public void remove(BrickField field, int brick) {
+        if(this.cols == 0) {
+            return;
+        }
+
+        final int c0 = col(field.getMinX(brick)), c1 = col(field.getMaxX(brick));
+        final int r0 = row(field.getMinY(brick)), r1 = row(field.getMaxY(brick));
+
+        for(int r = r0; r <= r1; r++) {
+            for(int c = c0; c <= c1; c++) {
+                final int cell = r * this.cols + c;
+                final int start = this.cellStart[cell];
+                final int last = start + this.cellCount[cell] - 1;
+
+                for(int k = start; k <= last; k++) {
+                    if(this.entries[k] == brick) {
+                        this.entries[k] = this.entries[last];
+                        this.cellCount[cell]--;
+                        break;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Collects the bricks in the cells a box overlaps, readable through getCandidate
+     * @param minX the box's left edge
+     * @param minY the box's top edge
+     * @param maxX the box's right edge
+     * @param maxY the box's bottom edge
+     * @return the number of candidates, which may contain repeats
+     */
+    public int query(double minX, double minY, double maxX, double maxY) {
+        if(this.cols == 0) {
+            return 0;
+        }
+
+        final double ox = minX - this.originX, oy = minY - this.originY;
+        final double ex = maxX - this.originX, ey = maxY - this.originY;
+        if(ex < 0 || ey < 0 || ox >= this.cols * this.cellWidth || oy >= this.rows * this.cellHeight) {
+            return 0;
+        }
+
+        final int c0 = col(minX), c1 = col(maxX);
+        final int r0 = row(minY), r1 = row(maxY);
+        int found = 0;
+
+        for(int r = r0; r <= r1; r++) {
+            for(int c = c0; c <= c1; c++) {
+                final int cell = r * this.cols + c;
+                final int start = this.cellStart[cell];
+                final int n = this.cellCount[cell];
+
+                if(found + n > this.candidates.length) {
+                    this.candidates = Arrays.copyOf(this.candidates, Math.max(found + n, this.candidates.length * 2));
+                }
+                System.arraycopy(this.entries, start, this.candidates, found, n);
+                found += n;
+            }
+        }
+
+        return found;
+    }
+
+    /**
+     * Gets a brick collected by the last query
+     * @param k the candidate position
+     * @return the brick index
+     */
+    public int getCandidate(int k) {
+        return this.candidates[k];
+    }
+
+    /**
+     * Gets the grid column of an x coordinate, clamped to the grid
+     * @param x the x coordinate
+     * @return the column
+     */
+    private int col(double x) {
+        final int c = (int)Math.floor((x - this.originX) / this.cellWidth);
+        return c < 0 ? 0 : (c >= this.cols ? this.cols - 1 : c);
+    }
+
+    /**
+     * Gets the grid row of a y coordinate, clamped to the grid
+     * @param y the y coordinate
+     * @return the row
+     */
+    private int row(double y) {
+        final int r = (int)Math.floor((y - this.originY) / this.cellHeight);
+        return r < 0 ? 0 : (r >= this.rows ? this.rows - 1 : r);
+    }
+
+}
@@ -1,123 +1,85 @@
-
 package application;
 
-import java.util.Arrays;
 import java.util.List;
-import java.util.ArrayList;
+import java.util.Map;
+import java.util.IdentityHashMap;
+import javafx.application.Platform;
+import javafx.css.PseudoClass;
 import javafx.geometry.Bounds;
 import javafx.scene.Node;
 import javafx.scene.layout.GridPane;
-import javafx.scene.shape.Circle;
-import javafx.scene.layout.Region;
 
 /**
  * A Bricks class that handles the brick objects
  */
 public class Bricks {
     
+    private static final PseudoClass[] DAMAGE_STATES = {
+        PseudoClass.getPseudoClass("damage-1"),
+        PseudoClass.getPseudoClass("damage-2")
+    };
+    
     private GridPane bricks;
     private List<Node> brickList;
-    private int[][] damage;
-    private int bricksCleared;
-    
-    private final List<String> damageStyles = Arrays.asList("damage-1", "damage-2", "damage-3");
-    private List<Levels> winListeners = new ArrayList<Levels>();
+    private Map<Node, Integer> brickIndex = new IdentityHashMap<Node, Integer>();
+    private BrickField field;
+    private BrickCanvas canvas;
+    private boolean fromPack;
 
     /**
      * Constructor of the Bricks class that initializes the brick objects
      * @param bricks the bricks
+     * @param field the brick state the nodes are drawn from
      */
-    public Bricks(GridPane bricks) {
+    public Bricks(GridPane bricks, BrickField field) {
         this.bricks = bricks;
         this.brickList = bricks.getChildren();
-        this.damage = new int[4][6];
+        this.field = field;
+        
+        for(int i = 0; i < this.brickList.size(); i++) {
+            final int index = i;
+            Node brick = this.brickList.get(i);
+            brick.getStyleClass().add("brick");
+            brick.boundsInParentProperty().addListener((obs, old, b) -> updateBounds(index));
+            this.brickIndex.put(brick, i);
+            updateBounds(i);
+        }
+        bricks.layoutXProperty().addListener((obs, old, x) -> updateAllBounds());
+        bricks.layoutYProperty().addListener((obs, old, y) -> updateAllBounds());
     }
     
     /**
-     * Keeps track of when all the bricks are cleared
-     * @param newListener tracker when all the bricks are cleared
+     * Copies a brick's laid out rectangle into the brick field
+     * @param i the brick index
      */
-    public void addWinListener(Levels newListener) {
-        this.winListeners.add(newListener);
+    private void updateBounds(int i) {
+        if(this.fromPack) {
+            return;
+        }
+        if(this.canvas != null) {
+            this.canvas.invalidate();
+        }
+        Bounds b = this.brickList.get(i).getBoundsInParent();
+        this.field.setBounds(i, this.bricks.getLayoutX() + b.getMinX(), this.bricks.getLayoutY() + b.getMinY(), 
+                b.getWidth(), b.getHeight());
     }
     
     /**
-     * Checks for a collision between the ball and brick
-     * @param ball the ball object
-     * @return 1 for a horizontal hit, -1 for a vertical hit, and 0 for no hit
+     * Copies every brick's laid out rectangle into the brick field
      */
-    public int checkCollision(Circle ball) {
-        Bounds ballBounds = ball.getBoundsInParent();
-        final double ballMinX = ballBounds.getMinX();
-        final double ballMinY = ballBounds.getMinY();
-        final double ballMaxX = ballBounds.getMaxX();
-        final double ballMaxY = ballBounds.getMaxY();
-        
-        final boolean atBricksTop = ballMinY >= this.bricks.getLayoutY() - ball.getRadius() * 2;
-        final boolean atBricksBottom = ballMaxY <= (this.bricks.getLayoutY() + this.bricks.getHeight()) + ball.getRadius() * 2;
-        
-        if (atBricksTop && atBricksBottom) {
-            for(int i = this.brickList.size() - 1; i >= 0; i--) {
-                Region brick = (Region)this.brickList.get(i);
-                if(!brick.isVisible()) {
-                    continue;
-                }
-                
-                Bounds brickBounds = brick.getBoundsInParent();
-                final double brickMinX = this.bricks.getLayoutX() + brickBounds.getMinX();
-                final double brickMinY = this.bricks.getLayoutY() + brickBounds.getMinY();
-                final double brickMaxX = brickMinX + brickBounds.getWidth();
-                final double brickMaxY = brickMinY + brickBounds.getHeight();
-                
-                final boolean insideX = ballMaxX >= brickMinX && ballMinX <= brickMaxX;
-                final boolean insideY = ballMaxY >= brickMinY && ballMinY <= brickMaxY;
-                
-                if(insideX && insideY) {
-                    final boolean atTop = ballMinY < brickMinY;
-                    final boolean atBottom = ballMaxY > brickMaxY;
-                    final boolean atLeft = ballMinX < brickMinX;
-                    final boolean atRight = ballMaxX > brickMaxX;
-                    
-                    if(atTop || atBottom) {
-                        increaseDamage(brick);
-                        return 1;
-                    }
-                    if(atLeft || atRight) {
-                        increaseDamage(brick);
-                        return -1;
-                    }
-                }
-            }
+    private void updateAllBounds() {
+        for(int i = 0; i < this.brickList.size(); i++) {
+            updateBounds(i);
         }
-        
-        return 0;
     }
     
     /** 
      * Increments the damage level of the bricks
      * @param brick the bricks.
      */
-    public void increaseDamage(Region brick) {
-        List<String> styles = brick.getStyleClass();
-        int row = Integer.valueOf(styles.get(0).substring(4));
-        int col = Integer.valueOf(styles.get(1).substring(4));
-        
-        this.damage[row][col]++;
-        if(this.damage[row][col] == 3) {
-            brick.setVisible(false);
-            this.bricksCleared++;
-            
-            if(isCleared()) {
-                for(Levels ls : winListeners) {
-                    ls.handleLevelingEvent();
-                }
-            }
-        }
-        
-        styles.removeAll(this.damageStyles);
-        styles.add("damage-" + this.damage[row][col]);
-        
-        System.out.println(Arrays.toString(styles.toArray()));
+    public void increaseDamage(Node brick) {
+        this.field.increaseDamage(this.brickIndex.get(brick));
+        render();
     }
     
     /**
@@ -125,21 +87,135 @@ public class Bricks {
      * @return true for cleared bricks & vice versa
      */
     public boolean isCleared() {
-        System.out.println(bricksCleared + " bricks cleared");
-        return this.bricksCleared == this.brickList.size();
+        return this.field.isCleared();
     }
     
     /**
-     * Resets the brick objects
+     * Draws the bricks onto a single Canvas from now on instead of styling a node per brick
+     * @param atlas the atlas holding the damage sprite
      */
-    public void reset() {
+    public void useCanvas(SpriteAtlas atlas) {
+        if(this.canvas == null) {
+            this.canvas = new BrickCanvas(this.bricks, this.field, atlas);
+        }
+    }
+
+    /**
+     * Switches to the canvas once the atlas has loaded, drawing with the nodes until then
+     * @param atlas a handle to the atlas holding the damage sprite
+     */
+    public void useCanvasWhenLoaded(AssetManager.Handle<SpriteAtlas> atlas) {
+        if(atlas.getFuture().isDone() && !atlas.getFuture().isCompletedExceptionally()) {
+            useCanvas(atlas.join());
+            return;
+        }
+        atlas.getFuture().whenComplete((loaded, e) -> {
+            if(e != null) {
+                System.out.println(e);
+            }
+            else {
+                Platform.runLater(() -> useCanvas(loaded));
+            }
+        });
+    }
+    
+    /**
+     * Swaps in a brick field built from a level pack, such as one prepared during an interstitial. Only the canvas
+     * can draw it, so until useCanvas is called the grid is faded out and no bricks are drawn
+     * @param field the brick state, no longer tied to the grid's layout
+     */
+    public void setField(BrickField field) {
+        this.fromPack = true;
+        this.field = field;
+        if(this.canvas != null) {
+            this.canvas.setField(field);
+        }
+        else {
+            // faded rather than hidden so the nodes keep their styles for the canvas to copy
+            this.bricks.setOpacity(0);
+        }
+    }
+    
+    /**
+     * Gets the number of rows of brick styles in the grid, which pack levels repeat down the board
+     * @return the palette rows
+     */
+    public int getPaletteRows() {
+        int rows = 1;
+        for(Node brick : this.brickList) {
+            Integer row = GridPane.getRowIndex(brick);
+            rows = Math.max(rows, row == null ? 1 : row + 1);
+        }
+        return rows;
+    }
+    
+    /**
+     * Gets the number of columns of brick styles in the grid, which pack levels repeat across the board
+     * @return the palette columns
+     */
+    public int getPaletteColumns() {
+        int columns = 1;
         for(Node brick : this.brickList) {
-            brick.setVisible(true);
-            brick.getStyleClass().removeAll(this.damageStyles);
+            Integer column = GridPane.getColumnIndex(brick);
+            columns = Math.max(columns, column == null ? 1 : column + 1);
+        }
+        return columns;
+    }
+    
+    /**
+     * Updates the visibility and damage state of the bricks that changed since the last render
+     */
+    public void render() {
+        if(this.canvas != null) {
+            this.canvas.render();
+            return;
+        }
+        if(this.fromPack) {
+            // a pack board has no nodes to draw it; the canvas redraws it whole once it is ready
+            return;
         }
         
-        this.damage = new int[4][6];
-        this.bricksCleared = 0;
+        final int changed = this.field.getDirtyCount();
+        for(int k = 0; k < changed; k++) {
+            final int i = this.field.getDirty(k);
+            final Node brick = this.brickList.get(i);
+            final int stage = damageStage(this.field.getDamage(i), this.field.getHitPoints(i));
+            
+            brick.setVisible(this.field.isAlive(i));
+            for(int s = 0; s < DAMAGE_STATES.length; s++) {
+                brick.pseudoClassStateChanged(DAMAGE_STATES[s], s + 1 == stage);
+            }
+        }
+        this.field.clearDirty();
+    }
+    
+    /**
+     * Maps a brick's damage onto the sprite frames, spreading bricks with more hit points over the same frames
+     * @param damage the damage taken
+     * @param hitPoints the hits the brick takes to destroy
+     * @return 0 for an undamaged brick, otherwise the damage frame
+     */
+    static int damageStage(int damage, int hitPoints) {
+        if(damage <= 0) {
+            return 0;
+        }
+        return Math.min(DAMAGE_STATES.length, Math.max(1, damage * BrickField.MAX_DAMAGE / hitPoints));
+    }
+    
+    /**
+     * Resets the brick objects
+     */
+    public void reset() {
+        this.field.reset();
+        render();
+    }
+    
+    /**
+     * Gets the brick state the nodes are drawn from
+     * @return the brick field
+     */
+    public BrickField getField() {
+        return this.field;
     }
     
 }
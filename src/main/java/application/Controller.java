@@ -8,16 +8,28 @@ import javafx.scene.control.TableColumn;
 import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.collections.ObservableList;
 
+import java.io.IOException;
+import java.lang.ref.WeakReference;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.ResourceBundle;
+import javafx.application.Platform;
 import javafx.scene.control.TextField;
 import javafx.event.ActionEvent;
 
 /**
- * A Controller class that manages the table for the leader board
+ * A Controller class that manages the table for the leader board, kept in the score store or, when kiosks share
+ * one, the merged leaderboard from the score sync
  */
 public class Controller implements Initializable {
 
+	private ScoreStore store;
+	private ScoreSource source;
+	private ScorePageList pages;
+	private Score scrollTo;
+	private boolean opened;
+
 	@FXML
 	TableView<Player> tableview;
 
@@ -38,11 +50,87 @@ public class Controller implements Initializable {
 		colLevel.setCellValueFactory(new PropertyValueFactory<>("PlayerLevel"));
 		tableview.setItems(observableList);
 
+		// rows come from the store's ranking, so sorting the table would need every row
+		colName.setSortable(false);
+		colDate.setSortable(false);
+		colLevel.setSortable(false);
+
+		// the scene is built ahead of time, so the scores are only opened once it is first put in a window
+		tableview.sceneProperty().addListener((sceneValue, oldScene, scene) -> {
+			if (scene != null) {
+				scene.windowProperty().addListener((windowValue, oldWindow, window) -> {
+					if (window != null) {
+						open();
+					}
+				});
+			}
+		});
 	}
 
-	ObservableList<Player> observableList = FXCollections.observableArrayList(
-			new Player("name", "date", 0)
-			);
+	/**
+	 * Opens the scores the first time the table is shown, building the ranking index behind it
+	 */
+	private void open() {
+		if (opened) {
+			return;
+		}
+		opened = true;
+
+		ScoreSync sync;
+		try {
+			store = ScoreStore.getDefault();
+			sync = ScoreSync.getDefault();
+		} catch (IOException e) {
+			System.out.println(e);
+			observableList.add(new Player("name", "date", 0));
+			return;
+		}
+
+		if (sync != null) {
+			source = sync;
+		} else {
+			source = store;
+			store.buildIndex();
+		}
+
+		// the scores outlive this table, so they only hold on to it weakly
+		final WeakReference<Controller> self = new WeakReference<>(this);
+		final ScoreSource scores = source;
+		scores.addChangeListener(new Runnable() {
+			@Override
+			public void run() {
+				Controller controller = self.get();
+				if (controller == null) {
+					scores.removeChangeListener(this);
+				} else {
+					Platform.runLater(controller::refresh);
+				}
+			}
+		});
+		refresh();
+	}
+
+	ObservableList<Player> observableList = FXCollections.observableArrayList();
+
+	/**
+	 * Shows the ranked scores, read a page at a time as the table scrolls
+	 */
+	private void refresh() {
+		if (pages == null) {
+			pages = new ScorePageList(source);
+			tableview.setItems(pages);
+		} else {
+			pages.refresh();
+		}
+		if (scrollTo != null) {
+			int rank = source.getRank(scrollTo);
+			if (rank >= 0) {
+				tableview.scrollTo(rank);
+				tableview.getSelectionModel().select(rank);
+			}
+			scrollTo = null;
+		}
+	}
 
 	@FXML
 	TextField textfieldName;
@@ -54,23 +142,54 @@ public class Controller implements Initializable {
 	TextField textfieldLevel;
 
 	/**
-	 * Adds information to table
+	 * Adds information to table, writing it to the store in the background
 	 * @param event the action that occurs
 	 */
 	public void buttonAdd(ActionEvent event) {
-		Player player = new Player(textfieldName.getText(), textfieldDate.getText(), Integer.parseInt(textfieldLevel.getText()));
-		tableview.getItems().add(player);
+		int level;
+		try {
+			level = Integer.parseInt(textfieldLevel.getText().trim());
+		} catch (NumberFormatException e) {
+			System.out.println(e);
+			return;
+		}
+		Player player = new Player(textfieldName.getText(), textfieldDate.getText(), level);
+		if (store == null) {
+			tableview.getItems().add(player);
+			return;
+		}
+
+		// the store's change listener refreshes the table once the score is written
+		store.addLater(player.getPlayerName(), player.getPlayerDate(), player.getPlayerLevel(),
+				score -> Platform.runLater(() -> {
+					scrollTo = score;
+					refresh();
+				}));
 	}
 
 	/**
-	 * Deletes information from table
+	 * Deletes information from table, removing it from the store in the background
 	 * @param event the action that occurs
 	 */
 	public void buttonDelete(ActionEvent event) {
 		ObservableList<Player> allProduct, SinglePlayer;
 		allProduct = tableview.getItems();
 		SinglePlayer = tableview.getSelectionModel().getSelectedItems();
-		SinglePlayer.forEach(allProduct::remove);
+		if (store == null) {
+			SinglePlayer.forEach(allProduct::remove);
+			return;
+		}
+		if (source != store) {
+			// rows of the merged leaderboard are not this kiosk's to delete
+			System.out.println("the shared leaderboard is read-only");
+			return;
+		}
+
+		List<Long> ids = new ArrayList<>();
+		for (Player player : SinglePlayer) {
+			ids.add(player.getId());
+		}
+		store.removeLater(ids);
 	}
 
 }
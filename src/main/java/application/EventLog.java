@@ -0,0 +1,289 @@
+package application;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * An EventLog class that queues game events in a preallocated ring buffer and writes them out on a background thread
+ *
+ * Events are appended from the game thread only. When the buffer is full new events are dropped and counted
+ * rather than waiting for the writer. The game and the startup share one log, opened by getDefault.
+ */
+public class EventLog {
+
+    /**
+     * The severity of an event, lowest first
+     */
+    public enum Level { DEBUG, INFO, WARN }
+
+    /**
+     * The kinds of event the game records, each with a format for its two int arguments
+     */
+    public enum Event {
+        BRICK_DAMAGED("brick %d damage %d"),
+        BRICK_DESTROYED("brick %d destroyed, %d cleared"),
+        LEVEL_UP("level %d"),
+        LIFE_LOST("life lost, %d left"),
+        INVALID_LEVEL_UP("invalid levelUp() event issued"),
+        INVALID_LOSE_LIFE("invalid loseLife() event issued"),
+        FIRST_FRAME("first frame %d ms after JVM start"),
+        WARM_UP("warm-up took %d ms, done %d ms after JVM start");
+
+        private final String format;
+
+        Event(String format) {
+            this.format = format;
+        }
+    }
+
+    private static final long IDLE_NANOS = 50_000_000L;
+
+    private static EventLog defaultLog;
+
+    private final int mask;
+    private final long[] times;
+    private final byte[] levels;
+    private final byte[] events;
+    private final int[] firstArgs;
+    private final int[] secondArgs;
+
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private long droppedReported;
+
+    private final Level minLevel;
+    private final Writer out;
+    private final boolean closeOut;
+    private final long start = System.nanoTime();
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    /**
+     * Creates a log and starts its writer thread
+     * @param out where formatted events are written
+     * @param closeOut whether closing the log closes the writer
+     * @param minLevel the lowest level that is recorded
+     * @param capacity the number of buffered events, rounded up to a power of two
+     */
+    public EventLog(Writer out, boolean closeOut, Level minLevel, int capacity) {
+        final int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.mask = size - 1;
+        this.times = new long[size];
+        this.levels = new byte[size];
+        this.events = new byte[size];
+        this.firstArgs = new int[size];
+        this.secondArgs = new int[size];
+
+        this.out = out;
+        this.closeOut = closeOut;
+        this.minLevel = minLevel;
+
+        this.writer = new Thread(this::drainLoop, "event-log");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Opens a log that appends to a file
+     * @param file the log file
+     * @param minLevel the lowest level that is recorded
+     * @return the log
+     * @throws IOException if the file cannot be opened
+     */
+    public static EventLog toFile(Path file, Level minLevel) throws IOException {
+        BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        return new EventLog(out, true, minLevel, 4096);
+    }
+
+    /**
+     * Opens a log that writes to standard output
+     * @param minLevel the lowest level that is recorded
+     * @return the log
+     */
+    public static EventLog toConsole(Level minLevel) {
+        return new EventLog(new OutputStreamWriter(System.out), false, minLevel, 4096);
+    }
+
+    /**
+     * Opens the log chosen by the brickbreaker.log and brickbreaker.logLevel system properties,
+     * defaulting to warnings on standard output
+     * @return the log
+     */
+    public static EventLog fromSystemProperties() {
+        Level level = parseLevel(System.getProperty("brickbreaker.logLevel"));
+        String file = System.getProperty("brickbreaker.log");
+
+        if(file != null) {
+            try {
+                return toFile(Paths.get(file), level);
+            }
+            catch(IOException e) {
+                System.out.println(e);
+            }
+        }
+        return toConsole(level);
+    }
+
+    /**
+     * Gets the log shared by the application, opened from the system properties the first time
+     * @return the log
+     */
+    public static synchronized EventLog getDefault() {
+        if(defaultLog == null) {
+            defaultLog = fromSystemProperties();
+        }
+        return defaultLog;
+    }
+
+    /**
+     * Writes out and closes the shared log if it was opened
+     */
+    public static synchronized void closeDefault() {
+        if(defaultLog != null) {
+            defaultLog.close();
+            defaultLog = null;
+        }
+    }
+
+    /**
+     * Reads a level name in any case, falling back to WARN for a missing or unknown name
+     * @param name the name, or null
+     * @return the level
+     */
+    public static Level parseLevel(String name) {
+        if(name != null) {
+            for(Level level : Level.values()) {
+                if(level.name().equalsIgnoreCase(name.trim())) {
+                    return level;
+                }
+            }
+            System.out.println("unknown log level " + name + ", expected DEBUG, INFO or WARN; using WARN");
+        }
+        return Level.WARN;
+    }
+
+    /**
+     * Checks if events of a level are recorded
+     * @param level the level
+     * @return true if the level is recorded & vice versa
+     */
+    public boolean isEnabled(Level level) {
+        return level.compareTo(this.minLevel) >= 0;
+    }
+
+    /**
+     * Queues an event without blocking, dropping it if the buffer is full
+     * @param level the level
+     * @param event the event
+     * @param first the first argument
+     * @param second the second argument
+     */
+    public void log(Level level, Event event, int first, int second) {
+        if(!isEnabled(level)) {
+            return;
+        }
+
+        final long t = this.tail.get();
+        if(t - this.head.get() > this.mask) {
+            this.dropped.incrementAndGet();
+            return;
+        }
+
+        final int slot = (int)(t & this.mask);
+        this.times[slot] = System.nanoTime();
+        this.levels[slot] = (byte)level.ordinal();
+        this.events[slot] = (byte)event.ordinal();
+        this.firstArgs[slot] = first;
+        this.secondArgs[slot] = second;
+        this.tail.lazySet(t + 1);
+    }
+
+    /**
+     * Queues an event with one argument
+     * @param level the level
+     * @param event the event
+     * @param first the argument
+     */
+    public void log(Level level, Event event, int first) {
+        log(level, event, first, 0);
+    }
+
+    /**
+     * Gets the number of events dropped because the buffer was full
+     * @return the dropped event count
+     */
+    public long getDropped() {
+        return this.dropped.get();
+    }
+
+    /**
+     * Stops the writer after it writes everything still queued
+     */
+    public void close() {
+        this.running = false;
+        LockSupport.unpark(this.writer);
+        try {
+            this.writer.join(1000);
+        }
+        catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Drains the buffer until the log is closed
+     */
+    private void drainLoop() {
+        final Level[] levelValues = Level.values();
+        final Event[] eventValues = Event.values();
+
+        try {
+            while(true) {
+                final boolean open = this.running;
+                final long t = this.tail.get();
+                long h = this.head.get();
+
+                for(; h < t; h++) {
+                    final int slot = (int)(h & this.mask);
+                    final Event event = eventValues[this.events[slot]];
+                    this.out.write(String.format("%12.3f %-5s %s%n", (this.times[slot] - this.start) / 1_000_000d,
+                            levelValues[this.levels[slot]], String.format(event.format, this.firstArgs[slot], this.secondArgs[slot])));
+                }
+                this.head.lazySet(h);
+
+                final long dropped = this.dropped.get();
+                if(dropped != this.droppedReported) {
+                    this.out.write(String.format("%12s WARN  %d events dropped, buffer full%n", "", dropped - this.droppedReported));
+                    this.droppedReported = dropped;
+                }
+                this.out.flush();
+
+                if(!open) {
+                    break;
+                }
+                if(this.tail.get() == h) {
+                    LockSupport.parkNanos(IDLE_NANOS);
+                }
+            }
+
+            if(this.closeOut) {
+                this.out.close();
+            }
+        }
+        catch(IOException e) {
+            System.out.println(e);
+        }
+    }
+
+}
@@ -0,0 +1,99 @@
+package application;
+
+/**
+ * A FrameHistogram class that counts nanosecond durations in fixed buckets without allocating
+ */
+public class FrameHistogram {
+
+    public static final long BUCKET_NANOS = 10_000;
+    public static final int BUCKETS = 10_000;
+
+    private final int[] counts = new int[BUCKETS];
+    private long count;
+    private long max;
+    private long total;
+
+    /**
+     * Records one duration, clamping anything past the last bucket into it
+     * @param nanos the duration in nanoseconds
+     */
+    public void record(long nanos) {
+        if(nanos < 0) {
+            nanos = 0;
+        }
+        final long bucket = nanos / BUCKET_NANOS;
+        this.counts[bucket < BUCKETS ? (int)bucket : BUCKETS - 1]++;
+        this.count++;
+        this.total += nanos;
+        if(nanos > this.max) {
+            this.max = nanos;
+        }
+    }
+
+    /**
+     * Gets the duration below which a fraction of the recorded durations fall
+     * @param fraction the fraction, such as 0.5 or 0.99
+     * @return the upper edge of the bucket holding that fraction in nanoseconds, capped at the max
+     */
+    public long getPercentile(double fraction) {
+        if(this.count == 0) {
+            return 0;
+        }
+
+        final long target = Math.max(1, (long)Math.ceil(this.count * fraction));
+        long seen = 0;
+        for(int b = 0; b < BUCKETS; b++) {
+            seen += this.counts[b];
+            if(seen >= target) {
+                return Math.min((b + 1) * BUCKET_NANOS, this.max);
+            }
+        }
+        return this.max;
+    }
+
+    /**
+     * Gets the longest recorded duration
+     * @return the max in nanoseconds
+     */
+    public long getMax() {
+        return this.max;
+    }
+
+    /**
+     * Gets the average recorded duration
+     * @return the mean in nanoseconds
+     */
+    public long getMean() {
+        return this.count == 0 ? 0 : this.total / this.count;
+    }
+
+    /**
+     * Gets the number of recorded durations
+     * @return the count
+     */
+    public long getCount() {
+        return this.count;
+    }
+
+    /**
+     * Gets the number of durations in a bucket
+     * @param bucket the bucket index
+     * @return the count
+     */
+    public int getBucketCount(int bucket) {
+        return this.counts[bucket];
+    }
+
+    /**
+     * Clears every recorded duration
+     */
+    public void reset() {
+        for(int b = 0; b < BUCKETS; b++) {
+            this.counts[b] = 0;
+        }
+        this.count = 0;
+        this.max = 0;
+        this.total = 0;
+    }
+
+}
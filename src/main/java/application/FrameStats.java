@@ -0,0 +1,171 @@
+package application;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * A FrameStats class that collects frame, tick and render timings for a session
+ */
+public class FrameStats {
+
+    private final FrameHistogram frames = new FrameHistogram();
+    private final FrameHistogram ticks = new FrameHistogram();
+    private final FrameHistogram renders = new FrameHistogram();
+    private final FrameHistogram inputs = new FrameHistogram();
+    private long droppedTicks;
+
+    /**
+     * Records the time between two pulses
+     * @param nanos the frame time in nanoseconds
+     */
+    public void recordFrame(long nanos) {
+        this.frames.record(nanos);
+    }
+
+    /**
+     * Records the time one simulation tick took
+     * @param nanos the tick time in nanoseconds
+     */
+    public void recordTick(long nanos) {
+        this.ticks.record(nanos);
+    }
+
+    /**
+     * Records the time one render took
+     * @param nanos the render time in nanoseconds
+     */
+    public void recordRender(long nanos) {
+        this.renders.record(nanos);
+    }
+
+    /**
+     * Records how long a key press waited for the first tick that applied it
+     * @param nanos the input latency in nanoseconds
+     */
+    public void recordInput(long nanos) {
+        this.inputs.record(nanos);
+    }
+
+    /**
+     * Adds ticks that were skipped to catch up after a stall
+     * @param count the number of dropped ticks
+     */
+    public void addDroppedTicks(long count) {
+        this.droppedTicks += count;
+    }
+
+    /**
+     * Gets the frame time histogram
+     * @return the frame times
+     */
+    public FrameHistogram getFrames() {
+        return this.frames;
+    }
+
+    /**
+     * Gets the tick time histogram
+     * @return the tick times
+     */
+    public FrameHistogram getTicks() {
+        return this.ticks;
+    }
+
+    /**
+     * Gets the render time histogram
+     * @return the render times
+     */
+    public FrameHistogram getRenders() {
+        return this.renders;
+    }
+
+    /**
+     * Gets the input latency histogram
+     * @return the key press to tick latencies
+     */
+    public FrameHistogram getInputs() {
+        return this.inputs;
+    }
+
+    /**
+     * Gets the number of ticks dropped so far
+     * @return the dropped tick count
+     */
+    public long getDroppedTicks() {
+        return this.droppedTicks;
+    }
+
+    /**
+     * Formats the stats for the perf overlay
+     * @return the overlay text
+     */
+    public String summary() {
+        return String.format("frame p50 %.2f  p99 %.2f  max %.2f ms%n"
+                + "tick  p50 %.3f  p99 %.3f  max %.3f ms%n"
+                + "input p50 %.2f  p99 %.2f  max %.2f ms%n"
+                + "dropped ticks %d",
+                ms(this.frames.getPercentile(0.5)), ms(this.frames.getPercentile(0.99)), ms(this.frames.getMax()),
+                ms(this.ticks.getPercentile(0.5)), ms(this.ticks.getPercentile(0.99)), ms(this.ticks.getMax()),
+                ms(this.inputs.getPercentile(0.5)), ms(this.inputs.getPercentile(0.99)), ms(this.inputs.getMax()),
+                this.droppedTicks);
+    }
+
+    /**
+     * Writes a summary row per histogram followed by the non-empty buckets as CSV
+     * @param file the file to write
+     * @throws IOException if the file cannot be written
+     */
+    public void writeCsv(Path file) throws IOException {
+        try(PrintWriter out = new PrintWriter(Files.newBufferedWriter(file))) {
+            out.println("metric,count,mean_ns,p50_ns,p90_ns,p99_ns,max_ns");
+            writeSummary(out, "frame", this.frames);
+            writeSummary(out, "tick", this.ticks);
+            writeSummary(out, "render", this.renders);
+            writeSummary(out, "input", this.inputs);
+            out.println("dropped_ticks," + this.droppedTicks + ",,,,,");
+            out.println();
+            out.println("metric,bucket_start_ns,bucket_end_ns,count");
+            writeBuckets(out, "frame", this.frames);
+            writeBuckets(out, "tick", this.ticks);
+            writeBuckets(out, "render", this.renders);
+            writeBuckets(out, "input", this.inputs);
+        }
+    }
+
+    /**
+     * Writes one summary row
+     * @param out the writer
+     * @param name the metric name
+     * @param h the histogram
+     */
+    private void writeSummary(PrintWriter out, String name, FrameHistogram h) {
+        out.println(name + "," + h.getCount() + "," + h.getMean() + "," + h.getPercentile(0.5) + "," 
+                + h.getPercentile(0.9) + "," + h.getPercentile(0.99) + "," + h.getMax());
+    }
+
+    /**
+     * Writes one row per non-empty bucket
+     * @param out the writer
+     * @param name the metric name
+     * @param h the histogram
+     */
+    private void writeBuckets(PrintWriter out, String name, FrameHistogram h) {
+        for(int b = 0; b < FrameHistogram.BUCKETS; b++) {
+            if(h.getBucketCount(b) > 0) {
+                out.println(name + "," + b * FrameHistogram.BUCKET_NANOS + "," + (b + 1) * FrameHistogram.BUCKET_NANOS 
+                        + "," + h.getBucketCount(b));
+            }
+        }
+    }
+
+    /**
+     * Converts nanoseconds to milliseconds
+     * @param nanos the nanoseconds
+     * @return the milliseconds
+     */
+    private static double ms(long nanos) {
+        return nanos / 1_000_000d;
+    }
+
+}
@@ -1,14 +1,12 @@
 
 package application;
 
-import java.time.Instant;
-import java.time.temporal.ChronoUnit;
+import java.io.IOException;
+import java.nio.file.Path;
 import javafx.scene.input.KeyCode;
-import javafx.animation.KeyFrame;
-import javafx.animation.Timeline;
+import javafx.animation.AnimationTimer;
 import javafx.scene.Scene;
 import javafx.stage.Stage;
-import javafx.util.Duration;
 
 /**
  * An abstract class Game that acts as a Game Engine
@@ -16,31 +14,100 @@ import javafx.util.Duration;
 public abstract class Game {
 
     protected final Stage stage;
-    private final Timeline loop;
+    private final AnimationTimer loop;
     private final String title;
+    private final int tickRate;
+    private final long tickNanos;
     
-    private Instant actualFrameTime = Instant.now();
+    private int maxCatchUpTicks = 5;
+    private long lastPulse;
+    private long accumulator;
+    private long lastFrameNanos;
+    
+    private final FrameStats stats = new FrameStats();
+    private final PerfOverlay overlay;
+    private Path statsFile;
+    
+    private final InputQueue input = new InputQueue(256);
+    private final KeyState keys = new KeyState();
     private KeyCode lastKey;
     
     /*
      * Creates the game stage 
      */
-    public Game(Stage stage, Scene scene, String title, int fps) {
+    public Game(Stage stage, Scene scene, String title, int tickRate) {
         this.stage = stage;
         this.title = title;
+        this.tickRate = tickRate;
+        this.tickNanos = 1_000_000_000L / tickRate;
         
         stage.setScene(scene);
         stage.sizeToScene();
         
-        Duration frameTime = Duration.millis(1000.0d / fps);
-        KeyFrame frame = new KeyFrame(frameTime, (e) -> {
+        this.overlay = new PerfOverlay(scene);
+        this.loop = new AnimationTimer() {
+            @Override
+            public void handle(long now) {
+                pulse(now);
+            }
+        };
+    }
+    
+    /**
+     * Runs as many fixed ticks as the time since the last pulse covers, then renders
+     * @param now the pulse time in nanoseconds
+     */
+    private void pulse(long now) {
+        if(this.lastPulse == 0) {
+            this.lastPulse = now;
+        }
+        else {
+            this.lastFrameNanos = now - this.lastPulse;
+            this.stats.recordFrame(this.lastFrameNanos);
+        }
+        this.accumulator += now - this.lastPulse;
+        this.lastPulse = now;
+        
+        int ticks = 0;
+        while(this.accumulator >= this.tickNanos && ticks < this.maxCatchUpTicks) {
+            final long start = System.nanoTime();
+            applyInput(start);
             this.update(this);
-            this.actualFrameTime = Instant.now();
-        });
+            this.stats.recordTick(System.nanoTime() - start);
+            this.accumulator -= this.tickNanos;
+            ticks++;
+        }
+        
+        // after a long stall drop the backlog instead of fast-forwarding through it
+        if(this.accumulator >= this.tickNanos) {
+            this.stats.addDroppedTicks(this.accumulator / this.tickNanos);
+            this.accumulator %= this.tickNanos;
+        }
         
-        this.loop = new Timeline();
-        this.loop.setCycleCount(-1);
-        this.loop.getKeyFrames().add(frame);
+        final long start = System.nanoTime();
+        this.render((double)this.accumulator / this.tickNanos);
+        this.stats.recordRender(System.nanoTime() - start);
+        this.overlay.refresh(this.stats, now);
+    }
+    
+    /**
+     * Applies the queued key events in the order they happened, before a tick
+     * @param tickStart when the tick started, to measure how long each press waited
+     */
+    private void applyInput(long tickStart) {
+        this.keys.beginTick();
+        while(this.input.poll()) {
+            final KeyCode code = this.input.getCode();
+            if(!this.input.isPress()) {
+                this.keys.release(code);
+            }
+            else if(this.keys.press(code)) {
+                // auto-repeat presses of a held key are not new input
+                this.lastKey = code;
+                this.stats.recordInput(tickStart - this.input.getTime());
+                this.keyPressed(code);
+            }
+        }
     }
     
     /**
@@ -48,7 +115,9 @@ public abstract class Game {
      */
     public void run() {
         this.attachKeyHandler(this.stage.getScene());
-        this.loop.play();
+        this.lastPulse = 0;
+        this.accumulator = 0;
+        this.loop.start();
     }
     
     /**
@@ -56,6 +125,55 @@ public abstract class Game {
      */
     public void stop() {
         this.loop.stop();
+        
+        if(this.statsFile != null) {
+            try {
+                this.stats.writeCsv(this.statsFile);
+            }
+            catch(IOException e) {
+                System.out.println(e);
+            }
+        }
+    }
+    
+    /**
+     * Gets the number of simulation ticks per second
+     * @return the tick rate
+     */
+    public int getTickRate() {
+        return this.tickRate;
+    }
+    
+    /**
+     * Sets how many ticks a single pulse may run to catch up after a stall
+     * @param maxCatchUpTicks the most ticks per pulse
+     */
+    public void setMaxCatchUpTicks(int maxCatchUpTicks) {
+        this.maxCatchUpTicks = maxCatchUpTicks;
+    }
+    
+    /**
+     * Gets the number of ticks skipped because the catch-up limit was reached
+     * @return the dropped tick count
+     */
+    public long getDroppedTicks() {
+        return this.stats.getDroppedTicks();
+    }
+    
+    /**
+     * Gets the frame, tick and render timings of the session
+     * @return the frame stats
+     */
+    public FrameStats getStats() {
+        return this.stats;
+    }
+    
+    /**
+     * Sets a CSV file the frame stats are written to when the game stops
+     * @param statsFile the file, or null to skip the export
+     */
+    public void setStatsFile(Path statsFile) {
+        this.statsFile = statsFile;
     }
     
     /**
@@ -63,7 +181,7 @@ public abstract class Game {
      * @return the FPS
      */
     public double getFPS() {
-        return 1000.0d / this.actualFrameTime.until(Instant.now(), ChronoUnit.MILLIS);
+        return this.lastFrameNanos == 0 ? 0 : 1_000_000_000.0d / this.lastFrameNanos;
     }
     
     /**
@@ -71,16 +189,40 @@ public abstract class Game {
      * @param scene the scene
      */
     private void attachKeyHandler(Scene scene) {
-        scene.setOnKeyPressed((e) -> this.lastKey = e.getCode());
-        scene.setOnKeyReleased((e) -> this.lastKey = null);
+        scene.setOnKeyPressed((e) -> {
+            if(e.getCode() == KeyCode.F3) {
+                this.overlay.toggle();
+            }
+            else {
+                this.input.offer(e.getCode(), true, System.nanoTime());
+            }
+        });
+        scene.setOnKeyReleased((e) -> this.input.offer(e.getCode(), false, System.nanoTime()));
     }
     
     /**
-     * Gets the key pressed
-     * @return the key pressed
+     * Gets the most recently pressed key if it is still down
+     * @return the key pressed, or null
      */
     public KeyCode getKeyPressed() {
-        return this.lastKey;
+        return this.lastKey != null && this.keys.isDown(this.lastKey) ? this.lastKey : null;
+    }
+    
+    /**
+     * Checks if a key is held, or was tapped during the current tick
+     * @param code the key
+     * @return true if the key is down & vice versa
+     */
+    public boolean isKeyDown(KeyCode code) {
+        return this.keys.isDown(code);
+    }
+    
+    /**
+     * Gets the number of key events dropped because the input queue was full
+     * @return the dropped event count
+     */
+    public long getDroppedInput() {
+        return this.input.getDropped();
     }
     
     /**
@@ -91,10 +233,23 @@ public abstract class Game {
         return this.title;
     }
     
+    /**
+     * Called during a tick for each key that goes down, in the order they were pressed and before update
+     * @param code the key
+     */
+    protected void keyPressed(KeyCode code) {
+    }
+    
     /**
      * Abstract method that updates the game
      * @param gameObj the game object
      */
     public abstract void update(Game gameObj);
+    
+    /**
+     * Draws the game between the last two ticks
+     * @param alpha how far the current time is past the last tick, from 0 to 1
+     */
+    public abstract void render(double alpha);
   
 }
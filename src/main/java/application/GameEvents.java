@@ -0,0 +1,431 @@
+package application;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * A GameEvents class that queues what happens during a tick and hands it to the listeners in one batch at its end
+ *
+ * Each kind of event has its own class, and the event objects are allocated up front and reused, so posting one
+ * only fills in fields. Listeners are never called from inside the collision code: a listener that resets the board
+ * runs once the tick is done with it. An event is only valid while its listeners run; one that wants to keep it
+ * must copy its fields. Events are posted and dispatched on the game thread only.
+ */
+public class GameEvents {
+
+    /**
+     * The kinds of event
+     */
+    public enum Kind { BRICK_DAMAGED, BRICK_DESTROYED, LIFE_LOST, LEVEL_CLEARED }
+
+    private static final int INITIAL_CAPACITY = 16;
+    private static final Kind[] KINDS = Kind.values();
+
+    /**
+     * Reacts to one kind of event
+     * @param <E> the event's type
+     */
+    public interface Listener<E extends Event> {
+
+        /**
+         * Handles an event
+         * @param event the event, reused once the batch is dispatched
+         */
+        void handle(E event);
+    }
+
+    /**
+     * Something that happened during a tick
+     */
+    public abstract static class Event {
+        private long tick;
+
+        /**
+         * Gets the kind of event
+         * @return the kind
+         */
+        public abstract Kind getKind();
+
+        /**
+         * Gets the tick the event happened in, counting the ticks the bus has dispatched
+         * @return the tick
+         */
+        public long getTick() {
+            return this.tick;
+        }
+    }
+
+    /**
+     * A brick was hit
+     */
+    public static final class BrickDamaged extends Event {
+        private int brick;
+        private int damage;
+
+        @Override
+        public Kind getKind() {
+            return Kind.BRICK_DAMAGED;
+        }
+
+        /**
+         * Gets the brick that was hit
+         * @return the brick index
+         */
+        public int getBrick() {
+            return this.brick;
+        }
+
+        /**
+         * Gets the brick's damage after the hit
+         * @return the damage
+         */
+        public int getDamage() {
+            return this.damage;
+        }
+    }
+
+    /**
+     * A brick took its last hit
+     */
+    public static final class BrickDestroyed extends Event {
+        private int brick;
+        private int cleared;
+
+        @Override
+        public Kind getKind() {
+            return Kind.BRICK_DESTROYED;
+        }
+
+        /**
+         * Gets the brick that was destroyed
+         * @return the brick index
+         */
+        public int getBrick() {
+            return this.brick;
+        }
+
+        /**
+         * Gets how many bricks are destroyed, counting this one
+         * @return the bricks cleared
+         */
+        public int getCleared() {
+            return this.cleared;
+        }
+    }
+
+    /**
+     * The last ball in play left the field
+     */
+    public static final class LifeLost extends Event {
+        private double x;
+
+        @Override
+        public Kind getKind() {
+            return Kind.LIFE_LOST;
+        }
+
+        /**
+         * Gets where the ball left the field
+         * @return the ball's center x coordinate
+         */
+        public double getX() {
+            return this.x;
+        }
+    }
+
+    /**
+     * The last brick was destroyed
+     */
+    public static final class LevelCleared extends Event {
+        private int brick;
+
+        @Override
+        public Kind getKind() {
+            return Kind.LEVEL_CLEARED;
+        }
+
+        /**
+         * Gets the brick destroyed last
+         * @return the brick index
+         */
+        public int getBrick() {
+            return this.brick;
+        }
+    }
+
+    private BrickDamaged[] damaged = new BrickDamaged[INITIAL_CAPACITY];
+    private BrickDestroyed[] destroyed = new BrickDestroyed[INITIAL_CAPACITY];
+    private LifeLost[] lost = new LifeLost[INITIAL_CAPACITY];
+    private LevelCleared[] cleared = new LevelCleared[INITIAL_CAPACITY];
+    private final int[] pending = new int[KINDS.length];
+    private final int[] cursors = new int[KINDS.length];
+
+    // the kind of each queued event in the order they were posted
+    private byte[] order = new byte[INITIAL_CAPACITY];
+    private int size;
+
+    private final List<Listener<BrickDamaged>> damagedListeners = new ArrayList<Listener<BrickDamaged>>();
+    private final List<Listener<BrickDestroyed>> destroyedListeners = new ArrayList<Listener<BrickDestroyed>>();
+    private final List<Listener<LifeLost>> lostListeners = new ArrayList<Listener<LifeLost>>();
+    private final List<Listener<LevelCleared>> clearedListeners = new ArrayList<Listener<LevelCleared>>();
+
+    private long tick;
+    private final long[] posted = new long[KINDS.length];
+    private long dispatched;
+    private int largestBatch;
+    private long dispatchNanos;
+
+    /**
+     * Creates an empty bus with room for a few events of each kind per tick, which grows to the busiest tick seen
+     */
+    public GameEvents() {
+        fill(this.damaged, 0, BrickDamaged::new);
+        fill(this.destroyed, 0, BrickDestroyed::new);
+        fill(this.lost, 0, LifeLost::new);
+        fill(this.cleared, 0, LevelCleared::new);
+    }
+
+    /**
+     * Keeps track of bricks being hit
+     * @param listener called with each hit
+     */
+    public void addBrickDamagedListener(Listener<BrickDamaged> listener) {
+        this.damagedListeners.add(listener);
+    }
+
+    /**
+     * Keeps track of bricks being destroyed
+     * @param listener called with each destroyed brick
+     */
+    public void addBrickDestroyedListener(Listener<BrickDestroyed> listener) {
+        this.destroyedListeners.add(listener);
+    }
+
+    /**
+     * Keeps track of when the player loses, which is when the last ball in play leaves the field
+     * @param listener called with each life lost
+     */
+    public void addLifeLostListener(Listener<LifeLost> listener) {
+        this.lostListeners.add(listener);
+    }
+
+    /**
+     * Keeps track of when all the bricks are cleared
+     * @param listener called with each cleared level
+     */
+    public void addLevelClearedListener(Listener<LevelCleared> listener) {
+        this.clearedListeners.add(listener);
+    }
+
+    /**
+     * Queues a brick hit
+     * @param brick the brick index
+     * @param damage the brick's damage after the hit
+     */
+    public void postBrickDamaged(int brick, int damage) {
+        if(this.pending[Kind.BRICK_DAMAGED.ordinal()] == this.damaged.length) {
+            this.damaged = fill(Arrays.copyOf(this.damaged, this.damaged.length * 2), this.damaged.length,
+                    BrickDamaged::new);
+        }
+        BrickDamaged event = this.damaged[enqueue(Kind.BRICK_DAMAGED)];
+        event.brick = brick;
+        event.damage = damage;
+    }
+
+    /**
+     * Queues a destroyed brick
+     * @param brick the brick index
+     * @param cleared how many bricks are destroyed, counting this one
+     */
+    public void postBrickDestroyed(int brick, int cleared) {
+        if(this.pending[Kind.BRICK_DESTROYED.ordinal()] == this.destroyed.length) {
+            this.destroyed = fill(Arrays.copyOf(this.destroyed, this.destroyed.length * 2), this.destroyed.length,
+                    BrickDestroyed::new);
+        }
+        BrickDestroyed event = this.destroyed[enqueue(Kind.BRICK_DESTROYED)];
+        event.brick = brick;
+        event.cleared = cleared;
+    }
+
+    /**
+     * Queues a lost life
+     * @param x where the last ball left the field
+     */
+    public void postLifeLost(double x) {
+        if(this.pending[Kind.LIFE_LOST.ordinal()] == this.lost.length) {
+            this.lost = fill(Arrays.copyOf(this.lost, this.lost.length * 2), this.lost.length, LifeLost::new);
+        }
+        LifeLost event = this.lost[enqueue(Kind.LIFE_LOST)];
+        event.x = x;
+    }
+
+    /**
+     * Queues a cleared level
+     * @param brick the brick destroyed last
+     */
+    public void postLevelCleared(int brick) {
+        if(this.pending[Kind.LEVEL_CLEARED.ordinal()] == this.cleared.length) {
+            this.cleared = fill(Arrays.copyOf(this.cleared, this.cleared.length * 2), this.cleared.length,
+                    LevelCleared::new);
+        }
+        LevelCleared event = this.cleared[enqueue(Kind.LEVEL_CLEARED)];
+        event.brick = brick;
+    }
+
+    /**
+     * Records the order of an event being posted
+     * @param kind the event's kind
+     * @return the slot the event takes in its kind's pool
+     */
+    private int enqueue(Kind kind) {
+        if(this.size == this.order.length) {
+            this.order = Arrays.copyOf(this.order, this.order.length * 2);
+        }
+        this.order[this.size++] = (byte)kind.ordinal();
+        this.posted[kind.ordinal()]++;
+        return this.pending[kind.ordinal()]++;
+    }
+
+    /**
+     * Hands every queued event to its listeners in the order they were posted, then empties the queue. Events
+     * posted by a listener are dispatched in the same batch
+     * @return the number of events dispatched
+     */
+    public int dispatch() {
+        this.tick++;
+        if(this.size == 0) {
+            return 0;
+        }
+
+        final long start = System.nanoTime();
+        final int[] next = this.cursors;
+        Arrays.fill(next, 0);
+        int e = 0;
+        for(; e < this.size; e++) {
+            final Kind kind = KINDS[this.order[e]];
+            final int slot = next[kind.ordinal()]++;
+            switch(kind) {
+                case BRICK_DAMAGED:
+                    notify(this.damagedListeners, this.damaged[slot]);
+                    break;
+                case BRICK_DESTROYED:
+                    notify(this.destroyedListeners, this.destroyed[slot]);
+                    break;
+                case LIFE_LOST:
+                    notify(this.lostListeners, this.lost[slot]);
+                    break;
+                case LEVEL_CLEARED:
+                    notify(this.clearedListeners, this.cleared[slot]);
+                    break;
+            }
+        }
+
+        this.size = 0;
+        Arrays.fill(this.pending, 0);
+        this.dispatched += e;
+        this.largestBatch = Math.max(this.largestBatch, e);
+        this.dispatchNanos += System.nanoTime() - start;
+        return e;
+    }
+
+    /**
+     * Calls each listener with an event
+     * @param listeners the listeners
+     * @param event the event
+     */
+    private <E extends Event> void notify(List<Listener<E>> listeners, E event) {
+        ((Event)event).tick = this.tick;
+        for(int l = 0; l < listeners.size(); l++) {
+            listeners.get(l).handle(event);
+        }
+    }
+
+    /**
+     * Drops queued events without dispatching them
+     */
+    public void clear() {
+        this.size = 0;
+        Arrays.fill(this.pending, 0);
+    }
+
+    /**
+     * Gets the number of events waiting for the end of the tick
+     * @return the event count
+     */
+    public int getPending() {
+        return this.size;
+    }
+
+    /**
+     * Gets the number of events of one kind posted so far
+     * @param kind the kind
+     * @return the event count
+     */
+    public long getPosted(Kind kind) {
+        return this.posted[kind.ordinal()];
+    }
+
+    /**
+     * Gets the number of events handed to listeners so far
+     * @return the event count
+     */
+    public long getDispatched() {
+        return this.dispatched;
+    }
+
+    /**
+     * Gets the number of ticks dispatched so far, with or without events
+     * @return the tick count
+     */
+    public long getTicks() {
+        return this.tick;
+    }
+
+    /**
+     * Gets the most events dispatched in one tick
+     * @return the event count
+     */
+    public int getLargestBatch() {
+        return this.largestBatch;
+    }
+
+    /**
+     * Gets the time spent dispatching, including the time the listeners took
+     * @return the time in nanoseconds
+     */
+    public long getDispatchNanos() {
+        return this.dispatchNanos;
+    }
+
+    /**
+     * Formats the counters
+     * @return one line of text
+     */
+    public String summary() {
+        StringBuilder text = new StringBuilder();
+        for(Kind kind : KINDS) {
+            text.append(kind.name().toLowerCase()).append(' ').append(this.posted[kind.ordinal()]).append(", ");
+        }
+        return text.append(this.dispatched).append(" dispatched in ").append(this.tick).append(" ticks, ")
+                .append(this.largestBatch).append(" at most, ")
+                .append(this.dispatched == 0 ? 0 : this.dispatchNanos / this.dispatched).append(" ns each")
+                .toString();
+    }
+
+    /**
+     * Allocates the events of a pool from an index on
+     * @param pool the pool
+     * @param from the first empty slot
+     * @param factory creates an event
+     * @return the pool
+     */
+    private static <E extends Event> E[] fill(E[] pool, int from, Supplier<E> factory) {
+        for(int i = from; i < pool.length; i++) {
+            pool[i] = factory.get();
+        }
+        return pool;
+    }
+
+}
@@ -0,0 +1,105 @@
+package application;
+
+/**
+ * A GameResult class that holds where a game stood when it levelled up, lost a life or ended
+ */
+public final class GameResult {
+
+    /**
+     * What produced the result
+     */
+    public enum Kind { LEVEL_UP, LIFE_LOST, GAME_OVER }
+
+    private final long game;
+    private final Kind kind;
+    private final int level;
+    private final int lives;
+    private final long duration;
+    private final long seed;
+    private final long time;
+
+    /**
+     * Constructor of the GameResult class
+     * @param game the game's number within the session
+     * @param kind what produced the result
+     * @param level the level reached
+     * @param lives the lives left
+     * @param duration the time played so far in milliseconds
+     * @param seed the game's seed
+     * @param time when the result was produced, in milliseconds since the epoch
+     */
+    public GameResult(long game, Kind kind, int level, int lives, long duration, long seed, long time) {
+        this.game = game;
+        this.kind = kind;
+        this.level = level;
+        this.lives = lives;
+        this.duration = duration;
+        this.seed = seed;
+        this.time = time;
+    }
+
+    /**
+     * Gets the game's number within the session
+     * @return the game number
+     */
+    public long getGame() {
+        return this.game;
+    }
+
+    /**
+     * Gets what produced the result
+     * @return the kind
+     */
+    public Kind getKind() {
+        return this.kind;
+    }
+
+    /**
+     * Checks if the game is over
+     * @return true if this is the game's last result & vice versa
+     */
+    public boolean isFinal() {
+        return this.kind == Kind.GAME_OVER;
+    }
+
+    /**
+     * Gets the level reached
+     * @return the level
+     */
+    public int getLevel() {
+        return this.level;
+    }
+
+    /**
+     * Gets the lives left
+     * @return the lives
+     */
+    public int getLives() {
+        return this.lives;
+    }
+
+    /**
+     * Gets the time played so far
+     * @return the duration in milliseconds
+     */
+    public long getDuration() {
+        return this.duration;
+    }
+
+    /**
+     * Gets the game's seed
+     * @return the seed
+     */
+    public long getSeed() {
+        return this.seed;
+    }
+
+    /**
+     * Gets when the result was produced
+     * @return the time in milliseconds since the epoch
+     */
+    public long getTime() {
+        return this.time;
+    }
+
+}
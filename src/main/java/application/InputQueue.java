@@ -0,0 +1,111 @@
+package application;
+
+import java.util.concurrent.atomic.AtomicLong;
+import javafx.scene.input.KeyCode;
+
+/**
+ * An InputQueue class that buffers timestamped key presses and releases in a preallocated ring buffer until a tick applies them
+ *
+ * Events are offered by the key handlers and polled by the game loop, in the order they happened. When the buffer
+ * is full new events are dropped and counted rather than blocking the handler.
+ */
+public class InputQueue {
+
+    private static final KeyCode[] CODES = KeyCode.values();
+
+    private final int mask;
+    private final long[] times;
+    private final short[] codes;
+    private final boolean[] presses;
+
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    private long time;
+    private KeyCode code;
+    private boolean press;
+
+    /**
+     * Constructor of the InputQueue class
+     * @param capacity the number of buffered events, rounded up to a power of two
+     */
+    public InputQueue(int capacity) {
+        final int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.mask = size - 1;
+        this.times = new long[size];
+        this.codes = new short[size];
+        this.presses = new boolean[size];
+    }
+
+    /**
+     * Queues a key event without blocking, dropping it if the buffer is full
+     * @param code the key
+     * @param press true for a press & false for a release
+     * @param time when the event happened, in System.nanoTime nanoseconds
+     */
+    public void offer(KeyCode code, boolean press, long time) {
+        final long t = this.tail.get();
+        if(t - this.head.get() > this.mask) {
+            this.dropped.incrementAndGet();
+            return;
+        }
+
+        final int slot = (int)(t & this.mask);
+        this.times[slot] = time;
+        this.codes[slot] = (short)code.ordinal();
+        this.presses[slot] = press;
+        this.tail.lazySet(t + 1);
+    }
+
+    /**
+     * Takes the oldest event, making it readable through getCode, isPress and getTime
+     * @return true if there was an event & false if the queue was empty
+     */
+    public boolean poll() {
+        final long h = this.head.get();
+        if(h == this.tail.get()) {
+            return false;
+        }
+
+        final int slot = (int)(h & this.mask);
+        this.time = this.times[slot];
+        this.code = CODES[this.codes[slot]];
+        this.press = this.presses[slot];
+        this.head.lazySet(h + 1);
+        return true;
+    }
+
+    /**
+     * Gets the key of the last polled event
+     * @return the key
+     */
+    public KeyCode getCode() {
+        return this.code;
+    }
+
+    /**
+     * Checks if the last polled event was a press
+     * @return true for a press & false for a release
+     */
+    public boolean isPress() {
+        return this.press;
+    }
+
+    /**
+     * Gets when the last polled event happened
+     * @return the time in System.nanoTime nanoseconds
+     */
+    public long getTime() {
+        return this.time;
+    }
+
+    /**
+     * Gets the number of events dropped because the buffer was full
+     * @return the dropped event count
+     */
+    public long getDropped() {
+        return this.dropped.get();
+    }
+
+}
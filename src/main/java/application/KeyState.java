@@ -0,0 +1,57 @@
+package application;
+
+import javafx.scene.input.KeyCode;
+
+/**
+ * A KeyState class that tracks every held key in a bitset indexed by key code
+ *
+ * A key pressed and released within one tick still reads as down for that tick, so short taps are not lost.
+ */
+public class KeyState {
+
+    private final long[] down = new long[(KeyCode.values().length + 63) >>> 6];
+    private final long[] tapped = new long[this.down.length];
+
+    /**
+     * Marks a key as held
+     * @param code the key
+     * @return true if the key was not already held & false for a repeat
+     */
+    public boolean press(KeyCode code) {
+        final int k = code.ordinal();
+        final long bit = 1L << k;
+        final boolean wasDown = (this.down[k >>> 6] & bit) != 0;
+        this.down[k >>> 6] |= bit;
+        this.tapped[k >>> 6] |= bit;
+        return !wasDown;
+    }
+
+    /**
+     * Marks a key as released
+     * @param code the key
+     */
+    public void release(KeyCode code) {
+        final int k = code.ordinal();
+        this.down[k >>> 6] &= ~(1L << k);
+    }
+
+    /**
+     * Forgets the keys pressed during the previous tick, keeping the ones still held
+     */
+    public void beginTick() {
+        for(int w = 0; w < this.tapped.length; w++) {
+            this.tapped[w] = 0;
+        }
+    }
+
+    /**
+     * Checks if a key is held, or was pressed during the current tick
+     * @param code the key
+     * @return true if the key is down & vice versa
+     */
+    public boolean isDown(KeyCode code) {
+        final int k = code.ordinal();
+        return ((this.down[k >>> 6] | this.tapped[k >>> 6]) & (1L << k)) != 0;
+    }
+
+}
@@ -0,0 +1,149 @@
+package application;
+
+/**
+ * A LevelLayout class that describes one board: a grid of cells where each cell holds a brick's hit points or is empty
+ */
+public class LevelLayout {
+
+    private final int columns;
+    private final int rows;
+    private final double x;
+    private final double y;
+    private final double cellWidth;
+    private final double cellHeight;
+    private final double gap;
+    private final byte[] hitPoints;
+
+    /**
+     * Constructor of the LevelLayout class
+     * @param columns the number of columns
+     * @param rows the number of rows
+     * @param x the left edge of the board
+     * @param y the top edge of the board
+     * @param cellWidth the width of a cell
+     * @param cellHeight the height of a cell
+     * @param gap the space left between neighbouring bricks
+     * @param hitPoints the hit points of each cell row by row, 0 for an empty cell
+     */
+    public LevelLayout(int columns, int rows, double x, double y, double cellWidth, double cellHeight, double gap,
+            byte[] hitPoints) {
+        if(columns < 0 || rows < 0 || hitPoints.length != columns * rows) {
+            throw new IllegalArgumentException("expected " + columns + "x" + rows + " cells, got " + hitPoints.length);
+        }
+        this.columns = columns;
+        this.rows = rows;
+        this.x = x;
+        this.y = y;
+        this.cellWidth = cellWidth;
+        this.cellHeight = cellHeight;
+        this.gap = gap;
+        this.hitPoints = hitPoints;
+    }
+
+    /**
+     * Gets the number of columns
+     * @return the number of columns
+     */
+    public int getColumns() {
+        return this.columns;
+    }
+
+    /**
+     * Gets the number of rows
+     * @return the number of rows
+     */
+    public int getRows() {
+        return this.rows;
+    }
+
+    /**
+     * Gets the left edge of the board
+     * @return the left edge
+     */
+    public double getX() {
+        return this.x;
+    }
+
+    /**
+     * Gets the top edge of the board
+     * @return the top edge
+     */
+    public double getY() {
+        return this.y;
+    }
+
+    /**
+     * Gets the width of a cell
+     * @return the cell width
+     */
+    public double getCellWidth() {
+        return this.cellWidth;
+    }
+
+    /**
+     * Gets the height of a cell
+     * @return the cell height
+     */
+    public double getCellHeight() {
+        return this.cellHeight;
+    }
+
+    /**
+     * Gets the space left between neighbouring bricks
+     * @return the gap
+     */
+    public double getGap() {
+        return this.gap;
+    }
+
+    /**
+     * Gets the hit points of a cell
+     * @param row the row
+     * @param column the column
+     * @return the hit points, 0 for an empty cell
+     */
+    public int getHitPoints(int row, int column) {
+        return this.hitPoints[row * this.columns + column] & 0xFF;
+    }
+
+    /**
+     * Gets the number of bricks on the board
+     * @return the number of non-empty cells
+     */
+    public int getBrickCount() {
+        int count = 0;
+        for(byte hp : this.hitPoints) {
+            if(hp != 0) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Loads the board into a brick field, numbering bricks row by row
+     * @param field the brick field
+     * @param paletteRows the number of palette rows, which repeat down the board
+     * @param paletteColumns the number of palette columns, which repeat across the board
+     */
+    public void applyTo(BrickField field, int paletteRows, int paletteColumns) {
+        field.resize(getBrickCount());
+
+        int i = 0;
+        for(int r = 0; r < this.rows; r++) {
+            for(int c = 0; c < this.columns; c++) {
+                final int hp = getHitPoints(r, c);
+                if(hp == 0) {
+                    continue;
+                }
+                field.setBounds(i, this.x + c * this.cellWidth + this.gap / 2, this.y + r * this.cellHeight + this.gap / 2,
+                        this.cellWidth - this.gap, this.cellHeight - this.gap);
+                field.setHitPoints(i, hp);
+                field.setStyle(i, (r % paletteRows) * paletteColumns + c % paletteColumns);
+                i++;
+            }
+        }
+        field.reset();
+    }
+
+}
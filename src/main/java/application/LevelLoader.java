@@ -0,0 +1,94 @@
+package application;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * A LevelLoader class that builds the next level from a pack on a worker thread while the current one is shown
+ *
+ * Two brick fields take turns: the one being played and a spare that the worker decodes the next level into,
+ * along with its collision grid. Taking the built level hands the spare over whole, so the game thread never
+ * sees a half-built board, and the field it replaces becomes the next spare.
+ */
+public class LevelLoader {
+
+    private final LevelPack pack;
+    private final int paletteRows;
+    private final int paletteColumns;
+    private final ExecutorService worker;
+
+    private BrickField spare;
+    private CompletableFuture<BrickField> pending;
+    private int pendingLevel = -1;
+
+    /**
+     * Constructor of the LevelLoader class that starts the worker thread
+     * @param pack the level pack
+     * @param spare the field the first level is built into
+     * @param paletteRows the number of palette rows, which repeat down the board
+     * @param paletteColumns the number of palette columns, which repeat across the board
+     */
+    public LevelLoader(LevelPack pack, BrickField spare, int paletteRows, int paletteColumns) {
+        this.pack = pack;
+        this.spare = spare;
+        this.paletteRows = paletteRows;
+        this.paletteColumns = paletteColumns;
+        this.worker = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "level-loader");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Starts building a level into the spare field, replacing any level still being prepared
+     * @param n the level, counting from 0
+     */
+    public void prepare(int n) {
+        final BrickField field = this.spare;
+        this.pendingLevel = n;
+        // the worker runs builds one at a time, so a replaced build finishes before the new one reuses the field
+        this.pending = CompletableFuture.supplyAsync(() -> {
+            this.pack.getLevel(n).applyTo(field, this.paletteRows, this.paletteColumns);
+            field.buildIndex();
+            return field;
+        }, this.worker);
+    }
+
+    /**
+     * Takes a prepared level, waiting for the worker if it has not finished
+     * @param n the level, counting from 0
+     * @param current the field being played, which becomes the spare
+     * @return the built field, or null if that level is not the one being prepared
+     * @throws IllegalArgumentException if the level could not be built, which leaves the spare to the next prepare
+     */
+    public BrickField take(int n, BrickField current) {
+        if(this.pending == null || this.pendingLevel != n) {
+            return null;
+        }
+
+        final CompletableFuture<BrickField> built = this.pending;
+        this.pending = null;
+        this.pendingLevel = -1;
+        final BrickField field;
+        try {
+            field = built.join();
+        }
+        catch(CompletionException e) {
+            throw new IllegalArgumentException("cannot build level " + n + ": " + e.getCause().getMessage(),
+                    e.getCause());
+        }
+        this.spare = current;
+        return field;
+    }
+
+    /**
+     * Stops the worker thread
+     */
+    public void close() {
+        this.worker.shutdownNow();
+    }
+
+}
@@ -0,0 +1,278 @@
+package application;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A LevelPack class that reads levels from a memory-mapped binary pack file
+ *
+ * A pack is a 12 byte header (the magic "BBLP", a version, two reserved bytes and the level count),
+ * an index of one (offset, length) int pair per level, then the level records. A record holds the
+ * column and row counts as unsigned shorts, the board's x, y, cell width, cell height and gap as floats,
+ * and one hit point byte per cell row by row. All values are big-endian.
+ *
+ * Opening a pack only maps the file and reads the header; a level is decoded when it is asked for.
+ */
+public class LevelPack {
+
+    public static final int MAGIC = 0x42424C50;
+    public static final int VERSION = 1;
+
+    private static final int HEADER_SIZE = 12;
+    private static final int INDEX_ENTRY_SIZE = 8;
+    private static final int RECORD_HEADER_SIZE = 24;
+
+    private final ByteBuffer data;
+    private final int levelCount;
+
+    /**
+     * Constructor of the LevelPack class that checks the header of an encoded pack
+     * @param data the encoded pack
+     */
+    public LevelPack(ByteBuffer data) {
+        if(data.limit() < HEADER_SIZE || data.getInt(0) != MAGIC) {
+            throw new IllegalArgumentException("not a level pack");
+        }
+        if(data.getShort(4) != VERSION) {
+            throw new IllegalArgumentException("unsupported level pack version " + data.getShort(4));
+        }
+        this.data = data;
+        this.levelCount = data.getInt(8);
+        if(this.levelCount < 0 || HEADER_SIZE + (long)this.levelCount * INDEX_ENTRY_SIZE > data.limit()) {
+            throw new IllegalArgumentException("level pack index is truncated");
+        }
+    }
+
+    /**
+     * Maps a pack file into memory
+     * @param file the pack file
+     * @return the pack
+     * @throws IOException if the file cannot be read
+     */
+    public static LevelPack open(Path file) throws IOException {
+        try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            // the mapping stays valid after the channel is closed
+            return new LevelPack(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Gets the number of levels in the pack
+     * @return the level count
+     */
+    public int getLevelCount() {
+        return this.levelCount;
+    }
+
+    /**
+     * Decodes one level
+     * @param n the level, counting from 0
+     * @return the level layout
+     * @throws IllegalArgumentException if the level is damaged or has no bricks
+     */
+    public LevelLayout getLevel(int n) {
+        if(n < 0 || n >= this.levelCount) {
+            throw new IndexOutOfBoundsException("level " + n + " of " + this.levelCount);
+        }
+
+        final int entry = HEADER_SIZE + n * INDEX_ENTRY_SIZE;
+        final int offset = this.data.getInt(entry);
+        final int length = this.data.getInt(entry + 4);
+        if(offset < 0 || length < RECORD_HEADER_SIZE || (long)offset + length > this.data.limit()) {
+            throw new IllegalArgumentException("level " + n + " lies outside the pack");
+        }
+
+        // absolute reads on a private view leave the shared buffer's position alone
+        ByteBuffer record = this.data.duplicate();
+        final int columns = record.getShort(offset) & 0xFFFF;
+        final int rows = record.getShort(offset + 2) & 0xFFFF;
+        if(length != RECORD_HEADER_SIZE + columns * rows) {
+            throw new IllegalArgumentException("level " + n + " has the wrong length");
+        }
+
+        byte[] hitPoints = new byte[columns * rows];
+        record.position(offset + RECORD_HEADER_SIZE);
+        record.get(hitPoints);
+        LevelLayout level = new LevelLayout(columns, rows, record.getFloat(offset + 4), record.getFloat(offset + 8),
+                record.getFloat(offset + 12), record.getFloat(offset + 16), record.getFloat(offset + 20), hitPoints);
+        // a level without bricks could never be cleared
+        if(level.getBrickCount() == 0) {
+            throw new IllegalArgumentException("level " + n + " has no bricks");
+        }
+        return level;
+    }
+
+    /**
+     * Encodes levels as a pack
+     * @param levels the levels
+     * @return the encoded pack
+     */
+    public static ByteBuffer encode(List<LevelLayout> levels) {
+        int size = HEADER_SIZE + levels.size() * INDEX_ENTRY_SIZE;
+        for(LevelLayout level : levels) {
+            size += RECORD_HEADER_SIZE + level.getColumns() * level.getRows();
+        }
+
+        ByteBuffer out = ByteBuffer.allocate(size);
+        out.putInt(MAGIC).putShort((short)VERSION).putShort((short)0).putInt(levels.size());
+
+        int offset = HEADER_SIZE + levels.size() * INDEX_ENTRY_SIZE;
+        for(LevelLayout level : levels) {
+            final int length = RECORD_HEADER_SIZE + level.getColumns() * level.getRows();
+            out.putInt(offset).putInt(length);
+            offset += length;
+        }
+
+        for(LevelLayout level : levels) {
+            out.putShort((short)level.getColumns()).putShort((short)level.getRows());
+            out.putFloat((float)level.getX()).putFloat((float)level.getY());
+            out.putFloat((float)level.getCellWidth()).putFloat((float)level.getCellHeight());
+            out.putFloat((float)level.getGap());
+            for(int r = 0; r < level.getRows(); r++) {
+                for(int c = 0; c < level.getColumns(); c++) {
+                    out.put((byte)level.getHitPoints(r, c));
+                }
+            }
+        }
+        out.flip();
+        return out;
+    }
+
+    /**
+     * Reads levels from their text form
+     *
+     * Each level starts with a line such as "level x=0 y=50 cell=106.67x56.25 gap=4" followed by one line
+     * per row, where a digit is a brick's hit points and '.' is an empty cell. Lines starting with '#' are ignored.
+     *
+     * @param lines the text
+     * @return the levels
+     */
+    public static List<LevelLayout> parse(List<String> lines) {
+        List<LevelLayout> levels = new ArrayList<LevelLayout>();
+        List<String> rows = new ArrayList<String>();
+        double[] header = null;
+
+        for(String line : lines) {
+            line = line.trim();
+            if(line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            if(line.startsWith("level")) {
+                if(header != null) {
+                    levels.add(toLayout(header, rows, levels.size()));
+                }
+                header = parseHeader(line);
+                rows.clear();
+            }
+            else if(header == null) {
+                throw new IllegalArgumentException("row before the first level line: " + line);
+            }
+            else {
+                rows.add(line);
+            }
+        }
+        if(header != null) {
+            levels.add(toLayout(header, rows, levels.size()));
+        }
+        return levels;
+    }
+
+    /**
+     * Reads the settings of a level line
+     * @param line the level line
+     * @return the x, y, cell width, cell height and gap
+     */
+    private static double[] parseHeader(String line) {
+        double[] header = {0, 0, 0, 0, 0};
+        for(String setting : line.substring("level".length()).trim().split("\\s+")) {
+            if(setting.isEmpty()) {
+                continue;
+            }
+            String[] pair = setting.split("=", 2);
+            if(pair.length != 2) {
+                throw new IllegalArgumentException("bad setting: " + setting);
+            }
+            switch(pair[0]) {
+                case "x": header[0] = Double.parseDouble(pair[1]); break;
+                case "y": header[1] = Double.parseDouble(pair[1]); break;
+                case "cell":
+                    String[] size = pair[1].split("x", 2);
+                    header[2] = Double.parseDouble(size[0]);
+                    header[3] = Double.parseDouble(size[size.length - 1]);
+                    break;
+                case "gap": header[4] = Double.parseDouble(pair[1]); break;
+                default: throw new IllegalArgumentException("unknown setting: " + pair[0]);
+            }
+        }
+        if(header[2] <= 0 || header[3] <= 0) {
+            throw new IllegalArgumentException("level needs a cell size: " + line);
+        }
+        return header;
+    }
+
+    /**
+     * Builds a level from its settings and rows
+     * @param header the x, y, cell width, cell height and gap
+     * @param rows the rows of cells
+     * @param n the level, counting from 0
+     * @return the level layout
+     * @throws IllegalArgumentException if a cell is not a digit or a dot, or the level has no bricks
+     */
+    private static LevelLayout toLayout(double[] header, List<String> rows, int n) {
+        int columns = 0;
+        for(String row : rows) {
+            columns = Math.max(columns, row.length());
+        }
+
+        byte[] hitPoints = new byte[columns * rows.size()];
+        for(int r = 0; r < rows.size(); r++) {
+            String row = rows.get(r);
+            for(int c = 0; c < row.length(); c++) {
+                final char cell = row.charAt(c);
+                if(cell >= '1' && cell <= '9') {
+                    hitPoints[r * columns + c] = (byte)(cell - '0');
+                }
+                else if(cell != '.') {
+                    throw new IllegalArgumentException("bad cell '" + cell + "' in row: " + row);
+                }
+            }
+        }
+        LevelLayout level = new LevelLayout(columns, rows.size(), header[0], header[1], header[2], header[3], header[4],
+                hitPoints);
+        if(level.getBrickCount() == 0) {
+            throw new IllegalArgumentException("level " + n + " has no bricks");
+        }
+        return level;
+    }
+
+    /**
+     * Compiles a text level file into a pack file
+     * @param args the text file and the pack file
+     * @throws IOException if a file cannot be read or written
+     */
+    public static void main(String[] args) throws IOException {
+        if(args.length != 2) {
+            System.out.println("usage: LevelPack <levels.txt> <levels.bbl>");
+            return;
+        }
+
+        List<LevelLayout> levels = parse(Files.readAllLines(Paths.get(args[0]), StandardCharsets.UTF_8));
+        ByteBuffer pack = encode(levels);
+        try(FileChannel out = FileChannel.open(Paths.get(args[1]), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while(pack.hasRemaining()) {
+                out.write(pack);
+            }
+        }
+        System.out.println(levels.size() + " levels written to " + args[1]);
+    }
+
+}
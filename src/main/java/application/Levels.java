@@ -1,14 +0,0 @@
-
-package application;
-
-/**
- * A Levels interface that keeps track of win and loss
- */
-public interface Levels {
-    
-    /**
-     * Handles the level 
-     */
-    void handleLevelingEvent();
-    
-}
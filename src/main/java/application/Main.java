@@ -1,15 +1,14 @@
 package application;
 
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.event.ActionEvent;
 import javafx.event.EventHandler;
-import javafx.fxml.FXMLLoader;
-import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.scene.control.Button;
+import javafx.scene.control.ProgressBar;
 import javafx.scene.control.Label;
 import javafx.scene.effect.InnerShadow;
-import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
 import javafx.scene.layout.Pane;
 import javafx.scene.paint.Color;
@@ -51,16 +50,15 @@ public class Main extends Application {
 
 			public void handle(ActionEvent event) {
 
-				Parent root = null;
+				Scene scene = null;
 
 				try {
-					root = FXMLLoader.load(getClass().getResource("/brickbreaker.fxml"));
+					scene = SceneCache.getDefault().takeGame();
 				} catch (java.io.IOException e) {
 					System.out.println(e);
 					System.exit(1);
 				}
 
-				Scene scene = new Scene(root, 640, 600);
 				Game game = new BrickBreaker(primaryStage, scene);
 				primaryStage.setTitle(game.getTitle());
 				primaryStage.setResizable(false);
@@ -78,16 +76,18 @@ public class Main extends Application {
 
 			@Override
 			public void handle(ActionEvent event) {
-				Parent root = null;
+				Scene scene = null;
 
 				try {
-					root = FXMLLoader.load(getClass().getResource("/table.fxml"));
+					scene = SceneCache.getDefault().getLeaderboard();
 				} catch (java.io.IOException e) {
+					System.out.println(e);
+					return;
 				}
 
-				Scene scene = new Scene(root, 600, 400);
-				Game game = new BrickBreaker(primaryStage, scene);
-				primaryStage.setTitle(game.getTitle());
+				primaryStage.setScene(scene);
+				primaryStage.sizeToScene();
+				primaryStage.setTitle("Brick-Breaker");
 				primaryStage.setResizable(false);
 
 				primaryStage.show();
@@ -107,8 +107,8 @@ public class Main extends Application {
 							+ "\nControl the paddle using the LEFT and RIGHT arrow keys on your keyboard." + "\n"
 							+ "\nDon't let the ball hit the bottom of the screen, otherwise you lose a life."
 							+ "\nYou have 5 lives."
-							+ "\n\nIf you lose, press ESC to quit and restart the game "
-							+ "\nto enter your score in the Leaderboard"
+							+ "\n\nWhen the game ends your score goes on the Leaderboard."
+							+ "\nPress ESC to quit and restart the game."
 							+"\n\nHave fun!! :)");
 
 		});
@@ -117,16 +117,42 @@ public class Main extends Application {
 		closeButton.setOnAction(e -> window.close());
 		closeButton.relocate(343, 600);
 
-		Image img = new Image("file:back.jpeg");
-		ImageView mv = new ImageView(img);
+		// the background loads on an asset loader, so the menu shows without waiting for it
+		ImageView mv = new ImageView();
+		AssetManager.getDefault().image("/back.jpeg").whenLoaded(img -> Platform.runLater(() -> mv.setImage(img)));
+
+		ProgressBar loading = new ProgressBar(0);
+		loading.setPrefWidth(800);
+		loading.relocate(0, 792);
+		loading.setPrefHeight(8);
+		AssetManager.getDefault().addProgressListener(p -> Platform.runLater(() -> {
+			loading.setProgress(p);
+			loading.setVisible(p < 1);
+		}));
 
 		Pane layout = new Pane();
-		layout.getChildren().addAll(mv, title, play, tutorial, rankings, closeButton);
+		layout.getChildren().addAll(mv, title, play, tutorial, rankings, closeButton, loading);
 		Scene scene = new Scene(layout, 800, 800);
 		window.setScene(scene);
 		window.setResizable(false);
 		window.show();
 
+		// build the game and leaderboard scenes while the menu is up, then note when the menu first drew
+		SceneCache.getDefault().warmUp();
+		scene.addPostLayoutPulseListener(new Runnable() {
+			private boolean drawn;
+
+			@Override
+			public void run() {
+				if (!drawn) {
+					drawn = true;
+					EventLog.getDefault().log(EventLog.Level.DEBUG, EventLog.Event.FIRST_FRAME,
+							(int) SceneCache.sinceJvmStart());
+					Platform.runLater(() -> scene.removePostLayoutPulseListener(this));
+				}
+			}
+		});
+
 	}
 
 	/**
@@ -134,6 +160,10 @@ public class Main extends Application {
 	 */
 	@Override
 	public void stop() throws Exception {
+		ScoreSubmitter.closeDefault();
+		ScoreSync.closeDefault();
+		ScoreStore.closeDefault();
+		EventLog.closeDefault();
 		System.exit(0);
 	}
 
@@ -1,10 +1,6 @@
-
 package application;
 
 import javafx.scene.shape.Rectangle;
-import javafx.scene.shape.Circle;
-import javafx.scene.layout.Pane;
-import javafx.geometry.Bounds;
 
 /**
  * A Paddle class that handles the animation of the paddle object
@@ -12,13 +8,21 @@ import javafx.geometry.Bounds;
 public class Paddle {
     
     private Rectangle paddle;
+    private World world;
+    private double originX;
     
     /**
      * A constructor that creates the paddle object
      * @param paddle the paddle object
+     * @param world the world the paddle moves in
      */
-    public Paddle(Rectangle paddle) {
+    public Paddle(Rectangle paddle, World world) {
         this.paddle = paddle;
+        this.world = world;
+        this.originX = paddle.getLayoutX() + paddle.getX();
+        
+        world.setPaddleHome(this.originX + paddle.getTranslateX(), paddle.getLayoutY() + paddle.getY(), 
+                paddle.getWidth(), paddle.getHeight());
     }
     
     /**
@@ -27,47 +31,23 @@ public class Paddle {
      * @return true if paddle moved & vice versa
      */
     public boolean animate(double dx) {
-        Bounds bounds = this.paddle.getBoundsInParent();
-        final boolean atLeftBorder = bounds.getMinX() + dx <= 0;
-        final boolean atRightBorder = bounds.getMaxX() + dx >= ((Pane)this.paddle.getParent()).getWidth();
-        
-        if (!atLeftBorder && !atRightBorder) {
-            this.paddle.setTranslateX(this.paddle.getTranslateX() + dx);
-            return true;
-        }
-        else {
-            return false;
-        }
+        return this.world.movePaddle(dx);
     }
     
-    /** 
-     * Checks if there is a collision between the paddle and ball
-     * @param ball the ball object
-     * @return 1 for collision &  0 for vice versa
+    /**
+     * Copies the paddle's position from the world onto the Rectangle
+     * @param alpha the fraction of a tick to interpolate past the last snapshot
      */
-    public int checkCollision(Circle ball) {
-        Bounds ballBounds = ball.getBoundsInParent();
-        Bounds paddleBounds = this.paddle.getBoundsInParent();
-        
-        final double insideY = ballBounds.getMaxY() - paddleBounds.getMinY();
-        
-        if(ballBounds.intersects(paddleBounds)) {
-            if(insideY > 3) {
-                ball.setTranslateY(-(insideY - 3));
-            }
-            
-            return 1;
-        }
-        
-        return 0;
-    }   
+    public void render(double alpha) {
+        this.paddle.setTranslateX(this.world.getPaddleX(alpha) - this.originX);
+    }
     
     /**
      * Gets the paddle's x coordinate
      * @return the paddle's x coordinate
      */
     public double getTranslateX() { 
-        return this.paddle.getTranslateX(); 
+        return this.world.getPaddleX() - this.originX; 
     }
     
     /**
@@ -75,7 +55,7 @@ public class Paddle {
      * @param x the paddle's x coordinate
      */   
     public void setTranslateX(double x) { 
-        this.paddle.setTranslateX(x); 
+        this.world.setPaddleX(this.originX + x); 
     }
     
     /**
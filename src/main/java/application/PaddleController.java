@@ -0,0 +1,15 @@
+package application;
+
+/**
+ * A PaddleController interface that plays the paddle without a keyboard, for simulations and the autopilot
+ */
+public interface PaddleController {
+    
+    /**
+     * Chooses the input for the next tick
+     * @param world the world as the last tick left it
+     * @return the LEFT and RIGHT bits to pass to World.step
+     */
+    int input(World world);
+    
+}
@@ -0,0 +1,55 @@
+package application;
+
+import javafx.scene.Parent;
+import javafx.scene.Scene;
+import javafx.scene.control.Label;
+import javafx.scene.layout.Pane;
+
+/**
+ * A PerfOverlay class that shows the frame stats in a corner of the scene
+ */
+public class PerfOverlay {
+
+    private static final long REFRESH_NANOS = 250_000_000L;
+
+    private final Label label = new Label();
+    private long lastRefresh;
+
+    /**
+     * Creates the overlay on top of a scene whose root is a Pane
+     * @param scene the scene
+     */
+    public PerfOverlay(Scene scene) {
+        this.label.setVisible(false);
+        this.label.setMouseTransparent(true);
+        this.label.setStyle("-fx-font-family: monospace; -fx-font-size: 11px; -fx-text-fill: #fff; "
+                + "-fx-background-color: rgba(0, 0, 0, 0.6); -fx-padding: 4;");
+        this.label.relocate(4, 44);
+
+        Parent root = scene.getRoot();
+        if(root instanceof Pane) {
+            ((Pane)root).getChildren().add(this.label);
+        }
+    }
+
+    /**
+     * Shows or hides the overlay
+     */
+    public void toggle() {
+        this.label.setVisible(!this.label.isVisible());
+        this.lastRefresh = 0;
+    }
+
+    /**
+     * Refreshes the text a few times a second while visible
+     * @param stats the stats
+     * @param now the current time in nanoseconds
+     */
+    public void refresh(FrameStats stats, long now) {
+        if(this.label.isVisible() && now - this.lastRefresh >= REFRESH_NANOS) {
+            this.label.setText(stats.summary());
+            this.lastRefresh = now;
+        }
+    }
+
+}
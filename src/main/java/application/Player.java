@@ -6,6 +6,7 @@ import javafx.beans.property.*;
  * A Player class that manages input from the player
  */
 public class Player {
+	private long id;
 	private SimpleStringProperty playerName;
 	private SimpleStringProperty playerDate;
 	private SimpleIntegerProperty playerLevel;
@@ -22,6 +23,23 @@ public class Player {
 		this.playerLevel = new SimpleIntegerProperty(playerLevel);
 	}
 
+	/**
+	 * Constructor of the Player class for a score kept in the score store
+	 * @param score the stored score
+	 */
+	public Player(Score score) {
+		this(score.getName(), score.getDate(), score.getLevel());
+		this.id = score.getId();
+	}
+
+	/**
+	 * Gets the id of the stored score
+	 * @return the id, or 0 if the score is not stored
+	 */
+	public long getId() {
+		return id;
+	}
+
 	/**
 	 * Gets the player name
 	 * @return the player name
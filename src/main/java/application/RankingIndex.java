@@ -0,0 +1,313 @@
+package application;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A RankingIndex class that keeps every score in leaderboard order with O(log n) insert, remove, rank and select
+ *
+ * The scores form a treap whose nodes live in parallel arrays, each node counting the nodes below it, so the
+ * score at a rank and the rank of a score are found by one walk down the tree. A page is read by walking
+ * down to its first score and then on in order, so it costs O(log n) plus the page's length.
+ */
+public class RankingIndex {
+
+    private Score[] scores = new Score[64];
+    private int[] left = new int[64];
+    private int[] right = new int[64];
+    private int[] size = new int[64];
+    private int[] priority = new int[64];
+    private int[] stack = new int[64];
+
+    // node 0 stands for an empty subtree
+    private int root;
+    private int used = 1;
+    private int free;
+    private long seed = 0x5DEECE66DL;
+    private int splitLeft, splitRight;
+
+    private final Map<Long, Score> byId = new HashMap<Long, Score>();
+
+    /**
+     * Adds a score, unless one with the same id is already in
+     * @param score the score
+     */
+    public void add(Score score) {
+        if(this.byId.putIfAbsent(score.getId(), score) != null) {
+            return;
+        }
+        final int node = allocate(score);
+        split(this.root, score);
+        this.root = merge(merge(this.splitLeft, node), this.splitRight);
+    }
+
+    /**
+     * Removes a score
+     * @param id the score's id
+     * @return the score removed, or null if there was none with the id
+     */
+    public Score remove(long id) {
+        Score score = this.byId.remove(id);
+        if(score != null) {
+            this.root = erase(this.root, score);
+        }
+        return score;
+    }
+
+    /**
+     * Gets the number of scores
+     * @return the score count
+     */
+    public int size() {
+        return this.size[this.root];
+    }
+
+    /**
+     * Gets a score by id
+     * @param id the score's id
+     * @return the score, or null if there is none with the id
+     */
+    public Score find(long id) {
+        return this.byId.get(id);
+    }
+
+    /**
+     * Gets the leaderboard position of a score
+     * @param id the score's id
+     * @return the rank counting from 0, or -1 if there is no score with the id
+     */
+    public int rank(long id) {
+        Score score = this.byId.get(id);
+        if(score == null) {
+            return -1;
+        }
+
+        int rank = 0;
+        int t = this.root;
+        while(t != 0) {
+            final int c = Score.RANKING.compare(score, this.scores[t]);
+            if(c < 0) {
+                t = this.left[t];
+            }
+            else if(c > 0) {
+                rank += this.size[this.left[t]] + 1;
+                t = this.right[t];
+            }
+            else {
+                return rank + this.size[this.left[t]];
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Gets the score at a leaderboard position
+     * @param rank the rank counting from 0
+     * @return the score, or null if the rank is past the end
+     */
+    public Score get(int rank) {
+        if(rank < 0 || rank >= size()) {
+            return null;
+        }
+        int t = this.root;
+        while(true) {
+            final int l = this.size[this.left[t]];
+            if(rank < l) {
+                t = this.left[t];
+            }
+            else if(rank == l) {
+                return this.scores[t];
+            }
+            else {
+                rank -= l + 1;
+                t = this.right[t];
+            }
+        }
+    }
+
+    /**
+     * Reads a run of scores in leaderboard order
+     * @param offset the rank of the first score
+     * @param limit the most scores to read
+     * @param out receives the scores
+     * @return the number of scores read
+     */
+    public int page(int offset, int limit, List<Score> out) {
+        if(offset < 0 || offset >= size() || limit <= 0) {
+            return 0;
+        }
+
+        // walk down to the first score, stacking the nodes that come after it on the way
+        int depth = 0;
+        int t = this.root;
+        int k = offset;
+        while(t != 0) {
+            final int l = this.size[this.left[t]];
+            if(k <= l) {
+                depth = push(depth, t);
+                if(k == l) {
+                    break;
+                }
+                t = this.left[t];
+            }
+            else {
+                k -= l + 1;
+                t = this.right[t];
+            }
+        }
+
+        int read = 0;
+        while(depth > 0 && read < limit) {
+            final int n = this.stack[--depth];
+            out.add(this.scores[n]);
+            read++;
+            for(int c = this.right[n]; c != 0; c = this.left[c]) {
+                depth = push(depth, c);
+            }
+        }
+        return read;
+    }
+
+    /**
+     * Pushes a node on the walk stack
+     * @param depth the stack's depth
+     * @param node the node
+     * @return the new depth
+     */
+    private int push(int depth, int node) {
+        if(depth == this.stack.length) {
+            this.stack = Arrays.copyOf(this.stack, depth * 2);
+        }
+        this.stack[depth] = node;
+        return depth + 1;
+    }
+
+    /**
+     * Splits a subtree into the scores ranked before a key, left in splitLeft, and the rest, left in splitRight
+     * @param t the subtree
+     * @param key the key
+     */
+    private void split(int t, Score key) {
+        if(t == 0) {
+            this.splitLeft = 0;
+            this.splitRight = 0;
+            return;
+        }
+        if(Score.RANKING.compare(this.scores[t], key) < 0) {
+            split(this.right[t], key);
+            this.right[t] = this.splitLeft;
+            update(t);
+            this.splitLeft = t;
+        }
+        else {
+            split(this.left[t], key);
+            this.left[t] = this.splitRight;
+            update(t);
+            this.splitRight = t;
+        }
+    }
+
+    /**
+     * Joins two subtrees where every score in the first ranks before every score in the second
+     * @param a the first subtree
+     * @param b the second subtree
+     * @return the joined subtree
+     */
+    private int merge(int a, int b) {
+        if(a == 0) {
+            return b;
+        }
+        if(b == 0) {
+            return a;
+        }
+        if(this.priority[a] > this.priority[b]) {
+            this.right[a] = merge(this.right[a], b);
+            update(a);
+            return a;
+        }
+        this.left[b] = merge(a, this.left[b]);
+        update(b);
+        return b;
+    }
+
+    /**
+     * Removes a score from a subtree
+     * @param t the subtree
+     * @param key the score
+     * @return the subtree without the score
+     */
+    private int erase(int t, Score key) {
+        if(t == 0) {
+            return 0;
+        }
+        final int c = Score.RANKING.compare(key, this.scores[t]);
+        if(c == 0) {
+            final int joined = merge(this.left[t], this.right[t]);
+            release(t);
+            return joined;
+        }
+        if(c < 0) {
+            this.left[t] = erase(this.left[t], key);
+        }
+        else {
+            this.right[t] = erase(this.right[t], key);
+        }
+        update(t);
+        return t;
+    }
+
+    /**
+     * Recounts the nodes under a node
+     * @param t the node
+     */
+    private void update(int t) {
+        this.size[t] = 1 + this.size[this.left[t]] + this.size[this.right[t]];
+    }
+
+    /**
+     * Takes a node from the free list or the end of the arrays
+     * @param score the node's score
+     * @return the node
+     */
+    private int allocate(Score score) {
+        int n;
+        if(this.free != 0) {
+            n = this.free;
+            this.free = this.left[n];
+        }
+        else {
+            if(this.used == this.scores.length) {
+                final int capacity = this.used * 2;
+                this.scores = Arrays.copyOf(this.scores, capacity);
+                this.left = Arrays.copyOf(this.left, capacity);
+                this.right = Arrays.copyOf(this.right, capacity);
+                this.size = Arrays.copyOf(this.size, capacity);
+                this.priority = Arrays.copyOf(this.priority, capacity);
+            }
+            n = this.used++;
+        }
+
+        // SplitMix64 keeps the tree's shape the same from run to run
+        final long z = SplitMix64.mix(this.seed += SplitMix64.GAMMA);
+
+        this.scores[n] = score;
+        this.left[n] = 0;
+        this.right[n] = 0;
+        this.size[n] = 1;
+        this.priority[n] = (int)z;
+        return n;
+    }
+
+    /**
+     * Puts a node on the free list
+     * @param n the node
+     */
+    private void release(int n) {
+        this.scores[n] = null;
+        this.left[n] = this.free;
+        this.free = n;
+    }
+
+}
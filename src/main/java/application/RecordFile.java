@@ -0,0 +1,197 @@
+package application;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * A RecordFile class that appends checksummed records to a file and reads them back, cutting off a torn last record
+ *
+ * Records are framed the same way as in the score log: the payload's length, its CRC32, then the payload.
+ */
+public class RecordFile {
+
+    private static final int HEADER = 8;
+    private static final int MAX_RECORD = 1 << 16;
+
+    /**
+     * Receives the records read from a file
+     */
+    public interface Reader {
+        /**
+         * Reads one record
+         * @param in the record's payload
+         * @param end the file offset just after the record
+         * @throws IOException if the payload is not as expected
+         */
+        void read(DataInputStream in, long end) throws IOException;
+    }
+
+    private final Path path;
+    private final int magic;
+    private final FileChannel channel;
+    private long length;
+
+    /**
+     * Opens a file, creating it if there is none
+     * @param path the file
+     * @param magic the number the file starts with, telling its kind
+     * @throws IOException if the file cannot be opened or is of another kind
+     */
+    public RecordFile(Path path, int magic) throws IOException {
+        this.path = path;
+        this.magic = magic;
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        if(this.channel.size() < HEADER) {
+            reset();
+        }
+        else {
+            ByteBuffer header = ByteBuffer.allocate(HEADER);
+            this.channel.read(header, 0);
+            if(header.getInt(0) != magic) {
+                this.channel.close();
+                throw new IOException(path + " is not the expected kind of file");
+            }
+            this.length = this.channel.size();
+        }
+    }
+
+    /**
+     * Reads every record, then cuts the file off after the last intact one
+     * @param reader receives the records
+     * @throws IOException if the file cannot be read
+     */
+    public synchronized void scan(Reader reader) throws IOException {
+        // the stream shares the channel, so it is left open
+        DataInputStream in = new DataInputStream(new BufferedInputStream(
+                Channels.newInputStream(this.channel.position(HEADER)), 1 << 16));
+        CRC32 crc = new CRC32();
+        byte[] payload = new byte[256];
+        long position = HEADER;
+
+        try {
+            while(position + 8 <= this.length) {
+                final int size = in.readInt();
+                final int sum = in.readInt();
+                if(size <= 0 || size > MAX_RECORD || position + 8 + size > this.length) {
+                    break;
+                }
+                if(payload.length < size) {
+                    payload = new byte[size];
+                }
+                in.readFully(payload, 0, size);
+                crc.reset();
+                crc.update(payload, 0, size);
+                if((int)crc.getValue() != sum) {
+                    break;
+                }
+                position += 8 + size;
+                reader.read(new DataInputStream(new ByteArrayInputStream(payload, 0, size)), position);
+            }
+        }
+        catch(EOFException e) {
+            // a torn record; everything before it stands
+        }
+
+        if(position < this.length) {
+            this.channel.truncate(position);
+            this.length = position;
+        }
+    }
+
+    /**
+     * Appends records with one write
+     * @param payloads the records
+     * @param force whether to wait until they are on disk
+     * @return the file offset just after each record
+     * @throws IOException if the write fails
+     */
+    public synchronized long[] append(List<byte[]> payloads, boolean force) throws IOException {
+        final long[] ends = new long[payloads.size()];
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 * payloads.size());
+        DataOutputStream out = new DataOutputStream(bytes);
+        CRC32 crc = new CRC32();
+        long position = this.length;
+        for(int i = 0; i < ends.length; i++) {
+            final byte[] payload = payloads.get(i);
+            crc.reset();
+            crc.update(payload, 0, payload.length);
+            out.writeInt(payload.length);
+            out.writeInt((int)crc.getValue());
+            out.write(payload);
+            position += 8 + payload.length;
+            ends[i] = position;
+        }
+
+        write(ByteBuffer.wrap(bytes.toByteArray()), this.length);
+        this.length = position;
+        if(force) {
+            this.channel.force(false);
+        }
+        return ends;
+    }
+
+    /**
+     * Empties the file, leaving only its header
+     * @throws IOException if the file cannot be written
+     */
+    public synchronized void reset() throws IOException {
+        this.channel.truncate(0);
+        write(ByteBuffer.allocate(HEADER).putInt(0, this.magic), 0);
+        this.channel.force(false);
+        this.length = HEADER;
+    }
+
+    /**
+     * Gets the file's length
+     * @return the length in bytes
+     */
+    public synchronized long getLength() {
+        return this.length;
+    }
+
+    /**
+     * Gets the file
+     * @return the file's path
+     */
+    public Path getPath() {
+        return this.path;
+    }
+
+    /**
+     * Closes the file
+     */
+    public synchronized void close() {
+        try {
+            this.channel.close();
+        }
+        catch(IOException e) {
+            System.out.println(e);
+        }
+    }
+
+    /**
+     * Writes a buffer at an offset
+     * @param buffer the bytes
+     * @param position the offset
+     * @throws IOException if the write fails
+     */
+    private void write(ByteBuffer buffer, long position) throws IOException {
+        while(buffer.hasRemaining()) {
+            position += this.channel.write(buffer, position);
+        }
+    }
+
+}
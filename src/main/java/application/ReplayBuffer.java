@@ -0,0 +1,235 @@
+package application;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * A ReplayBuffer class that reads and writes the primitives of a replay log in a growable byte array
+ *
+ * Counts and small values are stored as unsigned LEB128 varints, signed values are zigzag encoded first,
+ * and doubles are stored as their raw bits so replayed state matches the recorded state exactly.
+ */
+public class ReplayBuffer {
+
+    private static final long FNV_OFFSET = 0xCBF29CE484222325L;
+    private static final long FNV_PRIME = 0x100000001B3L;
+
+    private byte[] data;
+    private int size;
+    private int position;
+
+    /**
+     * Constructor of the ReplayBuffer class for writing
+     * @param capacity the initial capacity in bytes
+     */
+    public ReplayBuffer(int capacity) {
+        this.data = new byte[Math.max(16, capacity)];
+    }
+
+    /**
+     * Constructor of the ReplayBuffer class for reading bytes already written
+     * @param data the bytes
+     */
+    public ReplayBuffer(byte[] data) {
+        this.data = data;
+        this.size = data.length;
+    }
+
+    /**
+     * Reads a whole replay file
+     * @param file the file
+     * @return a buffer positioned at the start of the file
+     * @throws IOException if the file cannot be read
+     */
+    public static ReplayBuffer read(Path file) throws IOException {
+        return new ReplayBuffer(Files.readAllBytes(file));
+    }
+
+    /**
+     * Writes everything written so far to a file
+     * @param file the file
+     * @throws IOException if the file cannot be written
+     */
+    public void writeTo(Path file) throws IOException {
+        Files.write(file, Arrays.copyOf(this.data, this.size));
+    }
+
+    /**
+     * Appends one byte
+     * @param b the byte
+     */
+    public void put(int b) {
+        if(this.size == this.data.length) {
+            this.data = Arrays.copyOf(this.data, this.data.length * 2);
+        }
+        this.data[this.size++] = (byte)b;
+    }
+
+    /**
+     * Appends an unsigned varint
+     * @param value the value, treated as unsigned
+     */
+    public void putVarLong(long value) {
+        while((value & ~0x7FL) != 0) {
+            put((int)(value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        put((int)value);
+    }
+
+    /**
+     * Appends a signed value as a zigzag varint, so small negative numbers stay short
+     * @param value the value
+     */
+    public void putSignedVarLong(long value) {
+        putVarLong((value << 1) ^ (value >> 63));
+    }
+
+    /**
+     * Appends a fixed eight byte value
+     * @param value the value
+     */
+    public void putLong(long value) {
+        for(int shift = 56; shift >= 0; shift -= 8) {
+            put((int)(value >>> shift));
+        }
+    }
+
+    /**
+     * Appends a double exactly
+     * @param value the value
+     */
+    public void putDouble(double value) {
+        putLong(Double.doubleToRawLongBits(value));
+    }
+
+    /**
+     * Reads one byte
+     * @return the byte, from 0 to 255
+     */
+    public int get() {
+        if(this.position >= this.size) {
+            throw new IllegalStateException("replay log ends early");
+        }
+        return this.data[this.position++] & 0xFF;
+    }
+
+    /**
+     * Reads an unsigned varint
+     * @return the value
+     */
+    public long getVarLong() {
+        long value = 0;
+        for(int shift = 0; shift < 64; shift += 7) {
+            final int b = get();
+            value |= (long)(b & 0x7F) << shift;
+            if((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalStateException("malformed varint");
+    }
+
+    /**
+     * Reads an unsigned varint that fits an int
+     * @return the value
+     */
+    public int getVarInt() {
+        return (int)getVarLong();
+    }
+
+    /**
+     * Reads a zigzag varint
+     * @return the value
+     */
+    public long getSignedVarLong() {
+        final long raw = getVarLong();
+        return (raw >>> 1) ^ -(raw & 1);
+    }
+
+    /**
+     * Reads a fixed eight byte value
+     * @return the value
+     */
+    public long getLong() {
+        long value = 0;
+        for(int i = 0; i < 8; i++) {
+            value = (value << 8) | get();
+        }
+        return value;
+    }
+
+    /**
+     * Reads a double
+     * @return the value
+     */
+    public double getDouble() {
+        return Double.longBitsToDouble(getLong());
+    }
+
+    /**
+     * Checks if there is anything left to read
+     * @return true if bytes remain & vice versa
+     */
+    public boolean hasRemaining() {
+        return this.position < this.size;
+    }
+
+    /**
+     * Gets the read position
+     * @return the offset of the next byte read
+     */
+    public int getPosition() {
+        return this.position;
+    }
+
+    /**
+     * Moves the read position
+     * @param position the offset of the next byte read
+     */
+    public void setPosition(int position) {
+        this.position = position;
+    }
+
+    /**
+     * Gets the number of bytes written
+     * @return the size in bytes
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Starts a state hash
+     * @return the initial hash
+     */
+    public static long hashStart() {
+        return FNV_OFFSET;
+    }
+
+    /**
+     * Folds a value into a state hash, eight bits at a time
+     * @param hash the hash so far
+     * @param value the value
+     * @return the new hash
+     */
+    public static long hash(long hash, long value) {
+        for(int shift = 0; shift < 64; shift += 8) {
+            hash = (hash ^ ((value >>> shift) & 0xFF)) * FNV_PRIME;
+        }
+        return hash;
+    }
+
+    /**
+     * Folds a double into a state hash
+     * @param hash the hash so far
+     * @param value the value
+     * @return the new hash
+     */
+    public static long hash(long hash, double value) {
+        return hash(hash, Double.doubleToRawLongBits(value));
+    }
+
+}
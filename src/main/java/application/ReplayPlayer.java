@@ -0,0 +1,255 @@
+package application;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+/**
+ * A ReplayPlayer class that re-runs a recorded game without a Stage, as fast as the machine allows
+ *
+ * Checkpoint hashes are compared as they are passed, so a replay that drifts from its recording is caught at
+ * the first checkpoint after the drift. Playback never loads a checkpoint's state, so the whole game is
+ * re-simulated from its inputs and the final hash covers all of it. Seeking restores the last checkpoint at or before the target tick and
+ * only steps the ticks after it.
+ */
+public class ReplayPlayer {
+
+    private final ReplayBuffer in;
+    private final int start;
+    private final long seed;
+    private final int tickRate;
+    private final World world = new World(0, 0, new BrickField(0));
+    // checkpoint state is read into this and dropped, so playback stays a pure re-simulation
+    private final World scratch = new World(0, 0, new BrickField(0));
+
+    private long tick;
+    private long runLeft;
+    private int runInput;
+    private boolean ended;
+    private long expectedHash;
+    private long mismatchTick = -1;
+
+    /**
+     * Constructor of the ReplayPlayer class that reads the header of a log
+     * @param in the log
+     */
+    public ReplayPlayer(ReplayBuffer in) {
+        this.in = in;
+        final long magic = in.getLong();
+        if((int)(magic >>> 32) != ReplayRecorder.MAGIC) {
+            throw new IllegalArgumentException("not a replay log");
+        }
+        if((int)magic != ReplayRecorder.VERSION) {
+            throw new IllegalArgumentException("unsupported replay version " + (int)magic);
+        }
+        this.seed = in.getLong();
+        this.tickRate = in.getVarInt();
+        this.start = in.getPosition();
+    }
+
+    /**
+     * Replays the whole log
+     * @return true if every checkpoint and the final state matched the recording & vice versa
+     */
+    public boolean play() {
+        return advance(Long.MAX_VALUE) && this.ended && this.world.hash() == this.expectedHash;
+    }
+
+    /**
+     * Moves to a tick, starting from the closest checkpoint before it
+     * @param target the tick
+     * @return true if the checkpoints passed on the way matched & vice versa
+     */
+    public boolean seek(long target) {
+        // find the last checkpoint at or before the target without stepping
+        int checkpoint = this.start;
+        long checkpointTick = 0;
+        this.in.setPosition(this.start);
+        while(this.in.hasRemaining()) {
+            final int at = this.in.getPosition();
+            final int tag = this.in.getVarInt();
+            if(tag == ReplayRecorder.END) {
+                break;
+            }
+            if(tag == ReplayRecorder.CHECKPOINT) {
+                final long t = this.in.getVarLong();
+                if(t > target) {
+                    break;
+                }
+                checkpoint = at;
+                checkpointTick = t;
+                this.in.getLong();
+            }
+            skip(tag);
+        }
+
+        this.in.setPosition(checkpoint);
+        this.tick = 0;
+        this.runLeft = 0;
+        this.ended = false;
+        if(checkpoint != this.start) {
+            // restore the checkpoint rather than checking it, since nothing before it was replayed
+            this.in.getVarInt();
+            this.tick = this.in.getVarLong();
+            this.in.getLong();
+            this.world.readState(this.in);
+            this.world.getBricks().readState(this.in);
+        }
+        return advance(target);
+    }
+
+    /**
+     * Steps through records until the next tick to run is the target or the log ends
+     * @param target the tick to stop at
+     * @return true if the checkpoints passed matched & vice versa
+     */
+    private boolean advance(long target) {
+        while(true) {
+            if(this.runLeft > 0) {
+                if(this.tick >= target) {
+                    break;
+                }
+                final long n = Math.min(this.runLeft, target - this.tick);
+                for(long k = 0; k < n; k++) {
+                    this.world.step(this.runInput);
+                }
+                this.tick += n;
+                this.runLeft -= n;
+                continue;
+            }
+            if(!this.in.hasRemaining() || this.ended) {
+                break;
+            }
+
+            final int tag = this.in.getVarInt();
+            switch(tag) {
+                case ReplayRecorder.TICKS:
+                    this.runLeft = this.in.getVarLong();
+                    this.runInput = this.in.getVarInt();
+                    break;
+                case ReplayRecorder.STATE:
+                    this.world.readState(this.in);
+                    break;
+                case ReplayRecorder.BOARD:
+                    this.world.getBricks().readState(this.in);
+                    break;
+                case ReplayRecorder.CHECKPOINT:
+                    final long t = this.in.getVarLong();
+                    final long hash = this.in.getLong();
+                    if(t == this.tick && hash != this.world.hash() && this.mismatchTick < 0) {
+                        this.mismatchTick = t;
+                    }
+                    // only seek restores a checkpoint; a drift must carry on to the end, not be covered up
+                    skip(tag);
+                    break;
+                case ReplayRecorder.END:
+                    this.in.getVarLong();
+                    this.expectedHash = this.in.getLong();
+                    this.ended = true;
+                    break;
+                default:
+                    throw new IllegalStateException("unknown replay record " + tag);
+            }
+        }
+        return this.mismatchTick < 0;
+    }
+
+    /**
+     * Reads past the body of a record
+     * @param tag the record's tag
+     */
+    private void skip(int tag) {
+        switch(tag) {
+            case ReplayRecorder.TICKS:
+                this.in.getVarLong();
+                this.in.getVarInt();
+                break;
+            case ReplayRecorder.STATE:
+                this.scratch.readState(this.in);
+                break;
+            case ReplayRecorder.BOARD:
+                this.scratch.getBricks().readState(this.in);
+                break;
+            case ReplayRecorder.CHECKPOINT:
+                this.scratch.readState(this.in);
+                this.scratch.getBricks().readState(this.in);
+                break;
+            default:
+                throw new IllegalStateException("unknown replay record " + tag);
+        }
+    }
+
+    /**
+     * Gets the replayed world
+     * @return the world
+     */
+    public World getWorld() {
+        return this.world;
+    }
+
+    /**
+     * Gets the number of ticks replayed
+     * @return the current tick
+     */
+    public long getTick() {
+        return this.tick;
+    }
+
+    /**
+     * Gets the session seed the recording was made with
+     * @return the seed
+     */
+    public long getSeed() {
+        return this.seed;
+    }
+
+    /**
+     * Gets the tick rate the recording was made at
+     * @return the ticks per second
+     */
+    public int getTickRate() {
+        return this.tickRate;
+    }
+
+    /**
+     * Gets the first checkpoint whose hash did not match
+     * @return the tick, or -1 if none has failed
+     */
+    public long getMismatchTick() {
+        return this.mismatchTick;
+    }
+
+    /**
+     * Replays a log file and reports whether it reproduced the recorded game
+     * @param args the log file, optionally followed by a tick to seek to
+     * @throws IOException if the file cannot be read
+     */
+    public static void main(String[] args) throws IOException {
+        if(args.length < 1) {
+            System.out.println("usage: ReplayPlayer <game.bbr> [tick]");
+            return;
+        }
+
+        ReplayPlayer player = new ReplayPlayer(ReplayBuffer.read(Paths.get(args[0])));
+        final long start = System.nanoTime();
+        final boolean ok = args.length > 1 ? player.seek(Long.parseLong(args[1])) : player.play();
+        final double ms = (System.nanoTime() - start) / 1_000_000d;
+        final double gameSeconds = (double)player.getTick() / player.getTickRate();
+
+        World w = player.getWorld();
+        System.out.printf("seed %d, %d ticks (%.1f s of play) in %.1f ms, %.0fx real time%n",
+                player.getSeed(), player.getTick(), gameSeconds, ms, gameSeconds * 1000 / Math.max(ms, 1e-3));
+        System.out.printf("ball (%.3f, %.3f) speed (%.3f, %.3f), paddle %.3f, %d bricks standing, hash %016x%n",
+                w.getBallX(), w.getBallY(), w.getBallDX(), w.getBallDY(), w.getPaddleX(),
+                w.getBricks().getLiveCount(), w.hash());
+        if(ok) {
+            System.out.println(args.length > 1 ? "checkpoints OK" : "final state matches the recording");
+        }
+        else if(player.getMismatchTick() >= 0) {
+            System.out.println("MISMATCH at checkpoint tick " + player.getMismatchTick());
+        }
+        else {
+            System.out.println("MISMATCH in the final state");
+        }
+    }
+
+}
@@ -0,0 +1,147 @@
+package application;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * A ReplayRecorder class that records a game as the per-tick input to World.step
+ *
+ * The log is a header followed by records, each starting with a varint tag:
+ * TICKS holds a run of ticks with the same input as a varint count and input, STATE and BOARD hold the world
+ * or the bricks after they were changed outside a step (a reset, a new level, a resize), CHECKPOINT holds the
+ * tick, a hash and the full state every CHECKPOINT_TICKS ticks for seeking, and END holds the tick count and
+ * the final state hash.
+ */
+public class ReplayRecorder {
+
+    public static final int MAGIC = 0x42425250;
+    public static final int VERSION = 3;
+    public static final int TICKS = 0, STATE = 1, BOARD = 2, CHECKPOINT = 3, END = 4;
+    public static final int CHECKPOINT_TICKS = 600;
+
+    private final ReplayBuffer out = new ReplayBuffer(64 * 1024);
+    private long tick;
+    private int runInput = -1;
+    private long runLength;
+
+    private int worldVersion;
+    private BrickField field;
+    private int fieldVersion;
+    private boolean finished;
+
+    /**
+     * Constructor of the ReplayRecorder class that writes the header
+     * @param seed the session seed the game's randomness came from
+     * @param tickRate the simulation ticks per second, used to replay in real time
+     */
+    public ReplayRecorder(long seed, int tickRate) {
+        this.out.putLong(((long)MAGIC << 32) | VERSION);
+        this.out.putLong(seed);
+        this.out.putVarLong(tickRate);
+    }
+
+    /**
+     * Records one tick's input and steps the world with it
+     * @param world the world
+     * @param input the LEFT, RIGHT and LAUNCHED bits
+     */
+    public void step(World world, int input) {
+        saveChanges(world);
+        final BrickField bricks = world.getBricks();
+        if(this.tick > 0 && this.tick % CHECKPOINT_TICKS == 0) {
+            flushRun();
+            this.out.putVarLong(CHECKPOINT);
+            this.out.putVarLong(this.tick);
+            this.out.putLong(world.hash());
+            world.writeState(this.out);
+            bricks.writeState(this.out);
+        }
+
+        if(input != this.runInput) {
+            flushRun();
+            this.runInput = input;
+        }
+        this.runLength++;
+        this.tick++;
+
+        // step itself leaves the versions alone, so a change seen next time came from a listener during the tick
+        world.step(input);
+    }
+
+    /**
+     * Ends the log with the tick count and the hash of the world as the last tick left it
+     * @param world the world
+     */
+    public void finish(World world) {
+        if(this.finished) {
+            return;
+        }
+        saveChanges(world);
+        flushRun();
+        this.out.putVarLong(END);
+        this.out.putVarLong(this.tick);
+        this.out.putLong(world.hash());
+        this.finished = true;
+    }
+
+    /**
+     * Writes the log to a file, finishing it first if needed
+     * @param world the world
+     * @param file the file
+     * @throws IOException if the file cannot be written
+     */
+    public void writeTo(World world, Path file) throws IOException {
+        finish(world);
+        this.out.writeTo(file);
+    }
+
+    /**
+     * Gets the number of ticks recorded
+     * @return the tick count
+     */
+    public long getTicks() {
+        return this.tick;
+    }
+
+    /**
+     * Gets the size of the log so far
+     * @return the size in bytes
+     */
+    public int size() {
+        return this.out.size();
+    }
+
+    /**
+     * Saves the world and bricks if anything changed them since the last step, such as a reset from a listener
+     * @param world the world
+     */
+    private void saveChanges(World world) {
+        if(this.tick == 0 || world.getVersion() != this.worldVersion) {
+            flushRun();
+            this.out.putVarLong(STATE);
+            world.writeState(this.out);
+            this.worldVersion = world.getVersion();
+        }
+        final BrickField bricks = world.getBricks();
+        if(bricks != this.field || bricks.getVersion() != this.fieldVersion) {
+            flushRun();
+            this.out.putVarLong(BOARD);
+            bricks.writeState(this.out);
+            this.field = bricks;
+            this.fieldVersion = bricks.getVersion();
+        }
+    }
+
+    /**
+     * Writes the pending run of identical inputs as one TICKS record
+     */
+    private void flushRun() {
+        if(this.runLength > 0) {
+            this.out.putVarLong(TICKS);
+            this.out.putVarLong(this.runLength);
+            this.out.putVarLong(this.runInput);
+            this.runLength = 0;
+        }
+    }
+
+}
@@ -0,0 +1,20 @@
+package application;
+
+/**
+ * A ScalarBoxKernel class that tests one box at a time, used wherever the Vector API is not available
+ */
+public class ScalarBoxKernel implements BoxKernel {
+
+    @Override
+    public int lastOverlap(double[] minX, double[] minY, double[] maxX, double[] maxY, long[] alive, int end,
+            double boxMinX, double boxMinY, double boxMaxX, double boxMaxY) {
+        for(int i = end - 1; i >= 0; i--) {
+            if(minX[i] <= boxMaxX && maxX[i] >= boxMinX && minY[i] <= boxMaxY && maxY[i] >= boxMinY
+                    && (alive[i >>> 6] & (1L << i)) != 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+}
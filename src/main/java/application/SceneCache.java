@@ -0,0 +1,179 @@
+package application;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.URL;
+import java.util.Collections;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javafx.application.Platform;
+import javafx.fxml.FXMLLoader;
+import javafx.scene.Parent;
+import javafx.scene.Scene;
+import javafx.scene.text.Font;
+
+/**
+ * A SceneCache class that prepares the game's scenes on a background thread
+ *
+ * While the title menu is showing, warmUp has the asset manager load the font and the brick sprite atlas, and
+ * meanwhile parses both FXML files and applies their stylesheets, so the Play and Leaderboard buttons only have to show a scene that is already built. Scenes are not
+ * attached to a window until they are taken, which is what makes building them off the FX thread safe. The game
+ * scene is used up by the game that plays in it; the leaderboard scene is kept and shown again.
+ */
+public class SceneCache {
+
+    public static final String GAME_FXML = "/brickbreaker.fxml";
+    public static final String TABLE_FXML = "/table.fxml";
+    public static final String FONT = "/misterpixel.ttf";
+    public static final String BRICK_ATLAS = "bricks";
+
+    private static final double GAME_WIDTH = 640, GAME_HEIGHT = 600;
+    private static final double TABLE_WIDTH = 600, TABLE_HEIGHT = 400;
+
+    private static SceneCache defaultCache;
+
+    private final ExecutorService loader = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "scene-cache");
+        t.setDaemon(true);
+        return t;
+    });
+    // held so the font stays cached for the stylesheet that uses it
+    private AssetManager.Handle<Font> font;
+    private AssetManager.Handle<SpriteAtlas> bricks;
+    private Future<Scene> game;
+    private Future<Scene> leaderboard;
+    private volatile long warmUpNanos;
+
+    /**
+     * Gets the cache shared by the application
+     * @return the cache
+     */
+    public static synchronized SceneCache getDefault() {
+        if(defaultCache == null) {
+            defaultCache = new SceneCache();
+        }
+        return defaultCache;
+    }
+
+    /**
+     * Starts preparing everything in the background, the game first since it is the likelier click
+     */
+    public synchronized void warmUp() {
+        if(this.game != null) {
+            return;
+        }
+        final long start = System.nanoTime();
+        this.font = AssetManager.getDefault().font(FONT, 12);
+        getBrickAtlas();
+        this.game = this.loader.submit(() -> load(GAME_FXML, GAME_WIDTH, GAME_HEIGHT));
+        this.leaderboard = this.loader.submit(() -> load(TABLE_FXML, TABLE_WIDTH, TABLE_HEIGHT));
+        this.loader.execute(() -> {
+            this.warmUpNanos = System.nanoTime() - start;
+            final int took = (int)(this.warmUpNanos / 1000000), done = (int)sinceJvmStart();
+            // the log takes events from the FX thread only
+            Platform.runLater(() -> EventLog.getDefault().log(EventLog.Level.DEBUG, EventLog.Event.WARM_UP, took,
+                    done));
+        });
+    }
+
+    /**
+     * Takes the game scene, waiting for it if it is still being built or building one if it was taken before
+     * @return a scene no one else has
+     * @throws IOException if the FXML cannot be loaded
+     */
+    public Scene takeGame() throws IOException {
+        final Future<Scene> ready;
+        synchronized(this) {
+            ready = this.game;
+            this.game = null;
+        }
+        return ready != null ? get(ready) : load(GAME_FXML, GAME_WIDTH, GAME_HEIGHT);
+    }
+
+    /**
+     * Gets the leaderboard scene, waiting for it if it is still being built
+     * @return the scene, the same every time
+     * @throws IOException if the FXML cannot be loaded
+     */
+    public Scene getLeaderboard() throws IOException {
+        final Future<Scene> ready;
+        synchronized(this) {
+            if(this.leaderboard == null) {
+                this.leaderboard = this.loader.submit(() -> load(TABLE_FXML, TABLE_WIDTH, TABLE_HEIGHT));
+            }
+            ready = this.leaderboard;
+        }
+        return get(ready);
+    }
+
+    /**
+     * Gets the atlas the canvas renderer draws brick damage from, starting its load if warmUp has not
+     * @return a handle to the atlas, kept for as long as the application runs
+     */
+    public synchronized AssetManager.Handle<SpriteAtlas> getBrickAtlas() {
+        if(this.bricks == null) {
+            this.bricks = AssetManager.getDefault().atlas(BRICK_ATLAS,
+                    Collections.singletonList(BrickCanvas.DAMAGE_SPRITE));
+        }
+        return this.bricks;
+    }
+
+    /**
+     * Gets how long the warm up took
+     * @return the time in nanoseconds, or 0 if it has not finished
+     */
+    public long getWarmUpNanos() {
+        return this.warmUpNanos;
+    }
+
+    /**
+     * Gets how long the JVM has been running
+     * @return the time since the JVM started in milliseconds
+     */
+    public static long sinceJvmStart() {
+        return System.currentTimeMillis() - ManagementFactory.getRuntimeMXBean().getStartTime();
+    }
+
+    /**
+     * Parses an FXML file into a scene and styles it
+     * @param fxml the resource path
+     * @param width the scene's width
+     * @param height the scene's height
+     * @return the scene
+     * @throws IOException if the file cannot be loaded
+     */
+    private static Scene load(String fxml, double width, double height) throws IOException {
+        URL url = SceneCache.class.getResource(fxml);
+        Parent root = FXMLLoader.load(url);
+        Scene scene = new Scene(root, width, height);
+        // parses the stylesheets and resolves the styles now rather than on the first frame
+        root.applyCss();
+        return scene;
+    }
+
+    /**
+     * Waits for a scene being built
+     * @param scene the scene's future
+     * @return the scene
+     * @throws IOException if it could not be built
+     */
+    private static Scene get(Future<Scene> scene) throws IOException {
+        try {
+            return scene.get();
+        }
+        catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        }
+        catch(ExecutionException e) {
+            if(e.getCause() instanceof IOException) {
+                throw (IOException)e.getCause();
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+
+}
@@ -0,0 +1,141 @@
+package application;
+
+import java.util.Comparator;
+
+/**
+ * A Score class that holds one leaderboard entry as stored on disk
+ *
+ * Scores recorded by the game itself also keep the lives left, the game's length and its seed; scores typed
+ * into the leaderboard have 0 for those.
+ */
+public final class Score {
+
+    /**
+     * Leaderboard order: highest level first, then the earliest recorded, then the lowest id
+     */
+    public static final Comparator<Score> RANKING = (a, b) -> {
+        if(a.level != b.level) {
+            return a.level > b.level ? -1 : 1;
+        }
+        if(a.time != b.time) {
+            return a.time < b.time ? -1 : 1;
+        }
+        return Long.compare(a.id, b.id);
+    };
+
+    private final long id;
+    private final long time;
+    private final int level;
+    private final String name;
+    private final String date;
+    private final int lives;
+    private final long duration;
+    private final long seed;
+
+    /**
+     * Constructor of the Score class
+     * @param id the id, unique within a store
+     * @param time when the score was recorded, in milliseconds since the epoch
+     * @param level the level reached
+     * @param name the player name
+     * @param date the date as shown on the leaderboard
+     */
+    public Score(long id, long time, int level, String name, String date) {
+        this(id, time, level, name, date, 0, 0, 0);
+    }
+
+    /**
+     * Constructor of the Score class for a game's result
+     * @param id the id, unique within a store
+     * @param time when the score was recorded, in milliseconds since the epoch
+     * @param level the level reached
+     * @param name the player name
+     * @param date the date as shown on the leaderboard
+     * @param lives the lives left
+     * @param duration the game's length in milliseconds
+     * @param seed the game's seed
+     */
+    public Score(long id, long time, int level, String name, String date, int lives, long duration, long seed) {
+        this.id = id;
+        this.time = time;
+        this.level = level;
+        this.name = name;
+        this.date = date;
+        this.lives = lives;
+        this.duration = duration;
+        this.seed = seed;
+    }
+
+    /**
+     * Gets the id
+     * @return the id
+     */
+    public long getId() {
+        return this.id;
+    }
+
+    /**
+     * Gets when the score was recorded
+     * @return the time in milliseconds since the epoch
+     */
+    public long getTime() {
+        return this.time;
+    }
+
+    /**
+     * Gets the level reached
+     * @return the level
+     */
+    public int getLevel() {
+        return this.level;
+    }
+
+    /**
+     * Gets the player name
+     * @return the player name
+     */
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * Gets the date as shown on the leaderboard
+     * @return the date
+     */
+    public String getDate() {
+        return this.date;
+    }
+
+    /**
+     * Gets the lives left at the end of the game
+     * @return the lives, or 0 if the score was typed in
+     */
+    public int getLives() {
+        return this.lives;
+    }
+
+    /**
+     * Gets the game's length
+     * @return the length in milliseconds, or 0 if the score was typed in
+     */
+    public long getDuration() {
+        return this.duration;
+    }
+
+    /**
+     * Gets the seed the game was played with, which replays it
+     * @return the seed, or 0 if the score was typed in
+     */
+    public long getSeed() {
+        return this.seed;
+    }
+
+    /**
+     * Checks if the score was recorded by the game rather than typed in
+     * @return true if it carries a game's lives, length or seed
+     */
+    public boolean isGameResult() {
+        return this.lives != 0 || this.duration != 0 || this.seed != 0;
+    }
+
+}
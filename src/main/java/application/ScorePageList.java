@@ -0,0 +1,117 @@
+package application;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javafx.collections.ObservableListBase;
+
+/**
+ * A ScorePageList class that shows ranked scores to a TableView one page at a time
+ *
+ * The table only asks for the rows it draws, so each row is read from the source the first time its page is
+ * shown and only the last few pages are kept. The list is a read-only view of the scores as they were when it
+ * was made or last refreshed; the leaderboard refreshes it whenever they change.
+ */
+public class ScorePageList extends ObservableListBase<Player> {
+
+    public static final int PAGE_SIZE = 50;
+    public static final int MAX_PAGES = 8;
+
+    private static final Player MISSING = new Player("", "", 0);
+
+    private final ScoreSource source;
+    private int size;
+    private final List<Score> buffer = new ArrayList<Score>(PAGE_SIZE);
+
+    private final Map<Integer, Player[]> pages = new LinkedHashMap<Integer, Player[]>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, Player[]> eldest) {
+            return size() > MAX_PAGES;
+        }
+    };
+
+    /**
+     * Constructor of the ScorePageList class
+     * @param source the scores to page through
+     */
+    public ScorePageList(ScoreSource source) {
+        this.source = source;
+        this.size = source.getRankedCount();
+    }
+
+    /**
+     * Gets the row at a leaderboard position, reading its page from the source if it is not kept
+     * @param index the rank counting from 0
+     * @return the row
+     */
+    @Override
+    public Player get(int index) {
+        if(index < 0 || index >= this.size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + this.size);
+        }
+
+        final int page = index / PAGE_SIZE;
+        Player[] rows = this.pages.get(page);
+        if(rows == null) {
+            rows = load(page);
+            this.pages.put(page, rows);
+        }
+        return rows[index - page * PAGE_SIZE];
+    }
+
+    /**
+     * Reads one page of rows from the source
+     * @param page the page number
+     * @return the page's rows, padded if scores were removed since the list was made
+     */
+    private Player[] load(int page) {
+        final int offset = page * PAGE_SIZE;
+        final Player[] rows = new Player[Math.min(PAGE_SIZE, this.size - offset)];
+
+        this.buffer.clear();
+        this.source.getPage(offset, rows.length, this.buffer);
+        for(int i = 0; i < rows.length; i++) {
+            rows[i] = i < this.buffer.size() ? new Player(this.buffer.get(i)) : MISSING;
+        }
+        this.buffer.clear();
+        return rows;
+    }
+
+    /**
+     * Reads the scores again after they changed, reloading the kept pages in place so the rows on screen are not
+     * read a second time when the table redraws
+     */
+    public void refresh() {
+        final int previous = this.size;
+        this.size = this.source.getRankedCount();
+        for(Iterator<Map.Entry<Integer, Player[]>> it = this.pages.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<Integer, Player[]> page = it.next();
+            if(page.getKey() * PAGE_SIZE >= this.size) {
+                it.remove();
+            }
+            else {
+                page.setValue(load(page.getKey()));
+            }
+        }
+
+        // any row may have moved, so the table is told every row was replaced
+        beginChange();
+        nextRemove(0, Collections.nCopies(previous, MISSING));
+        nextAdd(0, this.size);
+        endChange();
+    }
+
+    /**
+     * Gets the number of rows
+     * @return the number of ranked scores when the list was made or last refreshed
+     */
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+}
@@ -0,0 +1,286 @@
+package application;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * A ScoreServer class that keeps one leaderboard for many kiosks, held in memory
+ *
+ * It is the score service ScoreSync talks to, small enough to run inside the game so the whole sync can be tried
+ * on loopback. POST /scores takes a gzipped batch of records and ignores ids it already has, so a batch can be
+ * resent safely. GET /scores?since=N&limit=M answers with the server's epoch, the records after sequence number
+ * N and the cursor to ask from next. The epoch is drawn at random when the server starts, so a kiosk can tell
+ * that a restarted server has lost the records its cursor counted and start over.
+ */
+public class ScoreServer {
+
+    public static final int MAX_LIMIT = 10000;
+
+    private final HttpServer http;
+    private final long epoch;
+    private final Map<String, Long> sequences = new HashMap<String, Long>();
+    private final List<SyncRecord> records = new ArrayList<SyncRecord>();
+
+    private int failures;
+    private long requests;
+    private long duplicates;
+    private long bytesIn;
+    private long bytesOut;
+
+    /**
+     * Starts a server
+     * @param address where to listen
+     * @throws IOException if the address cannot be bound
+     */
+    public ScoreServer(InetSocketAddress address) throws IOException {
+        long epoch;
+        do {
+            epoch = new SecureRandom().nextLong();
+        } while(epoch == 0);
+        this.epoch = epoch;
+        this.http = HttpServer.create(address, 0);
+        this.http.createContext("/scores", this::handle);
+        this.http.start();
+    }
+
+    /**
+     * Starts a server on a free port of the loopback address
+     * @return the server
+     * @throws IOException if no port can be bound
+     */
+    public static ScoreServer startLocal() throws IOException {
+        return new ScoreServer(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+    }
+
+    /**
+     * Gets the address to reach the server at
+     * @return the base URL, ending in a slash
+     */
+    public String getUrl() {
+        InetSocketAddress address = this.http.getAddress();
+        return "http://" + address.getAddress().getHostAddress() + ":" + address.getPort() + "/";
+    }
+
+    /**
+     * Gets the number that tells this run of the server from any other
+     * @return the epoch, never 0
+     */
+    public long getEpoch() {
+        return this.epoch;
+    }
+
+    /**
+     * Makes the next requests fail with 503, to try out retries
+     * @param n the number of requests to fail
+     */
+    public synchronized void setFailures(int n) {
+        this.failures = n;
+    }
+
+    /**
+     * Gets the number of records held
+     * @return the record count
+     */
+    public synchronized int getCount() {
+        return this.records.size();
+    }
+
+    /**
+     * Gets the number of requests answered
+     * @return the request count
+     */
+    public synchronized long getRequests() {
+        return this.requests;
+    }
+
+    /**
+     * Gets the number of uploaded records that were already held
+     * @return the duplicate count
+     */
+    public synchronized long getDuplicates() {
+        return this.duplicates;
+    }
+
+    /**
+     * Gets the number of request body bytes received, as sent
+     * @return the byte count
+     */
+    public synchronized long getBytesIn() {
+        return this.bytesIn;
+    }
+
+    /**
+     * Gets the number of response body bytes sent
+     * @return the byte count
+     */
+    public synchronized long getBytesOut() {
+        return this.bytesOut;
+    }
+
+    /**
+     * Stops the server
+     */
+    public void stop() {
+        this.http.stop(0);
+    }
+
+    /**
+     * Answers a request to /scores
+     * @param exchange the request
+     * @throws IOException if the connection fails
+     */
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            synchronized(this) {
+                this.requests++;
+                if(this.failures > 0) {
+                    this.failures--;
+                    exchange.sendResponseHeaders(503, -1);
+                    return;
+                }
+            }
+
+            if("POST".equals(exchange.getRequestMethod())) {
+                upload(exchange);
+            }
+            else if("GET".equals(exchange.getRequestMethod())) {
+                download(exchange);
+            }
+            else {
+                exchange.sendResponseHeaders(405, -1);
+            }
+        }
+        catch(IOException | RuntimeException e) {
+            System.out.println(e);
+            exchange.sendResponseHeaders(400, -1);
+        }
+        finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Takes a batch of records, keeping those with new ids
+     * @param exchange the request
+     * @throws IOException if the body cannot be read
+     */
+    private void upload(HttpExchange exchange) throws IOException {
+        final byte[] body = readFully(exchange.getRequestBody());
+        InputStream in = new ByteArrayInputStream(body);
+        if("gzip".equalsIgnoreCase(exchange.getRequestHeaders().getFirst("Content-Encoding"))) {
+            in = new GZIPInputStream(in);
+        }
+        DataInputStream data = new DataInputStream(in);
+        final int n = data.readInt();
+        final List<SyncRecord> batch = new ArrayList<SyncRecord>(n);
+        for(int i = 0; i < n; i++) {
+            batch.add(SyncRecord.read(data, 0));
+        }
+
+        synchronized(this) {
+            this.bytesIn += body.length;
+            for(SyncRecord record : batch) {
+                if(this.sequences.containsKey(record.getId())) {
+                    this.duplicates++;
+                    continue;
+                }
+                this.records.add(record);
+                this.sequences.put(record.getId(), (long)this.records.size());
+            }
+        }
+        exchange.sendResponseHeaders(200, -1);
+    }
+
+    /**
+     * Sends the epoch and the records after a cursor, each behind its sequence number
+     * @param exchange the request
+     * @throws IOException if the response cannot be sent
+     */
+    private void download(HttpExchange exchange) throws IOException {
+        long since = 0;
+        int limit = 1000;
+        final String query = exchange.getRequestURI().getRawQuery();
+        if(query != null) {
+            for(String pair : query.split("&")) {
+                if(pair.startsWith("since=")) {
+                    since = Long.parseLong(pair.substring(6));
+                }
+                else if(pair.startsWith("limit=")) {
+                    limit = Math.max(1, Math.min(MAX_LIMIT, Integer.parseInt(pair.substring(6))));
+                }
+            }
+        }
+
+        final boolean gzip = String.valueOf(exchange.getRequestHeaders().getFirst("Accept-Encoding")).contains("gzip");
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        OutputStream stream = gzip ? new GZIPOutputStream(bytes) : bytes;
+        DataOutputStream out = new DataOutputStream(stream);
+        synchronized(this) {
+            final int from = (int)Math.max(0, Math.min(since, this.records.size()));
+            final int to = Math.min(this.records.size(), from + limit);
+            out.writeLong(this.epoch);
+            out.writeLong(to);
+            out.writeInt(to - from);
+            for(int i = from; i < to; i++) {
+                out.writeLong(i + 1);
+                this.records.get(i).write(out);
+            }
+        }
+        out.close();
+
+        final byte[] body = bytes.toByteArray();
+        synchronized(this) {
+            this.bytesOut += body.length;
+        }
+        exchange.getResponseHeaders().set("Content-Type", "application/octet-stream");
+        if(gzip) {
+            exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+        }
+        exchange.sendResponseHeaders(200, body.length);
+        exchange.getResponseBody().write(body);
+    }
+
+    /**
+     * Reads a stream to its end
+     * @param in the stream
+     * @return the bytes read
+     * @throws IOException if the stream fails
+     */
+    static byte[] readFully(InputStream in) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        for(int n; (n = in.read(buffer)) > 0; ) {
+            bytes.write(buffer, 0, n);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Runs a server for kiosks on the network to share
+     * @param args the port, 8080 if not given
+     * @throws IOException if the port cannot be bound
+     */
+    public static void main(String[] args) throws IOException {
+        final int port = args.length > 0 ? Integer.parseInt(args[0]) : 8080;
+        new ScoreServer(new InetSocketAddress(port));
+        System.out.println("score server on port " + port);
+    }
+
+}
@@ -0,0 +1,44 @@
+package application;
+
+import java.util.List;
+
+/**
+ * A ScoreSource interface for the ranked scores a leaderboard table pages through
+ */
+public interface ScoreSource {
+
+    /**
+     * Gets the number of scores getPage can reach
+     * @return the score count
+     */
+    int getRankedCount();
+
+    /**
+     * Reads a run of scores in leaderboard order
+     * @param offset the rank of the first score
+     * @param limit the most scores to read
+     * @param out receives the scores
+     * @return the number of scores read
+     */
+    int getPage(int offset, int limit, List<Score> out);
+
+    /**
+     * Gets the leaderboard position of a score added to the local store
+     * @param score the score as the store returned it
+     * @return the rank counting from 0, or -1 if it is not ranked yet
+     */
+    int getRank(Score score);
+
+    /**
+     * Keeps track of changes to the scores, which may come from a background thread
+     * @param listener called after each change
+     */
+    void addChangeListener(Runnable listener);
+
+    /**
+     * Stops calling a change listener
+     * @param listener the listener
+     */
+    void removeChangeListener(Runnable listener);
+
+}
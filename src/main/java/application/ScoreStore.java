@@ -0,0 +1,1045 @@
+package application;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * A ScoreStore class that keeps the leaderboard on disk as an append-only log plus a snapshot of the top scores
+ *
+ * Every add and remove is appended to scores.log as a length, a CRC32 and the record, so a write torn by a crash
+ * is found and cut off on the next start. Every SNAPSHOT_EVERY changes the top scores and the counters are written
+ * to scores.snap together with the log offset they cover, replacing the old snapshot atomically. A remove is only
+ * logged for a score that is standing, so one read back from the log always counts. Opening a store reads the
+ * snapshot and the records after that offset, so it takes about the same time however many scores
+ * the log holds. A background worker writes the snapshots and compacts the log, dropping removed scores. The new
+ * log's header keeps the next free id, so an id is never given out twice even when the snapshot is lost and the
+ * removed scores are gone; the score sync names records by these ids.
+ *
+ * Ranks and pages past the top scores need every score, so a RankingIndex of the whole log is only built, in
+ * the background, once buildIndex is called. Until it is ready only the top scores can be paged through.
+ */
+public class ScoreStore implements ScoreSource {
+
+    public static final int DEFAULT_CAPACITY = 100;
+
+    private static final int LOG_MAGIC = 0x42424C47;
+    private static final int SNAPSHOT_MAGIC = 0x42425353;
+    private static final int VERSION = 2;
+    private static final int SNAPSHOT_VERSION = 4;
+    private static final int HEADER = 24;
+    // version 1 logs have no id floor in their header and are rewritten as version 2 when opened
+    private static final int HEADER_V1 = 16;
+    private static final int ADD = 1, REMOVE = 2, RESULT = 3;
+    private static final int MAX_RECORD = 1 << 16;
+    private static final int SNAPSHOT_EVERY = 64;
+    private static final int COMPACT_REMOVES = 256;
+
+    private static ScoreStore defaultStore;
+
+    private final Path log;
+    private final Path snapshot;
+    private final int capacity;
+
+    private FileChannel channel;
+    private long logLength;
+    private long generation;
+    private long firstRecord = HEADER;
+
+    private final TreeSet<Score> top = new TreeSet<Score>(Score.RANKING);
+    private long count;
+    private long nextId = 1;
+    private long removes;
+    private int sinceSnapshot;
+    private boolean incomplete;
+    private Future<?> compaction;
+    private RankingIndex index;
+    private Future<?> indexing;
+
+    private long loadNanos;
+    private long tailRecords;
+
+    private final List<Runnable> listeners = new CopyOnWriteArrayList<Runnable>();
+    private final List<Consumer<List<Score>>> scoreListeners = new CopyOnWriteArrayList<Consumer<List<Score>>>();
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "score-store");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /**
+     * Receives the records read from a log
+     */
+    private interface RecordSink {
+        void add(Score score);
+        void remove(long id);
+    }
+
+    /**
+     * Constructor of the ScoreStore class
+     * @param dir the directory holding scores.log and scores.snap
+     * @param capacity the number of top scores kept in memory and in the snapshot
+     */
+    private ScoreStore(Path dir, int capacity) {
+        this.log = dir.resolve("scores.log");
+        this.snapshot = dir.resolve("scores.snap");
+        this.capacity = Math.max(1, capacity);
+    }
+
+    /**
+     * Opens a store, creating it if the directory has none
+     * @param dir the directory holding scores.log and scores.snap
+     * @param capacity the number of top scores kept in memory and in the snapshot
+     * @return the store
+     * @throws IOException if the files cannot be read or created
+     */
+    public static ScoreStore open(Path dir, int capacity) throws IOException {
+        Files.createDirectories(dir);
+        ScoreStore store = new ScoreStore(dir, capacity);
+        store.load();
+        return store;
+    }
+
+    /**
+     * Gets the store shared by the game, opening it in -Dbrickbreaker.scores or ~/.brickbreaker the first time
+     * @return the store
+     * @throws IOException if the store cannot be opened
+     */
+    public static synchronized ScoreStore getDefault() throws IOException {
+        if(defaultStore == null) {
+            defaultStore = open(getDefaultDirectory(), DEFAULT_CAPACITY);
+        }
+        return defaultStore;
+    }
+
+    /**
+     * Gets the directory of the shared store
+     * @return -Dbrickbreaker.scores, or ~/.brickbreaker
+     */
+    public static Path getDefaultDirectory() {
+        String dir = System.getProperty("brickbreaker.scores");
+        return dir != null ? Paths.get(dir) : Paths.get(System.getProperty("user.home"), ".brickbreaker");
+    }
+
+    /**
+     * Closes the shared store if it was opened
+     */
+    public static synchronized void closeDefault() {
+        if(defaultStore != null) {
+            defaultStore.close();
+            defaultStore = null;
+        }
+    }
+
+    /**
+     * Reads the snapshot and the log after it, cutting off a torn last record
+     * @throws IOException if the log cannot be read or is not a score log
+     */
+    private void load() throws IOException {
+        final long start = System.nanoTime();
+        this.channel = FileChannel.open(this.log, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+
+        final long size = this.channel.size();
+        if(size < HEADER_V1) {
+            this.generation = 1;
+            this.channel.truncate(0);
+            writeFully(this.channel, header(this.generation, this.nextId));
+            this.logLength = HEADER;
+        }
+        else {
+            ByteBuffer header = ByteBuffer.allocate(HEADER);
+            this.channel.read(header, 0);
+            final int version = header.getInt(4);
+            if(header.getInt(0) != LOG_MAGIC || (version != VERSION && version != 1)
+                    || (version == VERSION && size < HEADER)) {
+                this.channel.close();
+                throw new IOException(this.log + " is not a score log");
+            }
+            this.generation = header.getLong(8);
+            this.firstRecord = version == VERSION ? HEADER : HEADER_V1;
+            final long idFloor = version == VERSION ? header.getLong(16) : 1;
+
+            final long from = readSnapshot(size);
+            final long end = readLog(from, size, new RecordSink() {
+                public void add(Score score) {
+                    addToState(score);
+                    ScoreStore.this.tailRecords++;
+                }
+                public void remove(long id) {
+                    removeFromState(id);
+                    ScoreStore.this.tailRecords++;
+                }
+            });
+            if(end < size) {
+                this.channel.truncate(end);
+            }
+            this.logLength = end;
+            this.sinceSnapshot = (int)Math.min(this.tailRecords, SNAPSHOT_EVERY);
+            // the ids of scores compacted away are never given out again, even without a snapshot
+            this.nextId = Math.max(this.nextId, idFloor);
+        }
+
+        this.loadNanos = System.nanoTime() - start;
+        if(this.incomplete || this.removes >= COMPACT_REMOVES || this.firstRecord != HEADER) {
+            compact();
+        }
+    }
+
+    /**
+     * Restores the state in the snapshot if it is intact and still matches the log
+     * @param logSize the log's size
+     * @return the log offset to read from, after the snapshot or after the header if there is none
+     */
+    private long readSnapshot(long logSize) {
+        if(!Files.exists(this.snapshot)) {
+            return this.firstRecord;
+        }
+        try {
+            byte[] bytes = Files.readAllBytes(this.snapshot);
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+            if(bytes.length < 12 || in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_VERSION) {
+                return this.firstRecord;
+            }
+            final int sum = in.readInt();
+            CRC32 crc = new CRC32();
+            crc.update(bytes, 12, bytes.length - 12);
+            if((int)crc.getValue() != sum) {
+                return this.firstRecord;
+            }
+
+            // a snapshot of an older log, left by a crash during compaction, says nothing about this one
+            final long generation = in.readLong();
+            final long offset = in.readLong();
+            if(generation != this.generation || offset < this.firstRecord || offset > logSize) {
+                return this.firstRecord;
+            }
+            this.nextId = in.readLong();
+            this.count = in.readLong();
+            this.removes = in.readLong();
+            this.incomplete = in.readBoolean();
+            for(int n = in.readInt(); n > 0; n--) {
+                this.top.add(readResult(in));
+            }
+            return offset;
+        }
+        catch(IOException e) {
+            this.top.clear();
+            this.count = 0;
+            this.nextId = 1;
+            this.removes = 0;
+            this.incomplete = false;
+            return this.firstRecord;
+        }
+    }
+
+    /**
+     * Adds a score
+     * @param name the player name
+     * @param date the date as shown on the leaderboard
+     * @param level the level reached
+     * @return the score as stored
+     * @throws IOException if the record cannot be appended
+     */
+    public Score add(String name, String date, int level) throws IOException {
+        final Score score;
+        synchronized(this) {
+            score = new Score(this.nextId, System.currentTimeMillis(), level, name, date);
+            append(encodeAdd(score), 1);
+            addToState(score);
+        }
+        changed();
+        added(Collections.singletonList(score));
+        return score;
+    }
+
+    /**
+     * Adds a batch of scores with one write to the log
+     * @param drafts the scores to add; their ids are ignored and each is given the next free id
+     * @return the scores as stored
+     * @throws IOException if the records cannot be appended, in which case none are added
+     */
+    public List<Score> addAll(List<Score> drafts) throws IOException {
+        final List<Score> scores = new ArrayList<Score>(drafts.size());
+        if(drafts.isEmpty()) {
+            return scores;
+        }
+        synchronized(this) {
+            ByteArrayOutputStream records = new ByteArrayOutputStream(64 * drafts.size());
+            long id = this.nextId;
+            for(Score draft : drafts) {
+                Score score = new Score(id++, draft.getTime(), draft.getLevel(), draft.getName(), draft.getDate(),
+                        draft.getLives(), draft.getDuration(), draft.getSeed());
+                records.write(encodeAdd(score));
+                scores.add(score);
+            }
+            append(records.toByteArray(), scores.size());
+            for(Score score : scores) {
+                addToState(score);
+            }
+        }
+        changed();
+        added(scores);
+        return scores;
+    }
+
+    /**
+     * Removes a score. Nothing is logged for an id that is not standing, such as one already removed
+     * @param id the score's id
+     * @throws IOException if the log cannot be read or the record cannot be appended
+     */
+    public void remove(long id) throws IOException {
+        synchronized(this) {
+            if(!isStanding(id)) {
+                return;
+            }
+            ByteArrayOutputStream record = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(record);
+            out.writeByte(REMOVE);
+            out.writeLong(id);
+            append(frame(record.toByteArray()), 1);
+            removeFromState(id);
+        }
+        changed();
+    }
+
+    /**
+     * Adds a score on the store's worker, so the caller never waits on the log
+     * @param name the player name
+     * @param date the date as shown on the leaderboard
+     * @param level the level reached
+     * @param done called on the worker with the score as stored
+     * @return the write's future
+     */
+    public Future<?> addLater(String name, String date, int level, Consumer<Score> done) {
+        return this.worker.submit(() -> {
+            try {
+                done.accept(add(name, date, level));
+            }
+            catch(IOException e) {
+                System.out.println(e);
+            }
+        });
+    }
+
+    /**
+     * Removes scores on the store's worker, so the caller never waits on the log
+     * @param ids the scores' ids
+     * @return the write's future
+     */
+    public Future<?> removeLater(List<Long> ids) {
+        return this.worker.submit(() -> {
+            try {
+                for(long id : ids) {
+                    remove(id);
+                }
+            }
+            catch(IOException e) {
+                System.out.println(e);
+            }
+        });
+    }
+
+    /**
+     * Writes framed records to the end of the log and schedules a snapshot or compaction when one is due
+     * @param records the framed records
+     * @param n the number of records
+     * @throws IOException if the write fails
+     */
+    private void append(byte[] records, int n) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(records);
+        long position = this.logLength;
+        while(buffer.hasRemaining()) {
+            position += this.channel.write(buffer, position);
+        }
+        this.logLength = position;
+
+        this.sinceSnapshot += n;
+        if(this.removes >= COMPACT_REMOVES || this.incomplete) {
+            compact();
+        }
+        else if(this.sinceSnapshot >= SNAPSHOT_EVERY) {
+            this.sinceSnapshot = 0;
+            final byte[] snapshot = encodeSnapshot();
+            this.worker.execute(() -> writeSnapshot(snapshot));
+        }
+    }
+
+    /**
+     * Counts a score in and keeps it if it ranks in the top
+     * @param score the score
+     */
+    private void addToState(Score score) {
+        if(this.index != null) {
+            this.index.add(score);
+        }
+        this.count++;
+        this.nextId = Math.max(this.nextId, score.getId() + 1);
+        this.top.add(score);
+        if(this.top.size() > this.capacity) {
+            this.top.pollLast();
+        }
+    }
+
+    /**
+     * Counts a score out, noting when the top has lost a score only a full read of the log can replace
+     * @param id the score's id
+     */
+    private void removeFromState(long id) {
+        if(this.index != null) {
+            this.index.remove(id);
+        }
+        this.count = Math.max(0, this.count - 1);
+        this.removes++;
+        for(Iterator<Score> it = this.top.iterator(); it.hasNext(); ) {
+            if(it.next().getId() == id) {
+                it.remove();
+                refillTop();
+                break;
+            }
+        }
+    }
+
+    /**
+     * Checks if a score is standing by asking the index, or until it is built the top scores and then the log
+     * @param id the score's id
+     * @return true if it was added and not removed since & vice versa
+     * @throws IOException if the log cannot be read
+     */
+    private boolean isStanding(long id) throws IOException {
+        if(this.index != null) {
+            return this.index.rank(id) >= 0;
+        }
+        for(Score score : this.top) {
+            if(score.getId() == id) {
+                return true;
+            }
+        }
+        if(id <= 0 || id >= this.nextId) {
+            return false;
+        }
+
+        // a score outside the top before the index is built, which only a read of the whole log can settle
+        final boolean[] standing = {false};
+        try(FileChannel in = FileChannel.open(this.log, StandardOpenOption.READ)) {
+            readLog(in, this.firstRecord, this.logLength, new RecordSink() {
+                public void add(Score score) {
+                    standing[0] |= score.getId() == id;
+                }
+                public void remove(long removed) {
+                    standing[0] &= removed != id;
+                }
+            });
+        }
+        return standing[0];
+    }
+
+    /**
+     * Fills the top back up from the index after a top score was removed, or notes that it needs a full read
+     */
+    private void refillTop() {
+        if(this.index != null) {
+            Score next = this.index.get(this.top.size());
+            if(next != null) {
+                this.top.add(next);
+            }
+        }
+        else if(this.count > this.top.size()) {
+            this.incomplete = true;
+        }
+    }
+
+    /**
+     * Starts building the ranking index of every score in the background, if it is not built or being built
+     * @return the build's future
+     */
+    public synchronized Future<?> buildIndex() {
+        if(this.indexing != null) {
+            return this.indexing;
+        }
+        return this.indexing = this.worker.submit(() -> {
+            try {
+                buildIndexNow();
+            }
+            catch(IOException e) {
+                System.out.println(e);
+            }
+        });
+    }
+
+    /**
+     * Reads the whole log into a new index without holding the lock, then under the lock adds what was appended
+     * meanwhile and puts the index in use
+     * @throws IOException if the log cannot be read
+     */
+    private void buildIndexNow() throws IOException {
+        final long end;
+        synchronized(this) {
+            end = this.logLength;
+        }
+
+        final RankingIndex built = new RankingIndex();
+        final RecordSink sink = new RecordSink() {
+            public void add(Score score) {
+                built.add(score);
+            }
+            public void remove(long id) {
+                built.remove(id);
+            }
+        };
+        readLog(this.firstRecord, end, sink);
+
+        synchronized(this) {
+            readLog(end, this.logLength, sink);
+            this.index = built;
+            while(this.top.size() < this.capacity && this.top.size() < built.size()) {
+                this.top.add(built.get(this.top.size()));
+            }
+            this.incomplete = false;
+        }
+        changed();
+    }
+
+    /**
+     * Rewrites the log in the background with only the scores still standing
+     * @return the compaction's future
+     */
+    public synchronized Future<?> compact() {
+        if(this.compaction != null && !this.compaction.isDone()) {
+            return this.compaction;
+        }
+        return this.compaction = this.worker.submit(() -> {
+            try {
+                compactNow();
+            }
+            catch(IOException e) {
+                System.out.println(e);
+            }
+        });
+    }
+
+    /**
+     * Reads the log up to its current end without holding the lock, writes the standing scores to a new log,
+     * then under the lock copies over whatever was appended meanwhile and swaps the files
+     * @throws IOException if the log cannot be rewritten
+     */
+    private void compactNow() throws IOException {
+        final long end, idFloor;
+        synchronized(this) {
+            end = this.logLength;
+            idFloor = this.nextId;
+        }
+
+        final Map<Long, Score> live = new LinkedHashMap<Long, Score>();
+        final RecordSink sink = new RecordSink() {
+            public void add(Score score) {
+                live.put(score.getId(), score);
+            }
+            public void remove(long id) {
+                live.remove(id);
+            }
+        };
+        readLog(this.firstRecord, end, sink);
+
+        Path tmp = this.log.resolveSibling("scores.log.tmp");
+        try(FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            writeFully(out, header(this.generation + 1, idFloor));
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(1 << 16);
+            for(Score score : live.values()) {
+                bytes.write(encodeAdd(score));
+                if(bytes.size() >= 1 << 16) {
+                    writeFully(out, bytes.toByteArray());
+                    bytes.reset();
+                }
+            }
+            writeFully(out, bytes.toByteArray());
+
+            final byte[] snapshot;
+            synchronized(this) {
+                // records appended while the old log was read go over as they are
+                ByteBuffer tail = ByteBuffer.allocate((int)(this.logLength - end));
+                while(tail.hasRemaining() && this.channel.read(tail, end + tail.position()) > 0) {
+                    continue;
+                }
+                tail.flip();
+                writeFully(out, tail);
+                out.force(true);
+
+                final long[] removed = {0};
+                readLog(end, this.logLength, new RecordSink() {
+                    public void add(Score score) {
+                        live.put(score.getId(), score);
+                    }
+                    public void remove(long id) {
+                        live.remove(id);
+                        removed[0]++;
+                    }
+                });
+
+                this.channel.close();
+                Files.move(tmp, this.log, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                this.channel = FileChannel.open(this.log, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                this.logLength = this.channel.size();
+                this.generation++;
+                this.firstRecord = HEADER;
+
+                this.top.clear();
+                this.count = 0;
+                for(Score score : live.values()) {
+                    addToState(score);
+                }
+                this.removes = removed[0];
+                this.incomplete = false;
+                this.sinceSnapshot = 0;
+                snapshot = encodeSnapshot();
+            }
+            writeSnapshot(snapshot);
+        }
+        changed();
+    }
+
+    /**
+     * Reads framed records until the end offset or the first record that is torn or fails its checksum
+     * @param from the offset of the first record
+     * @param to the offset to stop at
+     * @param sink receives the records
+     * @return the offset after the last good record
+     * @throws IOException if the log cannot be read
+     */
+    private long readLog(long from, long to, RecordSink sink) throws IOException {
+        return readLog(this.channel, from, to, sink);
+    }
+
+    /**
+     * Reads framed records from a channel until the end offset or the first record that is torn or fails its checksum
+     * @param channel the log's channel
+     * @param from the offset of the first record
+     * @param to the offset to stop at
+     * @param sink receives the records
+     * @return the offset after the last good record
+     * @throws IOException if the log cannot be read
+     */
+    private static long readLog(FileChannel channel, long from, long to, RecordSink sink) throws IOException {
+        // the stream shares the channel, so it is left open
+        DataInputStream in = new DataInputStream(new BufferedInputStream(
+                Channels.newInputStream(channel.position(from)), 1 << 16));
+        CRC32 crc = new CRC32();
+        byte[] payload = new byte[256];
+        long position = from;
+
+        try {
+            while(position + 8 <= to) {
+                final int length = in.readInt();
+                final int sum = in.readInt();
+                if(length <= 0 || length > MAX_RECORD || position + 8 + length > to) {
+                    break;
+                }
+                if(payload.length < length) {
+                    payload = new byte[length];
+                }
+                in.readFully(payload, 0, length);
+                crc.reset();
+                crc.update(payload, 0, length);
+                if((int)crc.getValue() != sum) {
+                    break;
+                }
+
+                DataInputStream record = new DataInputStream(new ByteArrayInputStream(payload, 0, length));
+                final int type = record.readByte();
+                if(type == ADD) {
+                    sink.add(readScore(record));
+                }
+                else if(type == RESULT) {
+                    sink.add(readResult(record));
+                }
+                else if(type == REMOVE) {
+                    sink.remove(record.readLong());
+                }
+                position += 8 + length;
+            }
+        }
+        catch(EOFException e) {
+            // a record cut short by a crash ends the log
+        }
+        return position;
+    }
+
+    /**
+     * Encodes an add record, framed
+     * @param score the score
+     * @return the framed record
+     * @throws IOException never, since it writes to memory
+     */
+    private static byte[] encodeAdd(Score score) throws IOException {
+        ByteArrayOutputStream record = new ByteArrayOutputStream(64);
+        DataOutputStream out = new DataOutputStream(record);
+        if(score.isGameResult()) {
+            out.writeByte(RESULT);
+            writeResult(out, score);
+        }
+        else {
+            out.writeByte(ADD);
+            writeScore(out, score);
+        }
+        return frame(record.toByteArray());
+    }
+
+    /**
+     * Encodes the log header
+     * @param generation the log's generation, which goes up each time the log is compacted
+     * @param idFloor the lowest id a new score may get, which stays above the ids compacted away
+     * @return the header
+     */
+    private static ByteBuffer header(long generation, long idFloor) {
+        ByteBuffer header = ByteBuffer.allocate(HEADER).putInt(LOG_MAGIC).putInt(VERSION).putLong(generation)
+                .putLong(idFloor);
+        header.flip();
+        return header;
+    }
+
+    /**
+     * Puts a record behind its length and checksum
+     * @param payload the record
+     * @return the framed record
+     */
+    private static byte[] frame(byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload, 0, payload.length);
+        return ByteBuffer.allocate(8 + payload.length).putInt(payload.length).putInt((int)crc.getValue())
+                .put(payload).array();
+    }
+
+    /**
+     * Writes a score's fields
+     * @param out the stream
+     * @param score the score
+     * @throws IOException if the stream fails
+     */
+    private static void writeScore(DataOutputStream out, Score score) throws IOException {
+        out.writeLong(score.getId());
+        out.writeLong(score.getTime());
+        out.writeInt(score.getLevel());
+        out.writeUTF(score.getName());
+        out.writeUTF(score.getDate());
+    }
+
+    /**
+     * Reads what writeScore wrote
+     * @param in the stream
+     * @return the score
+     * @throws IOException if the stream ends early
+     */
+    private static Score readScore(DataInputStream in) throws IOException {
+        return new Score(in.readLong(), in.readLong(), in.readInt(), in.readUTF(), in.readUTF());
+    }
+
+    /**
+     * Writes a score followed by its game's result
+     * @param out the stream
+     * @param score the score
+     * @throws IOException if the stream fails
+     */
+    private static void writeResult(DataOutputStream out, Score score) throws IOException {
+        writeScore(out, score);
+        out.writeInt(score.getLives());
+        out.writeLong(score.getDuration());
+        out.writeLong(score.getSeed());
+    }
+
+    /**
+     * Reads what writeResult wrote
+     * @param in the stream
+     * @return the score
+     * @throws IOException if the stream ends early
+     */
+    private static Score readResult(DataInputStream in) throws IOException {
+        Score score = readScore(in);
+        return new Score(score.getId(), score.getTime(), score.getLevel(), score.getName(), score.getDate(),
+                in.readInt(), in.readLong(), in.readLong());
+    }
+
+    /**
+     * Encodes the top scores and counters with the log offset they cover
+     * @return the snapshot file's contents
+     */
+    private byte[] encodeSnapshot() {
+        try {
+            ByteArrayOutputStream body = new ByteArrayOutputStream(64 * this.top.size() + 64);
+            DataOutputStream out = new DataOutputStream(body);
+            out.writeLong(this.generation);
+            out.writeLong(this.logLength);
+            out.writeLong(this.nextId);
+            out.writeLong(this.count);
+            out.writeLong(this.removes);
+            out.writeBoolean(this.incomplete);
+            out.writeInt(this.top.size());
+            for(Score score : this.top) {
+                writeResult(out, score);
+            }
+
+            final byte[] bytes = body.toByteArray();
+            CRC32 crc = new CRC32();
+            crc.update(bytes, 0, bytes.length);
+            return ByteBuffer.allocate(12 + bytes.length).putInt(SNAPSHOT_MAGIC).putInt(SNAPSHOT_VERSION)
+                    .putInt((int)crc.getValue()).put(bytes).array();
+        }
+        catch(IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Makes the log durable up to the snapshot's offset, then replaces the snapshot file
+     * @param bytes the snapshot file's contents
+     */
+    private void writeSnapshot(byte[] bytes) {
+        try {
+            synchronized(this) {
+                this.channel.force(false);
+            }
+            Path tmp = this.snapshot.resolveSibling("scores.snap.tmp");
+            try(FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                writeFully(out, ByteBuffer.wrap(bytes));
+                out.force(true);
+            }
+            Files.move(tmp, this.snapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        catch(IOException e) {
+            System.out.println(e);
+        }
+    }
+
+    /**
+     * Writes a whole array to a channel
+     * @param out the channel
+     * @param bytes the bytes
+     * @throws IOException if the write fails
+     */
+    private static void writeFully(FileChannel out, byte[] bytes) throws IOException {
+        writeFully(out, ByteBuffer.wrap(bytes));
+    }
+
+    /**
+     * Writes a whole buffer to a channel
+     * @param out the channel
+     * @param buffer the buffer
+     * @throws IOException if the write fails
+     */
+    private static void writeFully(FileChannel out, ByteBuffer buffer) throws IOException {
+        while(buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+    }
+
+    /**
+     * Calls the change listeners
+     */
+    private void changed() {
+        for(Runnable listener : this.listeners) {
+            listener.run();
+        }
+    }
+
+    /**
+     * Calls the score listeners
+     * @param scores the scores added
+     */
+    private void added(List<Score> scores) {
+        for(Consumer<List<Score>> listener : this.scoreListeners) {
+            listener.accept(scores);
+        }
+    }
+
+    /**
+     * Keeps track of the scores added through this store, not those read back from its files
+     * @param listener called with each batch of scores after it is in the log
+     */
+    public void addScoreListener(Consumer<List<Score>> listener) {
+        this.scoreListeners.add(listener);
+    }
+
+    /**
+     * Stops calling a score listener
+     * @param listener the listener
+     */
+    public void removeScoreListener(Consumer<List<Score>> listener) {
+        this.scoreListeners.remove(listener);
+    }
+
+    /**
+     * Keeps track of changes to the scores, which may come from the background worker's thread
+     * @param listener called after each change
+     */
+    @Override
+    public void addChangeListener(Runnable listener) {
+        this.listeners.add(listener);
+    }
+
+    /**
+     * Stops tracking changes
+     * @param listener the listener to remove
+     */
+    @Override
+    public void removeChangeListener(Runnable listener) {
+        this.listeners.remove(listener);
+    }
+
+    /**
+     * Gets the top scores in leaderboard order
+     * @return a copy of the top scores
+     */
+    public synchronized List<Score> getTop() {
+        return new ArrayList<Score>(this.top);
+    }
+
+    /**
+     * Reads a run of scores in leaderboard order, from the index or, until it is built, from the top scores
+     * @param offset the rank of the first score
+     * @param limit the most scores to read
+     * @param out receives the scores
+     * @return the number of scores read
+     */
+    @Override
+    public synchronized int getPage(int offset, int limit, List<Score> out) {
+        if(this.index != null) {
+            return this.index.page(offset, limit, out);
+        }
+
+        int read = 0;
+        int rank = 0;
+        for(Score score : this.top) {
+            if(read == limit) {
+                break;
+            }
+            if(rank++ >= offset) {
+                out.add(score);
+                read++;
+            }
+        }
+        return read;
+    }
+
+    /**
+     * Gets the number of scores getPage can reach
+     * @return all scores once the index is built, or the top scores until then
+     */
+    @Override
+    public synchronized int getRankedCount() {
+        return this.index != null ? this.index.size() : this.top.size();
+    }
+
+    /**
+     * Gets the leaderboard position of a score
+     * @param id the score's id
+     * @return the rank counting from 0, or -1 if the score is unknown or the index is not built
+     */
+    public synchronized int getRank(long id) {
+        return this.index != null ? this.index.rank(id) : -1;
+    }
+
+    /**
+     * Gets the leaderboard position of a score
+     * @param score the score
+     * @return the rank counting from 0, or -1 if the score is unknown or the index is not built
+     */
+    @Override
+    public int getRank(Score score) {
+        return getRank(score.getId());
+    }
+
+    /**
+     * Checks if the ranking index is built
+     * @return true if every score can be paged through & vice versa
+     */
+    public synchronized boolean isIndexed() {
+        return this.index != null;
+    }
+
+    /**
+     * Gets the number of scores standing
+     * @return the score count
+     */
+    public synchronized long getCount() {
+        return this.count;
+    }
+
+    /**
+     * Gets the size of the log
+     * @return the size in bytes
+     */
+    public synchronized long getLogLength() {
+        return this.logLength;
+    }
+
+    /**
+     * Gets how long opening the store took
+     * @return the time in nanoseconds
+     */
+    public long getLoadNanos() {
+        return this.loadNanos;
+    }
+
+    /**
+     * Gets how many log records were read after the snapshot when the store was opened
+     * @return the record count
+     */
+    public long getTailRecords() {
+        return this.tailRecords;
+    }
+
+    /**
+     * Finishes background work, writes a last snapshot and closes the log
+     */
+    public void close() {
+        this.worker.shutdown();
+        try {
+            this.worker.awaitTermination(5, TimeUnit.SECONDS);
+        }
+        catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        final byte[] snapshot;
+        synchronized(this) {
+            snapshot = encodeSnapshot();
+        }
+        writeSnapshot(snapshot);
+        synchronized(this) {
+            try {
+                this.channel.close();
+            }
+            catch(IOException e) {
+                System.out.println(e);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,236 @@
+package application;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A ScoreSubmitter class that turns game results into leaderboard scores on a background thread
+ *
+ * The game only queues its results, never waiting on the store; when the queue is full results are dropped and
+ * counted. The writer keeps the latest result of each game, so a game's level ups and lost lives collapse into
+ * its final result, and writes finished games to the store in batches. Games still running when the submitter
+ * closes are written as they stand.
+ */
+public class ScoreSubmitter {
+
+    public static final int QUEUE_SIZE = 1024;
+    public static final int MAX_BATCH = 64;
+    public static final long LINGER_MILLIS = 500;
+
+    // wakes the writer to stop; interrupting it could close the store's channel in the middle of a write
+    private static final GameResult STOP = new GameResult(-1, GameResult.Kind.GAME_OVER, 0, 0, 0, 0, 0);
+
+    private static ScoreSubmitter defaultSubmitter;
+
+    private final String name;
+    private final BlockingQueue<GameResult> queue = new ArrayBlockingQueue<GameResult>(QUEUE_SIZE);
+    private final Map<Long, GameResult> pending = new LinkedHashMap<Long, GameResult>();
+    private final List<GameResult> drained = new ArrayList<GameResult>();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    private ScoreStore store;
+    private int finished;
+    private long firstFinished;
+
+    /**
+     * Creates a submitter and starts its writer thread
+     * @param name the player name the scores are recorded under
+     */
+    public ScoreSubmitter(String name) {
+        this.name = name;
+        this.writer = new Thread(this::writeLoop, "score-submitter");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Gets the submitter shared by the application, recording under the brickbreaker.player system property or
+     * the user's name
+     * @return the submitter
+     */
+    public static synchronized ScoreSubmitter getDefault() {
+        if(defaultSubmitter == null) {
+            defaultSubmitter = new ScoreSubmitter(System.getProperty("brickbreaker.player",
+                    System.getProperty("user.name", "Player")));
+        }
+        return defaultSubmitter;
+    }
+
+    /**
+     * Writes what the shared submitter still holds and stops it, if it was made
+     */
+    public static synchronized void closeDefault() {
+        if(defaultSubmitter != null) {
+            defaultSubmitter.close();
+            defaultSubmitter = null;
+        }
+    }
+
+    /**
+     * Queues a result without blocking, dropping it if the queue is full
+     * @param result the result
+     */
+    public void submit(GameResult result) {
+        if(!this.running || !this.queue.offer(result)) {
+            this.dropped.incrementAndGet();
+        }
+    }
+
+    /**
+     * Gets the number of results dropped because the queue was full or the submitter was closed
+     * @return the dropped result count
+     */
+    public long getDropped() {
+        return this.dropped.get();
+    }
+
+    /**
+     * Gets the number of scores written to the store
+     * @return the score count
+     */
+    public long getWritten() {
+        return this.written.get();
+    }
+
+    /**
+     * Gets the number of batches written to the store
+     * @return the batch count
+     */
+    public long getBatches() {
+        return this.batches.get();
+    }
+
+    /**
+     * Stops the writer after it writes every result still queued or held
+     */
+    public void close() {
+        this.running = false;
+        this.queue.offer(STOP);
+        try {
+            this.writer.join(5000);
+        }
+        catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Collects results and writes finished games once a batch is full or has waited long enough
+     */
+    private void writeLoop() {
+        while(this.running) {
+            try {
+                GameResult result = this.queue.poll(LINGER_MILLIS, TimeUnit.MILLISECONDS);
+                if(result != null) {
+                    hold(result);
+                    drain();
+                }
+            }
+            catch(InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+
+            if(this.finished >= MAX_BATCH
+                    || (this.finished > 0 && System.currentTimeMillis() - this.firstFinished >= LINGER_MILLIS)) {
+                write(false);
+            }
+        }
+
+        drain();
+        write(true);
+    }
+
+    /**
+     * Moves everything queued into the held results
+     */
+    private void drain() {
+        this.queue.drainTo(this.drained);
+        for(GameResult result : this.drained) {
+            hold(result);
+        }
+        this.drained.clear();
+    }
+
+    /**
+     * Keeps a result in place of any earlier one from the same game
+     * @param result the result
+     */
+    private void hold(GameResult result) {
+        if(result == STOP) {
+            return;
+        }
+        GameResult previous = this.pending.put(result.getGame(), result);
+        if(result.isFinal() && (previous == null || !previous.isFinal())) {
+            if(this.finished++ == 0) {
+                this.firstFinished = System.currentTimeMillis();
+            }
+        }
+    }
+
+    /**
+     * Writes held games to the store in one batch, keeping them to retry if the write fails
+     * @param all whether games that are not over are written too
+     */
+    private void write(boolean all) {
+        final List<Score> drafts = new ArrayList<Score>();
+        final List<Long> games = new ArrayList<Long>();
+        for(GameResult result : this.pending.values()) {
+            if(all || result.isFinal()) {
+                drafts.add(toScore(result));
+                games.add(result.getGame());
+            }
+        }
+        if(drafts.isEmpty()) {
+            return;
+        }
+
+        try {
+            if(this.store == null) {
+                this.store = ScoreStore.getDefault();
+                // start sharing before the first scores go in, if kiosks share a leaderboard
+                ScoreSync.getDefault();
+            }
+            this.store.addAll(drafts);
+        }
+        catch(IOException e) {
+            System.out.println(e);
+            this.firstFinished = System.currentTimeMillis();
+            return;
+        }
+
+        for(Long game : games) {
+            this.pending.remove(game);
+        }
+        // every finished game was in the batch
+        this.finished = 0;
+        this.written.addAndGet(drafts.size());
+        this.batches.incrementAndGet();
+    }
+
+    /**
+     * Makes the score a result is recorded as
+     * @param result the result
+     * @return the score, with an id the store replaces
+     */
+    private Score toScore(GameResult result) {
+        String date = LocalDate.from(Instant.ofEpochMilli(result.getTime()).atZone(ZoneId.systemDefault())).toString();
+        return new Score(0, result.getTime(), result.getLevel(), this.name, date,
+                result.getLives(), result.getDuration(), result.getSeed());
+    }
+
+}
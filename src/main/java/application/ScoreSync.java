@@ -0,0 +1,690 @@
+package application;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * A ScoreSync class that shares the local store's new scores with a score server and keeps the merged leaderboard
+ *
+ * New scores first go to a durable outbox, so they are sent eventually however long the server is out of reach.
+ * A background thread uploads the outbox in gzipped batches, each record named by this kiosk and the score's id
+ * so a batch that is resent after a lost answer is not counted twice, and then pulls the records added to the
+ * server since its cursor. Pulled records are kept in a file of their own, the cursor being the last one's
+ * sequence number. The file also holds the epoch of the server run the records came from; when the server answers
+ * with another epoch it has restarted without them, so the file and the cursor are dropped and everything is
+ * pulled again. Failures back off exponentially with jitter.
+ *
+ * The merged leaderboard ranks the pulled records together with the ones still waiting in the outbox, so a kiosk
+ * sees its own scores at once even while offline.
+ */
+public class ScoreSync implements ScoreSource {
+
+    public static final int BATCH_SIZE = 256;
+    public static final int PULL_LIMIT = 1000;
+    public static final long POLL_MILLIS = 10000;
+    public static final long MIN_BACKOFF_MILLIS = 500;
+    public static final long MAX_BACKOFF_MILLIS = 60000;
+
+    private static final int OUTBOX_MAGIC = 0x4242424F;
+    private static final int PULLED_MAGIC = 0x42425056;
+    private static final int RECORD = 1, ACK = 2, EPOCH = 3, PULLED = 4;
+    private static final int CONNECT_MILLIS = 2000;
+    private static final int READ_MILLIS = 5000;
+    private static final long COMPACT_OUTBOX = 1 << 20;
+
+    private static ScoreSync defaultSync;
+    private static ScoreServer stubServer;
+
+    /**
+     * A record in the outbox and where it ends there
+     */
+    private static final class Pending {
+        final SyncRecord record;
+        final long end;
+
+        Pending(SyncRecord record, long end) {
+            this.record = record;
+            this.end = end;
+        }
+    }
+
+    private final URL server;
+    private final String kiosk;
+    private final RecordFile outbox;
+    private final RecordFile pulled;
+    private final ArrayDeque<Pending> pending = new ArrayDeque<Pending>();
+
+    // the merged leaderboard; pulled records go by their sequence number and waiting ones by negative ids
+    private final RankingIndex merged = new RankingIndex();
+    private final Map<String, Long> mergedIds = new HashMap<String, Long>();
+    private long waitingIds;
+    private long cursor;
+    private long epoch;
+
+    private final Object wake = new Object();
+    private boolean woken;
+    private volatile boolean running = true;
+    private volatile int failures;
+    private final Thread worker;
+
+    private long uploaded;
+    private long batches;
+    private long bytesSent;
+    private long bytesRaw;
+    private long pulls;
+    private long retries;
+
+    private final List<Runnable> listeners = new CopyOnWriteArrayList<Runnable>();
+    private final Consumer<List<Score>> onAdded = this::enqueue;
+    private ScoreStore store;
+
+    /**
+     * Opens the outbox and the pulled records in a directory and starts syncing with a server
+     * @param dir the directory for outbox.log and pulled.log
+     * @param server the score server's base URL
+     * @param kiosk the name this kiosk's records go under
+     * @throws IOException if the files cannot be opened
+     */
+    public ScoreSync(Path dir, URL server, String kiosk) throws IOException {
+        this.server = server;
+        this.kiosk = kiosk;
+        Files.createDirectories(dir);
+        this.pulled = openPulled(dir.resolve("pulled.log"));
+        this.outbox = new RecordFile(dir.resolve("outbox.log"), OUTBOX_MAGIC);
+        load();
+
+        this.worker = new Thread(this::syncLoop, "score-sync");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    /**
+     * Gets the sync of the shared store, set up from -Dbrickbreaker.sync the first time: a score server's URL, or
+     * "stub" for a server inside the game on loopback. The kiosk is named by -Dbrickbreaker.kiosk or a random id
+     * kept in the store's directory.
+     * @return the sync, or null if none is set up
+     * @throws IOException if the store or the sync files cannot be opened
+     */
+    public static synchronized ScoreSync getDefault() throws IOException {
+        final String target = System.getProperty("brickbreaker.sync");
+        if(defaultSync != null || target == null) {
+            return defaultSync;
+        }
+
+        final Path dir = ScoreStore.getDefaultDirectory();
+        String url = target;
+        if("stub".equals(target)) {
+            stubServer = ScoreServer.startLocal();
+            url = stubServer.getUrl();
+        }
+        ScoreSync sync = new ScoreSync(dir, new URL(url.endsWith("/") ? url : url + "/"), kioskName(dir));
+        sync.attach(ScoreStore.getDefault());
+        defaultSync = sync;
+        return sync;
+    }
+
+    /**
+     * Stops the shared sync and its stub server, if they were started
+     */
+    public static synchronized void closeDefault() {
+        if(defaultSync != null) {
+            defaultSync.close();
+            defaultSync = null;
+        }
+        if(stubServer != null) {
+            stubServer.stop();
+            stubServer = null;
+        }
+    }
+
+    /**
+     * Gets the name this kiosk's records go under
+     * @param dir the directory a generated name is kept in
+     * @return -Dbrickbreaker.kiosk, or the name in kiosk.id, made the first time
+     * @throws IOException if the name cannot be read or saved
+     */
+    private static String kioskName(Path dir) throws IOException {
+        final String name = System.getProperty("brickbreaker.kiosk");
+        if(name != null) {
+            return name;
+        }
+        final Path file = dir.resolve("kiosk.id");
+        if(Files.exists(file)) {
+            return new String(Files.readAllBytes(file), StandardCharsets.UTF_8).trim();
+        }
+        final String id = UUID.randomUUID().toString();
+        Files.write(file, id.getBytes(StandardCharsets.UTF_8));
+        return id;
+    }
+
+    /**
+     * Opens the file of pulled records, starting it over if it is from before epochs were kept; the records are
+     * only a copy of the server's, so they are pulled again
+     * @param path the file
+     * @return the file
+     * @throws IOException if the file cannot be opened
+     */
+    private static RecordFile openPulled(Path path) throws IOException {
+        try {
+            return new RecordFile(path, PULLED_MAGIC);
+        }
+        catch(IOException e) {
+            System.out.println(e);
+            Files.deleteIfExists(path);
+            return new RecordFile(path, PULLED_MAGIC);
+        }
+    }
+
+    /**
+     * Sends every score later added to a store
+     * @param store the store
+     */
+    public void attach(ScoreStore store) {
+        this.store = store;
+        store.addScoreListener(this.onAdded);
+    }
+
+    /**
+     * Restores the server epoch, the pulled records and the cursor, then the records the outbox still holds
+     * @throws IOException if a file cannot be read
+     */
+    private void load() throws IOException {
+        this.pulled.scan((in, end) -> {
+            final int type = in.readByte();
+            if(type == EPOCH) {
+                this.epoch = in.readLong();
+            }
+            else if(type == PULLED) {
+                final long sequence = in.readLong();
+                merge(SyncRecord.read(in, sequence), sequence);
+            }
+        });
+
+        final List<Pending> read = new ArrayList<Pending>();
+        final long[] acked = {0};
+        this.outbox.scan((in, end) -> {
+            final int type = in.readByte();
+            if(type == RECORD) {
+                read.add(new Pending(SyncRecord.read(in, 0), end));
+            }
+            else if(type == ACK) {
+                acked[0] = Math.max(acked[0], in.readLong());
+            }
+        });
+        for(Pending entry : read) {
+            if(entry.end > acked[0]) {
+                this.pending.add(entry);
+                rankWaiting(entry.record);
+            }
+        }
+    }
+
+    /**
+     * Puts new scores in the outbox and wakes the uploader
+     * @param scores the scores, as added to the local store
+     */
+    public void enqueue(List<Score> scores) {
+        synchronized(this) {
+            try {
+                final List<SyncRecord> records = new ArrayList<SyncRecord>(scores.size());
+                final List<byte[]> payloads = new ArrayList<byte[]>(scores.size());
+                for(Score score : scores) {
+                    SyncRecord record = new SyncRecord(this.kiosk + ":" + score.getId(), score);
+                    ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+                    DataOutputStream out = new DataOutputStream(bytes);
+                    out.writeByte(RECORD);
+                    record.write(out);
+                    records.add(record);
+                    payloads.add(bytes.toByteArray());
+                }
+
+                final long[] ends = this.outbox.append(payloads, true);
+                for(int i = 0; i < ends.length; i++) {
+                    this.pending.add(new Pending(records.get(i), ends[i]));
+                    rankWaiting(records.get(i));
+                }
+            }
+            catch(IOException e) {
+                System.out.println(e);
+                return;
+            }
+        }
+        changed();
+
+        // while backing off, new scores wait for the next try
+        if(this.failures == 0) {
+            syncNow();
+        }
+    }
+
+    /**
+     * Wakes the background thread to upload and pull now rather than at the next poll
+     */
+    public void syncNow() {
+        synchronized(this.wake) {
+            this.woken = true;
+            this.wake.notify();
+        }
+    }
+
+    /**
+     * Ranks a record that is still waiting to reach the server
+     * @param record the record
+     */
+    private void rankWaiting(SyncRecord record) {
+        if(this.mergedIds.containsKey(record.getId())) {
+            return;
+        }
+        final Score score = record.getScore();
+        final long id = -(++this.waitingIds);
+        this.merged.add(new Score(id, score.getTime(), score.getLevel(), score.getName(), score.getDate(),
+                score.getLives(), score.getDuration(), score.getSeed()));
+        this.mergedIds.put(record.getId(), id);
+    }
+
+    /**
+     * Ranks a record pulled from the server in place of any copy of it that was waiting
+     * @param record the record, its score's id being its sequence number
+     * @param sequence the record's sequence number
+     */
+    private void merge(SyncRecord record, long sequence) {
+        if(sequence <= this.cursor) {
+            return;
+        }
+        this.cursor = sequence;
+        final Long previous = this.mergedIds.put(record.getId(), sequence);
+        if(previous != null) {
+            this.merged.remove(previous);
+        }
+        this.merged.add(record.getScore());
+    }
+
+    /**
+     * Forgets what was pulled from an earlier run of the server and starts the file over under a new epoch, keeping
+     * the records still waiting to be sent on the merged leaderboard
+     * @param epoch the server's new epoch
+     * @throws IOException if the file cannot be rewritten
+     */
+    private void restart(long epoch) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(9);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(EPOCH);
+        out.writeLong(epoch);
+        this.pulled.reset();
+        this.pulled.append(Collections.singletonList(bytes.toByteArray()), true);
+
+        this.epoch = epoch;
+        this.cursor = 0;
+        for(Long id : this.mergedIds.values()) {
+            this.merged.remove(id);
+        }
+        this.mergedIds.clear();
+        for(Pending entry : this.pending) {
+            rankWaiting(entry.record);
+        }
+    }
+
+    /**
+     * Uploads and pulls until stopped, waiting between rounds or backing off after a failure
+     */
+    private void syncLoop() {
+        long delay = 0;
+        while(this.running) {
+            synchronized(this.wake) {
+                if(!this.woken && delay > 0) {
+                    try {
+                        this.wake.wait(delay);
+                    }
+                    catch(InterruptedException e) {
+                        return;
+                    }
+                }
+                this.woken = false;
+            }
+            if(!this.running) {
+                break;
+            }
+
+            try {
+                upload();
+                pull();
+                this.failures = 0;
+                delay = POLL_MILLIS;
+            }
+            catch(IOException e) {
+                System.out.println(e);
+                delay = backoff(++this.failures);
+                synchronized(this) {
+                    this.retries++;
+                }
+            }
+        }
+    }
+
+    /**
+     * Picks how long to wait before the next try
+     * @param failures the number of failures in a row
+     * @return a random delay up to twice the last one, capped
+     */
+    static long backoff(int failures) {
+        final long ceiling = Math.min(MAX_BACKOFF_MILLIS, MIN_BACKOFF_MILLIS << Math.min(failures - 1, 20));
+        return ceiling / 2 + ThreadLocalRandom.current().nextLong(ceiling / 2 + 1);
+    }
+
+    /**
+     * Sends the outbox in batches, acknowledging each batch in the outbox once the server has it
+     * @throws IOException if a batch cannot be sent
+     */
+    private void upload() throws IOException {
+        while(true) {
+            final List<Pending> batch = new ArrayList<Pending>(BATCH_SIZE);
+            synchronized(this) {
+                for(Pending entry : this.pending) {
+                    if(batch.size() == BATCH_SIZE) {
+                        break;
+                    }
+                    batch.add(entry);
+                }
+            }
+            if(batch.isEmpty()) {
+                return;
+            }
+
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 * batch.size());
+            DataOutputStream raw = new DataOutputStream(new GZIPOutputStream(bytes));
+            raw.writeInt(batch.size());
+            for(Pending entry : batch) {
+                entry.record.write(raw);
+            }
+            raw.close();
+            final byte[] body = bytes.toByteArray();
+            request("POST", "scores", body);
+
+            synchronized(this) {
+                ByteArrayOutputStream ack = new ByteArrayOutputStream(9);
+                DataOutputStream out = new DataOutputStream(ack);
+                out.writeByte(ACK);
+                out.writeLong(batch.get(batch.size() - 1).end);
+                // a lost acknowledgement only means the batch is sent again
+                this.outbox.append(Collections.singletonList(ack.toByteArray()), false);
+                for(int i = 0; i < batch.size(); i++) {
+                    this.pending.poll();
+                }
+                if(this.pending.isEmpty() && this.outbox.getLength() > COMPACT_OUTBOX) {
+                    this.outbox.reset();
+                }
+
+                this.uploaded += batch.size();
+                this.batches++;
+                this.bytesSent += body.length;
+                this.bytesRaw += raw.size();
+            }
+        }
+    }
+
+    /**
+     * Pulls the records added to the server since the cursor, a page at a time, from the start if the server has
+     * restarted since the last pull
+     * @throws IOException if a page cannot be fetched
+     */
+    private void pull() throws IOException {
+        while(true) {
+            final long since;
+            synchronized(this) {
+                since = this.cursor;
+            }
+            final byte[] body = request("GET", "scores?since=" + since + "&limit=" + PULL_LIMIT, null);
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(body));
+            final long epoch = in.readLong();
+            final boolean stale;
+            synchronized(this) {
+                // a page from a restarted server past the start says nothing, since its records were counted anew
+                stale = epoch != this.epoch && since > 0;
+                if(epoch != this.epoch) {
+                    if(this.epoch != 0) {
+                        System.out.println("score server restarted, pulling the leaderboard again");
+                    }
+                    restart(epoch);
+                }
+            }
+            if(stale) {
+                changed();
+                continue;
+            }
+            final long next = in.readLong();
+            final int n = in.readInt();
+            final List<byte[]> payloads = new ArrayList<byte[]>(n);
+            final List<SyncRecord> records = new ArrayList<SyncRecord>(n);
+            final long[] sequences = new long[n];
+            for(int i = 0; i < n; i++) {
+                sequences[i] = in.readLong();
+                SyncRecord record = SyncRecord.read(in, sequences[i]);
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+                DataOutputStream out = new DataOutputStream(bytes);
+                out.writeByte(PULLED);
+                out.writeLong(sequences[i]);
+                record.write(out);
+                records.add(record);
+                payloads.add(bytes.toByteArray());
+            }
+
+            synchronized(this) {
+                if(n > 0) {
+                    this.pulled.append(payloads, false);
+                    for(int i = 0; i < n; i++) {
+                        merge(records.get(i), sequences[i]);
+                    }
+                }
+                this.cursor = Math.max(this.cursor, next);
+                this.pulls++;
+            }
+            if(n > 0) {
+                changed();
+            }
+            if(n < PULL_LIMIT) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Makes one request to the server
+     * @param method GET or POST
+     * @param path the path under the server's URL
+     * @param body the gzipped body to send, or null
+     * @return the response body, unzipped
+     * @throws IOException if the server cannot be reached or does not answer 200
+     */
+    private byte[] request(String method, String path, byte[] body) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection)new URL(this.server, path).openConnection();
+        try {
+            connection.setConnectTimeout(CONNECT_MILLIS);
+            connection.setReadTimeout(READ_MILLIS);
+            connection.setRequestMethod(method);
+            connection.setRequestProperty("Accept-Encoding", "gzip");
+            if(body != null) {
+                connection.setDoOutput(true);
+                connection.setFixedLengthStreamingMode(body.length);
+                connection.setRequestProperty("Content-Type", "application/octet-stream");
+                connection.setRequestProperty("Content-Encoding", "gzip");
+                try(OutputStream out = connection.getOutputStream()) {
+                    out.write(body);
+                }
+            }
+
+            final int status = connection.getResponseCode();
+            if(status != HttpURLConnection.HTTP_OK) {
+                throw new IOException(method + " " + path + " answered " + status);
+            }
+            InputStream in = connection.getInputStream();
+            if("gzip".equalsIgnoreCase(connection.getContentEncoding())) {
+                in = new GZIPInputStream(in);
+            }
+            try {
+                return ScoreServer.readFully(in);
+            }
+            finally {
+                in.close();
+            }
+        }
+        finally {
+            connection.disconnect();
+        }
+    }
+
+    /**
+     * Calls the change listeners
+     */
+    private void changed() {
+        for(Runnable listener : this.listeners) {
+            listener.run();
+        }
+    }
+
+    /**
+     * Keeps track of changes to the merged leaderboard, which come from the sync's thread or the one adding scores
+     * @param listener called after each change
+     */
+    @Override
+    public void addChangeListener(Runnable listener) {
+        this.listeners.add(listener);
+    }
+
+    /**
+     * Stops calling a change listener
+     * @param listener the listener
+     */
+    @Override
+    public void removeChangeListener(Runnable listener) {
+        this.listeners.remove(listener);
+    }
+
+    /**
+     * Gets the number of scores on the merged leaderboard
+     * @return the pulled scores and those still waiting to be sent
+     */
+    @Override
+    public synchronized int getRankedCount() {
+        return this.merged.size();
+    }
+
+    /**
+     * Reads a run of scores from the merged leaderboard
+     * @param offset the rank of the first score
+     * @param limit the most scores to read
+     * @param out receives the scores
+     * @return the number of scores read
+     */
+    @Override
+    public synchronized int getPage(int offset, int limit, List<Score> out) {
+        return this.merged.page(offset, limit, out);
+    }
+
+    /**
+     * Gets the merged leaderboard position of a score added to the local store
+     * @param score the score as the store returned it
+     * @return the rank counting from 0, or -1 if it was never sent
+     */
+    @Override
+    public synchronized int getRank(Score score) {
+        final Long id = this.mergedIds.get(this.kiosk + ":" + score.getId());
+        return id != null ? this.merged.rank(id) : -1;
+    }
+
+    /**
+     * Gets the number of records waiting in the outbox
+     * @return the record count
+     */
+    public synchronized int getPendingCount() {
+        return this.pending.size();
+    }
+
+    /**
+     * Gets the sequence number of the last record pulled
+     * @return the cursor
+     */
+    public synchronized long getCursor() {
+        return this.cursor;
+    }
+
+    /**
+     * Gets the epoch of the server run the pulled records came from
+     * @return the epoch, or 0 before the first pull
+     */
+    public synchronized long getEpoch() {
+        return this.epoch;
+    }
+
+    /**
+     * Gets the number of failed rounds in a row
+     * @return the failure count, 0 after a round succeeds
+     */
+    public int getFailures() {
+        return this.failures;
+    }
+
+    /**
+     * Gets the number of failed rounds that were tried again
+     * @return the retry count
+     */
+    public synchronized long getRetries() {
+        return this.retries;
+    }
+
+    /**
+     * Gets upload, pull and retry counts and how well the batches compressed
+     * @return the counters, one line
+     */
+    public synchronized String getStats() {
+        return "uploaded " + this.uploaded + " in " + this.batches + " batches, " + this.bytesSent + " of "
+                + this.bytesRaw + " bytes sent, " + this.pulls + " pulls to " + this.cursor + ", "
+                + this.retries + " retries, " + this.pending.size() + " waiting";
+    }
+
+    /**
+     * Stops syncing and closes the files; what is still in the outbox is sent next time
+     */
+    public void close() {
+        if(this.store != null) {
+            this.store.removeScoreListener(this.onAdded);
+        }
+        this.running = false;
+        synchronized(this.wake) {
+            this.woken = true;
+            this.wake.notify();
+        }
+        try {
+            this.worker.join(CONNECT_MILLIS + READ_MILLIS);
+        }
+        catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized(this) {
+            this.outbox.close();
+            this.pulled.close();
+        }
+    }
+
+}
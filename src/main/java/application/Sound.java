@@ -0,0 +1,83 @@
+package application;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.Clip;
+import javax.sound.sampled.LineEvent;
+import javax.sound.sampled.LineUnavailableException;
+import javax.sound.sampled.UnsupportedAudioFileException;
+
+/**
+ * A Sound class that holds a short sound decoded into memory, ready to play without touching the disk
+ */
+public final class Sound {
+
+    private final AudioFormat format;
+    private final byte[] samples;
+
+    /**
+     * Constructor of the Sound class
+     * @param format the samples' format
+     * @param samples the decoded samples
+     */
+    public Sound(AudioFormat format, byte[] samples) {
+        this.format = format;
+        this.samples = samples;
+    }
+
+    /**
+     * Reads and decodes a sound file
+     * @param url the file
+     * @return the sound
+     * @throws IOException if the file cannot be read or is not a sound the JVM can decode
+     */
+    public static Sound load(URL url) throws IOException {
+        try(InputStream in = new BufferedInputStream(url.openStream());
+                AudioInputStream audio = AudioSystem.getAudioInputStream(in)) {
+            ByteArrayOutputStream samples = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            for(int n; (n = audio.read(buffer)) > 0; ) {
+                samples.write(buffer, 0, n);
+            }
+            return new Sound(audio.getFormat(), samples.toByteArray());
+        }
+        catch(UnsupportedAudioFileException e) {
+            throw new IOException(url + " is not a supported sound", e);
+        }
+    }
+
+    /**
+     * Gets the size of the decoded samples
+     * @return the size in bytes
+     */
+    public int getSize() {
+        return this.samples.length;
+    }
+
+    /**
+     * Plays the sound once on a line of its own, which is closed when it ends
+     */
+    public void play() {
+        try {
+            final Clip clip = AudioSystem.getClip();
+            clip.open(this.format, this.samples, 0, this.samples.length);
+            clip.addLineListener(event -> {
+                if(event.getType() == LineEvent.Type.STOP) {
+                    clip.close();
+                }
+            });
+            clip.start();
+        }
+        catch(LineUnavailableException | IllegalArgumentException e) {
+            System.out.println(e);
+        }
+    }
+
+}
@@ -0,0 +1,40 @@
+package application;
+
+/**
+ * A SplitMix64 class that holds the one random number step the game uses, whose whole state is a single long
+ *
+ * The world's random numbers must come out the same for a replay to play back, so every user of the step shares
+ * this copy of it.
+ */
+public final class SplitMix64 {
+
+    /**
+     * The amount the state moves on by for each number drawn
+     */
+    public static final long GAMMA = 0x9E3779B97F4A7C15L;
+
+    private SplitMix64() {
+    }
+
+    /**
+     * Gets the random bits for a state that has already been moved on by {@link #GAMMA}
+     * @param state the state
+     * @return the random bits
+     */
+    public static long mix(long state) {
+        long z = state;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Turns random bits into a number from 0 to 1
+     * @param bits the random bits
+     * @return the random number
+     */
+    public static double toDouble(long bits) {
+        return (bits >>> 11) * 0x1.0p-53;
+    }
+
+}
@@ -0,0 +1,105 @@
+package application;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javafx.geometry.Rectangle2D;
+import javafx.scene.image.Image;
+import javafx.scene.image.WritableImage;
+
+/**
+ * A SpriteAtlas class that packs small sprites into one image so they are uploaded and drawn as one texture
+ *
+ * Sprites are placed on shelves, tallest first, with a pixel of space around each so that scaled drawing does not
+ * bleed a neighbour's edge in.
+ */
+public final class SpriteAtlas {
+
+    private static final int PADDING = 1;
+
+    private final Image image;
+    private final Map<String, Rectangle2D> regions;
+
+    /**
+     * Constructor of the SpriteAtlas class
+     * @param image the packed image
+     * @param regions where each sprite is in the image, by name
+     */
+    private SpriteAtlas(Image image, Map<String, Rectangle2D> regions) {
+        this.image = image;
+        this.regions = regions;
+    }
+
+    /**
+     * Packs sprites into an atlas; the images must be fully loaded
+     * @param sprites the sprites by name
+     * @return the atlas
+     */
+    public static SpriteAtlas pack(Map<String, Image> sprites) {
+        final List<String> names = new ArrayList<String>(sprites.keySet());
+        Collections.sort(names, (a, b) -> Double.compare(sprites.get(b).getHeight(), sprites.get(a).getHeight()));
+
+        // a square-ish width that fits the widest sprite, rounded up to a power of two
+        double area = 0;
+        int widest = 1;
+        for(Image sprite : sprites.values()) {
+            final int w = (int)sprite.getWidth() + 2 * PADDING, h = (int)sprite.getHeight() + 2 * PADDING;
+            area += (double)w * h;
+            widest = Math.max(widest, w);
+        }
+        final int width = Integer.highestOneBit(Math.max(widest, (int)Math.ceil(Math.sqrt(area))) * 2 - 1);
+
+        final Map<String, Rectangle2D> regions = new HashMap<String, Rectangle2D>();
+        int x = 0, y = 0, shelf = 0;
+        for(String name : names) {
+            final Image sprite = sprites.get(name);
+            final int w = (int)sprite.getWidth(), h = (int)sprite.getHeight();
+            if(x + w + 2 * PADDING > width) {
+                x = 0;
+                y += shelf;
+                shelf = 0;
+            }
+            regions.put(name, new Rectangle2D(x + PADDING, y + PADDING, w, h));
+            x += w + 2 * PADDING;
+            shelf = Math.max(shelf, h + 2 * PADDING);
+        }
+
+        final WritableImage atlas = new WritableImage(width, Math.max(1, y + shelf));
+        for(String name : names) {
+            final Image sprite = sprites.get(name);
+            final Rectangle2D at = regions.get(name);
+            atlas.getPixelWriter().setPixels((int)at.getMinX(), (int)at.getMinY(), (int)at.getWidth(),
+                    (int)at.getHeight(), sprite.getPixelReader(), 0, 0);
+        }
+        return new SpriteAtlas(atlas, regions);
+    }
+
+    /**
+     * Gets the packed image
+     * @return the image
+     */
+    public Image getImage() {
+        return this.image;
+    }
+
+    /**
+     * Gets where a sprite is in the packed image
+     * @param name the sprite's name
+     * @return the region, or null if the atlas has no such sprite
+     */
+    public Rectangle2D getRegion(String name) {
+        return this.regions.get(name);
+    }
+
+    /**
+     * Gets the memory the packed image takes
+     * @return the size in bytes
+     */
+    public long getSize() {
+        return (long)this.image.getWidth() * (long)this.image.getHeight() * 4;
+    }
+
+}
@@ -0,0 +1,127 @@
+package application;
+
+/**
+ * A SweptCollision class that finds when a moving circle first touches a box during a tick
+ */
+public class SweptCollision {
+
+    private double time;
+    private int side;
+
+    /**
+     * Sweeps a circle along a path against a box, treating the box as grown by the radius with rounded corners
+     * @param x the circle's starting center x coordinate
+     * @param y the circle's starting center y coordinate
+     * @param vx the x distance travelled over the sweep
+     * @param vy the y distance travelled over the sweep
+     * @param radius the circle's radius
+     * @param minX the box's left edge
+     * @param minY the box's top edge
+     * @param maxX the box's right edge
+     * @param maxY the box's bottom edge
+     * @return true if the circle touches the box during the sweep & vice versa
+     */
+    public boolean circleVsBox(double x, double y, double vx, double vy, double radius,
+            double minX, double minY, double maxX, double maxY) {
+        double enter = Double.NEGATIVE_INFINITY;
+        double exit = Double.POSITIVE_INFINITY;
+        boolean enterX = false;
+
+        if(vx == 0) {
+            if(x < minX - radius || x > maxX + radius) return false;
+        }
+        else {
+            double t1 = (minX - radius - x) / vx;
+            double t2 = (maxX + radius - x) / vx;
+            if(t1 > t2) { double t = t1; t1 = t2; t2 = t; }
+            enter = t1;
+            exit = t2;
+            enterX = true;
+        }
+
+        if(vy == 0) {
+            if(y < minY - radius || y > maxY + radius) return false;
+        }
+        else {
+            double t1 = (minY - radius - y) / vy;
+            double t2 = (maxY + radius - y) / vy;
+            if(t1 > t2) { double t = t1; t1 = t2; t2 = t; }
+            if(t1 > enter) {
+                enter = t1;
+                enterX = false;
+            }
+            exit = Math.min(exit, t2);
+        }
+
+        if(enter > exit || exit < 0 || enter > 1) {
+            return false;
+        }
+
+        // a start inside the grown box is only a new hit if it is in a corner square outside the rounding
+        final double hitX = x + vx * Math.max(enter, 0);
+        final double hitY = y + vy * Math.max(enter, 0);
+        final boolean outsideX = hitX < minX || hitX > maxX;
+        final boolean outsideY = hitY < minY || hitY > maxY;
+
+        if(!(outsideX && outsideY)) {
+            if(enter < 0) {
+                return false;
+            }
+            this.time = enter;
+            this.side = enterX ? -1 : 1;
+            return true;
+        }
+
+        // the path entered a corner square, so it hits the rounded corner or nothing
+        final double cx = hitX < minX ? minX : maxX;
+        final double cy = hitY < minY ? minY : maxY;
+        final double ox = x - cx, oy = y - cy;
+        final double a = vx * vx + vy * vy;
+        final double b = ox * vx + oy * vy;
+        final double c = ox * ox + oy * oy - radius * radius;
+        final double disc = b * b - a * c;
+
+        if(disc < 0 || b >= 0) {
+            return false;
+        }
+
+        final double t = (-b - Math.sqrt(disc)) / a;
+        if(t < 0 || t > 1) {
+            return false;
+        }
+
+        // bounce off the axis the corner normal leans toward so speeds stay axis aligned
+        final double nx = Math.abs(x + vx * t - cx);
+        final double ny = Math.abs(y + vy * t - cy);
+        this.time = t;
+        this.side = nx > ny ? -1 : 1;
+        return true;
+    }
+
+    /**
+     * Gets the fraction of the sweep at which the last hit happened
+     * @return the time of impact from 0 to 1
+     */
+    public double getTime() {
+        return this.time;
+    }
+
+    /**
+     * Gets the side of the box the last hit was on
+     * @return 1 for a top or bottom hit and -1 for a left or right hit
+     */
+    public int getSide() {
+        return this.side;
+    }
+
+    /**
+     * Stores a hit found elsewhere, such as the earliest of several boxes
+     * @param time the time of impact
+     * @param side the side of the box
+     */
+    public void set(double time, int side) {
+        this.time = time;
+        this.side = side;
+    }
+
+}
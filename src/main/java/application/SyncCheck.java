@@ -0,0 +1,187 @@
+package application;
+
+import java.io.IOException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+/**
+ * A SyncCheck class that runs the whole leaderboard sync against the stub score server on loopback
+ *
+ * Two kiosks share a server that fails their first requests, so they only converge by retrying. Then one kiosk
+ * loses the acknowledgement of a batch and sends it again, which the server must not count twice. Last, the
+ * server is restarted empty, and a kiosk must notice, pull the new leaderboard from the start and keep what it
+ * sends afterwards across its own restart. Everything runs in a temporary directory and no network is needed.
+ */
+public class SyncCheck {
+
+    private static final long TIMEOUT_MILLIS = 30000;
+    private static final long POLL_MILLIS = 50;
+
+    private int failed;
+
+    /**
+     * Runs the checks and exits with 1 if any failed
+     * @param args unused
+     * @throws IOException if the files or the server cannot be set up
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        SyncCheck check = new SyncCheck();
+        check.run(Files.createTempDirectory("sync-check"));
+        System.out.println(check.failed == 0 ? "all sync checks passed" : check.failed + " sync checks FAILED");
+        System.exit(check.failed == 0 ? 0 : 1);
+    }
+
+    /**
+     * Runs the checks in order, each starting from where the last left off
+     * @param dir the directory the kiosks keep their files in
+     * @throws IOException if the files or the server cannot be set up
+     * @throws InterruptedException if interrupted while waiting
+     */
+    private void run(Path dir) throws IOException, InterruptedException {
+        final Path dirA = dir.resolve("a"), dirB = dir.resolve("b");
+        ScoreServer server = ScoreServer.startLocal();
+        URL url = new URL(server.getUrl());
+
+        // retries: the first requests fail, and both kiosks still end up with every score in the same order
+        server.setFailures(3);
+        final ScoreSync a = new ScoreSync(dirA, url, "a");
+        final ScoreSync b = new ScoreSync(dirB, url, "b");
+        a.enqueue(scores(1, 300));
+        b.enqueue(scores(1001, 200));
+        expect("kiosks converge through failed requests", waitFor(() -> synced(a, 500) && synced(b, 500), a, b));
+        expect("both kiosks rank the same", sameOrder(a, b));
+        expect("the failed requests were retried", a.getRetries() + b.getRetries() >= 3);
+        System.out.println("a: " + a.getStats());
+        System.out.println("b: " + b.getStats());
+        b.close();
+        a.close();
+
+        // dedupe: a batch whose acknowledgement was lost is sent again and counted once
+        server.setFailures(Integer.MAX_VALUE);
+        final ScoreSync offline = new ScoreSync(dirA, url, "a");
+        offline.enqueue(scores(2001, 10));
+        expect("scores wait in the outbox while the server fails", waitFor(() -> offline.getFailures() > 0)
+                && offline.getPendingCount() == 10 && offline.getRankedCount() == 510);
+        offline.close();
+        final Path outbox = dirA.resolve("outbox.log"), unacked = dir.resolve("outbox.unacked");
+        Files.copy(outbox, unacked, StandardCopyOption.REPLACE_EXISTING);
+
+        server.setFailures(0);
+        final ScoreSync online = new ScoreSync(dirA, url, "a");
+        expect("the outbox drains once the server answers", waitFor(() -> synced(online, 510), online));
+        online.close();
+
+        Files.copy(unacked, outbox, StandardCopyOption.REPLACE_EXISTING);
+        final ScoreSync resend = new ScoreSync(dirA, url, "a");
+        expect("an unacknowledged batch is sent again", waitFor(() -> synced(resend, 510), resend));
+        expect("the server drops the resent records", server.getDuplicates() == 10 && server.getCount() == 510);
+        resend.close();
+        server.stop();
+
+        // restart: a new server run has none of the old records, and the kiosk's cursor must not skip its new ones
+        server = ScoreServer.startLocal();
+        url = new URL(server.getUrl());
+        final long epoch = server.getEpoch();
+        final ScoreSync restarted = new ScoreSync(dirA, url, "a");
+        expect("the kiosk notices the restarted server", waitFor(() -> restarted.getEpoch() == epoch, restarted)
+                && restarted.getRankedCount() == 0);
+        final List<Score> late = scores(3001, 5);
+        restarted.enqueue(late);
+        expect("scores sent after the restart are pulled back", waitFor(() -> synced(restarted, 5), restarted)
+                && restarted.getCursor() == 5 && restarted.getRank(late.get(0)) >= 0);
+        restarted.close();
+
+        final ScoreSync reopened = new ScoreSync(dirA, url, "a");
+        expect("they survive the kiosk's own restart", reopened.getRankedCount() == 5 && reopened.getCursor() == 5);
+        reopened.close();
+        server.stop();
+    }
+
+    /**
+     * Makes scores as a store would have given them
+     * @param firstId the first score's id
+     * @param n the number of scores
+     * @return the scores
+     */
+    private static List<Score> scores(long firstId, int n) {
+        List<Score> scores = new ArrayList<Score>(n);
+        for(int i = 0; i < n; i++) {
+            scores.add(new Score(firstId + i, 1000 * (firstId + i), (int)((firstId + i) * 7 % 50), "p" + (firstId + i),
+                    "2026-10-17"));
+        }
+        return scores;
+    }
+
+    /**
+     * Checks that a kiosk has sent everything and pulled the whole leaderboard back
+     * @param sync the kiosk
+     * @param count the number of scores on the server
+     * @return true if it is caught up & vice versa
+     */
+    private static boolean synced(ScoreSync sync, int count) {
+        return sync.getPendingCount() == 0 && sync.getCursor() == count && sync.getRankedCount() == count;
+    }
+
+    /**
+     * Checks that two kiosks rank the same scores the same way
+     * @param a one kiosk
+     * @param b the other
+     * @return true if every page matches & vice versa
+     */
+    private static boolean sameOrder(ScoreSync a, ScoreSync b) {
+        List<Score> left = new ArrayList<Score>(), right = new ArrayList<Score>();
+        a.getPage(0, a.getRankedCount(), left);
+        b.getPage(0, b.getRankedCount(), right);
+        if(left.size() != right.size()) {
+            return false;
+        }
+        for(int i = 0; i < left.size(); i++) {
+            if(left.get(i).getId() != right.get(i).getId() || !left.get(i).getName().equals(right.get(i).getName())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Waits for a condition, waking kiosks that are not backing off so they do not wait for their next poll
+     * @param condition the condition
+     * @param kiosks the kiosks to wake
+     * @return true if the condition held before the timeout & vice versa
+     * @throws InterruptedException if interrupted while waiting
+     */
+    private static boolean waitFor(BooleanSupplier condition, ScoreSync... kiosks) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while(!condition.getAsBoolean()) {
+            if(System.currentTimeMillis() > deadline) {
+                return false;
+            }
+            for(ScoreSync sync : kiosks) {
+                if(sync.getFailures() == 0) {
+                    sync.syncNow();
+                }
+            }
+            Thread.sleep(POLL_MILLIS);
+        }
+        return true;
+    }
+
+    /**
+     * Reports one check
+     * @param name what was checked
+     * @param passed whether it held
+     */
+    private void expect(String name, boolean passed) {
+        System.out.println((passed ? "ok    " : "FAIL  ") + name);
+        if(!passed) {
+            this.failed++;
+        }
+    }
+
+}
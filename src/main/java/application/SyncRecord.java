@@ -0,0 +1,73 @@
+package application;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * A SyncRecord class that holds one score as it is shared between kiosks
+ *
+ * The id names the kiosk and the score's id in that kiosk's store, so the server can tell a resent score from a
+ * new one. The same encoding is used on the wire, in the outbox and in the file of pulled scores.
+ */
+public final class SyncRecord {
+
+    private final String id;
+    private final Score score;
+
+    /**
+     * Constructor of the SyncRecord class
+     * @param id the record id, unique across kiosks
+     * @param score the score
+     */
+    public SyncRecord(String id, Score score) {
+        this.id = id;
+        this.score = score;
+    }
+
+    /**
+     * Gets the record id
+     * @return the id
+     */
+    public String getId() {
+        return this.id;
+    }
+
+    /**
+     * Gets the score
+     * @return the score, whose own id only means something where it was made
+     */
+    public Score getScore() {
+        return this.score;
+    }
+
+    /**
+     * Writes the record
+     * @param out the stream
+     * @throws IOException if the stream fails
+     */
+    public void write(DataOutputStream out) throws IOException {
+        out.writeUTF(this.id);
+        out.writeLong(this.score.getTime());
+        out.writeInt(this.score.getLevel());
+        out.writeUTF(this.score.getName());
+        out.writeUTF(this.score.getDate());
+        out.writeInt(this.score.getLives());
+        out.writeLong(this.score.getDuration());
+        out.writeLong(this.score.getSeed());
+    }
+
+    /**
+     * Reads what write wrote
+     * @param in the stream
+     * @param scoreId the id to give the score
+     * @return the record
+     * @throws IOException if the stream ends early
+     */
+    public static SyncRecord read(DataInputStream in, long scoreId) throws IOException {
+        final String id = in.readUTF();
+        return new SyncRecord(id, new Score(scoreId, in.readLong(), in.readInt(), in.readUTF(), in.readUTF(),
+                in.readInt(), in.readLong(), in.readLong()));
+    }
+
+}
@@ -0,0 +1,79 @@
+package application;
+
+import javafx.animation.PauseTransition;
+import javafx.util.Duration;
+
+/**
+ * A TransitionTimer class that runs delayed screen transitions on the FX thread without starting threads
+ *
+ * Only the latest transition is kept: scheduling one cancels whatever was pending. Each transition is tagged
+ * with a generation, and an action only runs if its generation is still current when the delay ends, so a
+ * cancelled transition can never switch screens late.
+ */
+public class TransitionTimer {
+
+    private final PauseTransition pause = new PauseTransition();
+    private long generation;
+    private boolean pending;
+
+    /**
+     * Runs an action after a delay, cancelling the pending transition
+     * @param delay the delay
+     * @param action the action, run on the FX thread
+     * @return the generation of the new transition
+     */
+    public long schedule(Duration delay, Runnable action) {
+        cancel();
+        final long tag = this.generation;
+
+        this.pause.setDuration(delay);
+        this.pause.setOnFinished(e -> {
+            if(tag == this.generation) {
+                this.pending = false;
+                action.run();
+            }
+        });
+        this.pending = true;
+        this.pause.playFromStart();
+        return tag;
+    }
+
+    /**
+     * Cancels the pending transition, if any
+     */
+    public void cancel() {
+        this.pause.stop();
+        this.pending = false;
+        this.generation++;
+    }
+
+    /**
+     * Cancels a transition if it is still the pending one
+     * @param tag the generation returned when it was scheduled
+     * @return true if it was cancelled & false if it already ran or was replaced
+     */
+    public boolean cancel(long tag) {
+        if(!this.pending || tag != this.generation) {
+            return false;
+        }
+        cancel();
+        return true;
+    }
+
+    /**
+     * Checks if a transition is waiting to run
+     * @return true if one is pending & vice versa
+     */
+    public boolean isPending() {
+        return this.pending;
+    }
+
+    /**
+     * Gets the generation of the latest transition
+     * @return the generation
+     */
+    public long getGeneration() {
+        return this.generation;
+    }
+
+}
@@ -0,0 +1,831 @@
+package application;
+
+/**
+ * A World class that holds the game state as plain fields so it can be stepped without a Stage
+ */
+public class World {
+
+    private static final int MAX_HITS_PER_TICK = 8;
+    private static final int NONE = 0, WALL_X = 1, WALL_Y = 2, BOTTOM = 3, PADDLE = 4, BRICK = 5, WON = 6;
+    private static final double SPLIT_ANGLE = 0.3;
+    // one destroyed brick in MULTI_BALL_ODDS drops a power-up that splits every ball in three
+    private static final int MULTI_BALL_ODDS = 8;
+    private static final int MULTI_BALL_COPIES = 2;
+
+    /**
+     * The most balls that can be in play at once
+     */
+    public static final int MAX_BALLS = 1024;
+
+    /**
+     * Input bits for step: paddle left, paddle right, and whether the ball is in play
+     */
+    public static final int LEFT = 1, RIGHT = 2, LAUNCHED = 4;
+
+    private double width;
+    private double height;
+
+    private final BallPool balls = new BallPool(64);
+    private double ballRadius;
+    private double ballHomeX, ballHomeY;
+
+    private double paddleX, paddleY, paddleWidth, paddleHeight;
+    private double paddleHomeX;
+    private double prevPaddleX;
+    private double paddleStep;
+
+    private long seed;
+    private int version;
+
+    private BrickField bricks;
+    private final SweptCollision sweep = new SweptCollision();
+
+    private final GameEvents events = new GameEvents();
+
+    /**
+     * A constructor that creates the world
+     *
+     * @param width the width of the playing field
+     * @param height the height of the playing field
+     * @param bricks the bricks
+     */
+    public World(double width, double height, BrickField bricks) {
+        this.width = width;
+        this.height = height;
+        this.bricks = bricks;
+        this.balls.spawn(0, 0, 0, 0);
+        this.events.addBrickDestroyedListener(event -> dropPowerUp());
+    }
+
+    /**
+     * Sets the size of the playing field
+     *
+     * @param width the width
+     * @param height the height
+     */
+    public void setSize(double width, double height) {
+        this.version++;
+        this.width = width;
+        this.height = height;
+    }
+
+    /**
+     * Places the ball and sets the position it returns to on reset
+     *
+     * @param x the center x coordinate
+     * @param y the center y coordinate
+     * @param radius the radius
+     */
+    public void setBallHome(double x, double y, double radius) {
+        this.version++;
+        this.ballHomeX = x;
+        this.ballHomeY = y;
+        this.ballRadius = radius;
+        resetBalls();
+        snapshot();
+    }
+
+    /**
+     * Places the paddle and sets the position it returns to on reset
+     *
+     * @param x the left edge
+     * @param y the top edge
+     * @param width the width
+     * @param height the height
+     */
+    public void setPaddleHome(double x, double y, double width, double height) {
+        this.version++;
+        this.paddleHomeX = x;
+        this.paddleX = x;
+        this.paddleY = y;
+        this.paddleWidth = width;
+        this.paddleHeight = height;
+        snapshot();
+    }
+
+    /**
+     * Sets the starting speed of the ball
+     *
+     * @param speed the speed of the ball
+     */
+    public void setStartingSpeed(double speed) {
+        this.version++;
+        this.balls.setVelocity(0, (nextRandom() & 1) == 0 ? speed : -speed, -speed);
+    }
+
+    /**
+     * Leaves a single ball in play at its starting position, keeping the first ball's speed
+     */
+    private void resetBalls() {
+        final double dx = this.balls.getDX(0), dy = this.balls.getDY(0);
+        this.balls.clear();
+        this.balls.spawn(this.ballHomeX, this.ballHomeY, dx, dy);
+    }
+
+    /**
+     * Puts another ball in play
+     *
+     * @param x the center x coordinate
+     * @param y the center y coordinate
+     * @param dx the horizontal speed
+     * @param dy the vertical speed
+     * @return the ball's index, or -1 if MAX_BALLS are already in play
+     */
+    public int spawnBall(double x, double y, double dx, double dy) {
+        if(this.balls.getCount() >= MAX_BALLS) {
+            return -1;
+        }
+        this.version++;
+        return this.balls.spawn(x, y, dx, dy);
+    }
+
+    /**
+     * Splits every ball in play into several, each copy fanned out from the original's direction at the same speed
+     *
+     * @param copies the number of copies to add per ball
+     * @return the number of balls added, which stops short at MAX_BALLS
+     */
+    public int splitBalls(int copies) {
+        this.version++;
+        return fanOut(copies);
+    }
+
+    /**
+     * Splits the balls when a destroyed brick drops a multi-ball power-up. Whether it does is drawn from the world's
+     * seed during the tick, so a replay splits them on the same ticks without recording it
+     */
+    private void dropPowerUp() {
+        if(Long.remainderUnsigned(nextRandom(), MULTI_BALL_ODDS) == 0) {
+            fanOut(MULTI_BALL_COPIES);
+        }
+    }
+
+    /**
+     * Adds the copies of every ball in play, leaving the version alone so a power-up during a step is not recorded
+     *
+     * @param copies the number of copies to add per ball
+     * @return the number of balls added
+     */
+    private int fanOut(int copies) {
+        final int n = this.balls.getCount();
+        int added = 0;
+        for(int i = 0; i < n; i++) {
+            final double dx = this.balls.getDX(i), dy = this.balls.getDY(i);
+            final double speed = Math.sqrt(dx * dx + dy * dy);
+
+            for(int c = 1; c <= copies; c++) {
+                final double angle = SPLIT_ANGLE * ((c + 1) / 2) * ((c & 1) == 0 ? -1 : 1);
+                final double cos = Math.cos(angle), sin = Math.sin(angle);
+                double ndx = dx * cos - dy * sin, ndy = dx * sin + dy * cos;
+
+                // a copy moving nearly sideways would take forever to come back down, so mirror the original instead
+                if(Math.abs(ndy) < speed / 4) {
+                    ndx = -dx;
+                    ndy = dy;
+                }
+                if(this.balls.getCount() >= MAX_BALLS) {
+                    return added;
+                }
+                this.balls.spawn(this.balls.getX(i), this.balls.getY(i), ndx, ndy);
+                added++;
+            }
+        }
+        return added;
+    }
+
+    /**
+     * Seeds the world's random numbers, which choose the ball's starting direction and the bricks that drop power-ups
+     *
+     * @param seed the seed
+     */
+    public void setSeed(long seed) {
+        this.version++;
+        this.seed = seed;
+    }
+
+    /**
+     * Draws the next random number with SplitMix64, whose whole state is the seed field so it can be saved and restored
+     *
+     * @return the random bits
+     */
+    private long nextRandom() {
+        return SplitMix64.mix(this.seed += SplitMix64.GAMMA);
+    }
+
+    /**
+     * Sets how far the paddle moves in a step
+     *
+     * @param paddleStep the paddle distance per tick
+     */
+    public void setPaddleStep(double paddleStep) {
+        this.version++;
+        this.paddleStep = paddleStep;
+    }
+
+    /**
+     * Gets how far the paddle moves in a step
+     *
+     * @return the paddle distance per tick
+     */
+    public double getPaddleStep() {
+        return this.paddleStep;
+    }
+
+    /**
+     * Runs one tick of play from its input: moves the paddle, carries the balls along until they are launched,
+     * then moves the balls. This is the only change to the world a replay log records per tick
+     *
+     * @param input the LEFT, RIGHT and LAUNCHED bits
+     */
+    public void step(int input) {
+        snapshot();
+
+        final int direction = ((input & RIGHT) != 0 ? 1 : 0) - ((input & LEFT) != 0 ? 1 : 0);
+        if(direction != 0) {
+            final double move = direction * this.paddleStep;
+            if(slidePaddle(move) && (input & LAUNCHED) == 0) {
+                for(int i = 0; i < this.balls.getCount(); i++) {
+                    this.balls.setPosition(i, this.balls.getX(i) + move, this.balls.getY(i));
+                }
+            }
+        }
+
+        if((input & LAUNCHED) != 0) {
+            tick();
+        }
+    }
+
+    /**
+     * Gets the bus the world posts brick hits, lost lives and cleared levels to, dispatched at the end of each tick
+     *
+     * @return the events
+     */
+    public GameEvents getEvents() {
+        return this.events;
+    }
+
+    /**
+     * Remembers the current positions so rendering can interpolate from them
+     */
+    public void snapshot() {
+        this.balls.snapshot();
+        this.prevPaddleX = this.paddleX;
+    }
+
+    /**
+     * Moves every ball one tick in a single pass over the pool, bouncing off walls, bricks and the paddle in the
+     * order each ball reaches them. A ball that reaches the bottom leaves play, and a life is only lost when no
+     * balls are left. What happened is dispatched to the event listeners once every ball has moved
+     */
+    public void tick() {
+        checkPaddleCollision();
+
+        // going from the last ball down means a despawn only ever moves in a ball that has already moved
+        boolean lost = false;
+        double lostX = 0;
+        for(int i = this.balls.getCount() - 1; i >= 0; i--) {
+            final int result = moveBall(i);
+            if(result == WON) {
+                lost = false;
+                break;
+            }
+            if(result == BOTTOM) {
+                lostX = this.balls.getX(i);
+                this.balls.despawn(i);
+                lost = true;
+            }
+        }
+
+        if(lost && this.balls.getCount() == 0) {
+            this.events.postLifeLost(lostX);
+        }
+        this.events.dispatch();
+    }
+
+    /**
+     * Moves one ball one tick
+     *
+     * @param i the ball's index
+     * @return BOTTOM if the ball left the field, WON if it cleared the bricks & NONE for vice versa
+     */
+    private int moveBall(int i) {
+        final double r = this.ballRadius;
+        double x = this.balls.getX(i), y = this.balls.getY(i);
+        double dx = this.balls.getDX(i), dy = this.balls.getDY(i);
+        double remaining = 1;
+        int result = NONE;
+
+        for(int hits = 0; hits < MAX_HITS_PER_TICK && remaining > 0; hits++) {
+            final double vx = dx * remaining;
+            final double vy = dy * remaining;
+
+            int target = NONE;
+            double time = Double.POSITIVE_INFINITY;
+
+            if(vx < 0) {
+                time = Math.max(0, (r - x) / vx);
+                target = WALL_X;
+            }
+            else if(vx > 0) {
+                time = Math.max(0, (this.width - r - x) / vx);
+                target = WALL_X;
+            }
+
+            if(vy < 0) {
+                final double t = Math.max(0, (r - y) / vy);
+                if(t < time) {
+                    time = t;
+                    target = WALL_Y;
+                }
+            }
+            else if(vy > 0) {
+                final double t = Math.max(0, (this.height - r - y) / vy);
+                if(t < time) {
+                    time = t;
+                    target = BOTTOM;
+                }
+
+                if(this.sweep.circleVsBox(x, y, vx, vy, r, this.paddleX, this.paddleY,
+                        this.paddleX + this.paddleWidth, this.paddleY + this.paddleHeight) && this.sweep.getTime() < time) {
+                    time = this.sweep.getTime();
+                    target = PADDLE;
+                }
+            }
+
+            final int brick = this.bricks.checkCollision(x, y, vx, vy, r, this.sweep);
+            if(brick >= 0 && this.sweep.getTime() <= time) {
+                time = this.sweep.getTime();
+                target = BRICK;
+            }
+
+            if(time > 1) {
+                x += vx;
+                y += vy;
+                break;
+            }
+
+            x += vx * time;
+            y += vy * time;
+            remaining *= 1 - time;
+
+            if(target == WALL_X) {
+                dx *= -1;
+            }
+            else if(target == WALL_Y) {
+                dy *= -1;
+            }
+            else if(target == PADDLE) {
+                dy = -Math.abs(dy);
+            }
+            else if(target == BRICK) {
+                if(this.sweep.getSide() == -1) dx *= -1;
+                else dy *= -1;
+
+                // stop once the level is won, leaving the balls for the listeners to reset
+                if(this.bricks.increaseDamage(brick, this.events)) {
+                    result = WON;
+                    break;
+                }
+            }
+            else if(target == BOTTOM) {
+                result = BOTTOM;
+                break;
+            }
+        }
+
+        if(result != WON) {
+            this.balls.setPosition(i, x, y);
+            this.balls.setVelocity(i, dx, dy);
+        }
+        return result;
+    }
+
+    /**
+     * Pushes the balls out of the paddle if the paddle moved into them
+     *
+     * @return the number of balls pushed out
+     */
+    public int checkPaddleCollision() {
+        final double r = this.ballRadius;
+        int pushed = 0;
+        for(int i = 0; i < this.balls.getCount(); i++) {
+            final double x = this.balls.getX(i), y = this.balls.getY(i);
+            final boolean insideX = x + r > this.paddleX && x - r < this.paddleX + this.paddleWidth;
+            final boolean insideY = y + r > this.paddleY && y - r < this.paddleY + this.paddleHeight;
+
+            if(insideX && insideY && this.balls.getDY(i) > 0) {
+                this.balls.setPosition(i, x, this.paddleY - r);
+                this.balls.setVelocity(i, this.balls.getDX(i), -this.balls.getDY(i));
+                pushed++;
+            }
+        }
+
+        return pushed;
+    }
+
+    /**
+     * Moves the paddle from left to right
+     *
+     * @param dx the distance to move
+     * @return true if paddle moved & vice versa
+     */
+    public boolean movePaddle(double dx) {
+        this.version++;
+        return slidePaddle(dx);
+    }
+
+    /**
+     * Moves the paddle unless it would cross a border
+     *
+     * @param dx the distance to move
+     * @return true if paddle moved & vice versa
+     */
+    private boolean slidePaddle(double dx) {
+        final boolean atLeftBorder = this.paddleX + dx <= 0;
+        final boolean atRightBorder = this.paddleX + this.paddleWidth + dx >= this.width;
+
+        if (!atLeftBorder && !atRightBorder) {
+            this.paddleX += dx;
+            return true;
+        }
+        else {
+            return false;
+        }
+    }
+
+    /**
+     * Puts the paddle back to its starting position with a single ball on it
+     *
+     * @param startingSpeed the starting speed of the ball
+     */
+    public void resetPlayer(double startingSpeed) {
+        this.version++;
+        this.paddleX = this.paddleHomeX;
+        resetBalls();
+        setStartingSpeed(startingSpeed);
+        snapshot();
+    }
+
+    /**
+     * Gets the bricks
+     *
+     * @return the bricks
+     */
+    public BrickField getBricks() {
+        return this.bricks;
+    }
+
+    /**
+     * Swaps in a different set of bricks, such as a level built ahead of time
+     *
+     * @param bricks the bricks
+     */
+    public void setBricks(BrickField bricks) {
+        this.version++;
+        this.bricks = bricks;
+    }
+
+    /**
+     * Gets a counter that changes whenever the world is changed other than by step, so a recorder knows to save it
+     *
+     * @return the version
+     */
+    public int getVersion() {
+        return this.version;
+    }
+
+    /**
+     * Writes the balls, paddle, field size and random state, but not the bricks
+     *
+     * @param out the replay buffer
+     */
+    public void writeState(ReplayBuffer out) {
+        out.putDouble(this.width);
+        out.putDouble(this.height);
+        out.putDouble(this.ballRadius);
+        out.putDouble(this.ballHomeX);
+        out.putDouble(this.ballHomeY);
+        out.putVarLong(this.balls.getCount());
+        for(int i = 0; i < this.balls.getCount(); i++) {
+            out.putDouble(this.balls.getX(i));
+            out.putDouble(this.balls.getY(i));
+            out.putDouble(this.balls.getDX(i));
+            out.putDouble(this.balls.getDY(i));
+        }
+        out.putDouble(this.paddleX);
+        out.putDouble(this.paddleY);
+        out.putDouble(this.paddleWidth);
+        out.putDouble(this.paddleHeight);
+        out.putDouble(this.paddleHomeX);
+        out.putDouble(this.paddleStep);
+        out.putLong(this.seed);
+    }
+
+    /**
+     * Restores what writeState wrote
+     *
+     * @param in the replay buffer
+     */
+    public void readState(ReplayBuffer in) {
+        this.version++;
+        this.width = in.getDouble();
+        this.height = in.getDouble();
+        this.ballRadius = in.getDouble();
+        this.ballHomeX = in.getDouble();
+        this.ballHomeY = in.getDouble();
+        this.balls.clear();
+        for(int n = in.getVarInt(); n > 0; n--) {
+            this.balls.spawn(in.getDouble(), in.getDouble(), in.getDouble(), in.getDouble());
+        }
+        this.paddleX = in.getDouble();
+        this.paddleY = in.getDouble();
+        this.paddleWidth = in.getDouble();
+        this.paddleHeight = in.getDouble();
+        this.paddleHomeX = in.getDouble();
+        this.paddleStep = in.getDouble();
+        this.seed = in.getLong();
+        snapshot();
+    }
+
+    /**
+     * Hashes the whole simulation state, bricks included, to check a replay against its recording
+     *
+     * @return the state hash
+     */
+    public long hash() {
+        long h = ReplayBuffer.hashStart();
+        h = ReplayBuffer.hash(h, this.width);
+        h = ReplayBuffer.hash(h, this.height);
+        h = ReplayBuffer.hash(h, this.ballRadius);
+        h = ReplayBuffer.hash(h, (long)this.balls.getCount());
+        for(int i = 0; i < this.balls.getCount(); i++) {
+            h = ReplayBuffer.hash(h, this.balls.getX(i));
+            h = ReplayBuffer.hash(h, this.balls.getY(i));
+            h = ReplayBuffer.hash(h, this.balls.getDX(i));
+            h = ReplayBuffer.hash(h, this.balls.getDY(i));
+        }
+        h = ReplayBuffer.hash(h, this.paddleX);
+        h = ReplayBuffer.hash(h, this.paddleY);
+        h = ReplayBuffer.hash(h, this.paddleWidth);
+        h = ReplayBuffer.hash(h, this.seed);
+        return this.bricks.hash(h);
+    }
+
+    /**
+     * Gets the width of the playing field
+     *
+     * @return the width of the playing field
+     */
+    public double getWidth() {
+        return this.width;
+    }
+
+    /**
+     * Gets the height of the playing field
+     *
+     * @return the height of the playing field
+     */
+    public double getHeight() {
+        return this.height;
+    }
+
+    /**
+     * Gets the number of balls in play
+     *
+     * @return the ball count
+     */
+    public int getBallCount() {
+        return this.balls.getCount();
+    }
+
+    /**
+     * Gets the first ball's center x coordinate
+     *
+     * @return the ball's center x coordinate
+     */
+    public double getBallX() {
+        return this.balls.getX(0);
+    }
+
+    /**
+     * Gets the first ball's center y coordinate
+     *
+     * @return the ball's center y coordinate
+     */
+    public double getBallY() {
+        return this.balls.getY(0);
+    }
+
+    /**
+     * Gets the first ball's center x coordinate between the last two ticks
+     *
+     * @param alpha the fraction of a tick past the snapshot
+     * @return the interpolated x coordinate
+     */
+    public double getBallX(double alpha) {
+        return this.balls.getX(0, alpha);
+    }
+
+    /**
+     * Gets the first ball's center y coordinate between the last two ticks
+     *
+     * @param alpha the fraction of a tick past the snapshot
+     * @return the interpolated y coordinate
+     */
+    public double getBallY(double alpha) {
+        return this.balls.getY(0, alpha);
+    }
+
+    /**
+     * Gets a ball's center x coordinate
+     *
+     * @param i the ball's index
+     * @return the ball's center x coordinate
+     */
+    public double getBallX(int i) {
+        return this.balls.getX(i);
+    }
+
+    /**
+     * Gets a ball's center y coordinate
+     *
+     * @param i the ball's index
+     * @return the ball's center y coordinate
+     */
+    public double getBallY(int i) {
+        return this.balls.getY(i);
+    }
+
+    /**
+     * Gets a ball's center x coordinate between the last two ticks
+     *
+     * @param i the ball's index
+     * @param alpha the fraction of a tick past the snapshot
+     * @return the interpolated x coordinate
+     */
+    public double getBallX(int i, double alpha) {
+        return this.balls.getX(i, alpha);
+    }
+
+    /**
+     * Gets a ball's center y coordinate between the last two ticks
+     *
+     * @param i the ball's index
+     * @param alpha the fraction of a tick past the snapshot
+     * @return the interpolated y coordinate
+     */
+    public double getBallY(int i, double alpha) {
+        return this.balls.getY(i, alpha);
+    }
+
+    /**
+     * Gets a ball's horizontal speed
+     *
+     * @param i the ball's index
+     * @return the ball's horizontal speed
+     */
+    public double getBallDX(int i) {
+        return this.balls.getDX(i);
+    }
+
+    /**
+     * Gets a ball's vertical speed
+     *
+     * @param i the ball's index
+     * @return the ball's vertical speed
+     */
+    public double getBallDY(int i) {
+        return this.balls.getDY(i);
+    }
+
+    /**
+     * Gets the ball's radius
+     *
+     * @return the ball's radius
+     */
+    public double getBallRadius() {
+        return this.ballRadius;
+    }
+
+    /**
+     * Gets the ball's starting x coordinate
+     *
+     * @return the ball's starting x coordinate
+     */
+    public double getBallHomeX() {
+        return this.ballHomeX;
+    }
+
+    /**
+     * Gets the ball's starting y coordinate
+     *
+     * @return the ball's starting y coordinate
+     */
+    public double getBallHomeY() {
+        return this.ballHomeY;
+    }
+
+    /**
+     * Gets the first ball's horizontal speed
+     *
+     * @return the ball's horizontal speed
+     */
+    public double getBallDX() {
+        return this.balls.getDX(0);
+    }
+
+    /**
+     * Gets the first ball's vertical speed
+     *
+     * @return the ball's vertical speed
+     */
+    public double getBallDY() {
+        return this.balls.getDY(0);
+    }
+
+    /**
+     * Sets the first ball's center x coordinate
+     *
+     * @param x the ball's center x coordinate
+     */
+    public void setBallX(double x) {
+        this.version++;
+        this.balls.setPosition(0, x, this.balls.getY(0));
+    }
+
+    /**
+     * Sets the first ball's center y coordinate
+     *
+     * @param y the ball's center y coordinate
+     */
+    public void setBallY(double y) {
+        this.version++;
+        this.balls.setPosition(0, this.balls.getX(0), y);
+    }
+
+    /**
+     * Gets the paddle's left edge
+     *
+     * @return the paddle's left edge
+     */
+    public double getPaddleX() {
+        return this.paddleX;
+    }
+
+    /**
+     * Gets the paddle's left edge between the last two ticks
+     *
+     * @param alpha the fraction of a tick past the snapshot
+     * @return the interpolated left edge
+     */
+    public double getPaddleX(double alpha) {
+        return this.prevPaddleX + (this.paddleX - this.prevPaddleX) * alpha;
+    }
+
+    /**
+     * Gets the paddle's top edge
+     *
+     * @return the paddle's top edge
+     */
+    public double getPaddleY() {
+        return this.paddleY;
+    }
+
+    /**
+     * Gets the paddle's width
+     *
+     * @return the paddle's width
+     */
+    public double getPaddleWidth() {
+        return this.paddleWidth;
+    }
+
+    /**
+     * Gets the paddle's height
+     *
+     * @return the paddle's height
+     */
+    public double getPaddleHeight() {
+        return this.paddleHeight;
+    }
+
+    /**
+     * Gets the paddle's starting left edge
+     *
+     * @return the paddle's starting left edge
+     */
+    public double getPaddleHomeX() {
+        return this.paddleHomeX;
+    }
+
+    /**
+     * Sets the paddle's left edge
+     *
+     * @param x the paddle's left edge
+     */
+    public void setPaddleX(double x) {
+        this.version++;
+        this.paddleX = x;
+    }
+
+}
@@ -0,0 +1,55 @@
+package application;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * A VectorBoxKernel class that tests as many boxes per instruction as the CPU has double lanes, using the
+ * incubating Vector API of JDK 16 and later
+ *
+ * Each group of lanes is compared edge by edge into a mask whose bits line up with the alive bitset, so the
+ * highest overlapping standing box in the group is the mask's highest set bit. Groups with nothing standing
+ * are skipped without loading their edges.
+ */
+public class VectorBoxKernel implements BoxKernel {
+
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+    private static final int LANES = SPECIES.length();
+    private static final long LANE_MASK = LANES == 64 ? -1L : (1L << LANES) - 1;
+
+    @Override
+    public int lastOverlap(double[] minX, double[] minY, double[] maxX, double[] maxY, long[] alive, int end,
+            double boxMinX, double boxMinY, double boxMaxX, double boxMaxY) {
+        // the boxes past the last whole group have the highest indices, so they go first
+        final int whole = SPECIES.loopBound(end);
+        for(int i = end - 1; i >= whole; i--) {
+            if(minX[i] <= boxMaxX && maxX[i] >= boxMinX && minY[i] <= boxMaxY && maxY[i] >= boxMinY
+                    && (alive[i >>> 6] & (1L << i)) != 0) {
+                return i;
+            }
+        }
+
+        // groups start at multiples of a power of two no larger than 64, so one never straddles two alive words
+        for(int base = whole - LANES; base >= 0; base -= LANES) {
+            final long standing = (alive[base >>> 6] >>> (base & 63)) & LANE_MASK;
+            if(standing == 0) {
+                continue;
+            }
+
+            VectorMask<Double> overlap = DoubleVector.fromArray(SPECIES, minX, base).compare(VectorOperators.LE, boxMaxX)
+                    .and(DoubleVector.fromArray(SPECIES, maxX, base).compare(VectorOperators.GE, boxMinX))
+                    .and(DoubleVector.fromArray(SPECIES, minY, base).compare(VectorOperators.LE, boxMaxY))
+                    .and(DoubleVector.fromArray(SPECIES, maxY, base).compare(VectorOperators.GE, boxMinY));
+            if(overlap.anyTrue()) {
+                final long hits = overlap.toLong() & standing;
+                if(hits != 0) {
+                    return base + 63 - Long.numberOfLeadingZeros(hits);
+                }
+            }
+        }
+        return -1;
+    }
+
+}